@@ -6,6 +6,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import io.deephaven.benchmark.api.Bench;
 import io.deephaven.benchmark.controller.DeephavenDockerController;
@@ -23,15 +24,21 @@ import io.deephaven.benchmark.util.Timer;
  * Deephaven as an agent to run python scripts from the command line by first installing required pip modules in a
  * python virtual environment and then running each test from there.
  * <p>
+ * The <code>result</code> of each test is fingerprinted with the same portable fingerprint, whether it is a Deephaven
+ * table or a pyarrow, pandas or DuckDB result, and the fingerprint of each product is compared to the fingerprint of
+ * the Deephaven test in the same test class. A test fails if its fingerprint does not match.
+ * <p>
  * Note: This runner requires test ordering, so it follows that tests in a single test class are meant to be run as a
  * group. This violates the standard Benchmark convention that every test be able to be run by itself. This is done for
  * practical purposes, though it is not ideal.
  */
 public class CompareTestRunner {
+    static final Map<String, Fingerprint> referenceFingerprints = new ConcurrentHashMap<>();
     final Object testInst;
     final Set<String> requiredPackages = new LinkedHashSet<>();
     final Map<String, String> downloadFiles = new LinkedHashMap<>();
     private Bench api = null;
+    private boolean isResultOrdered = false;
 
     public CompareTestRunner(Object testInst) {
         this.testInst = testInst;
@@ -49,6 +56,16 @@ public class CompareTestRunner {
         downloadFiles.put(sourceUri, destDir);
     }
 
+    /**
+     * Set whether row order matters when fingerprinting the result of a Deephaven test (e.g. for sorts). The default
+     * is false. Tests of other products in the same test class use the ordering of the Deephaven test.
+     * 
+     * @param isOrdered true if the fingerprint should depend on row order, otherwise false
+     */
+    public void setResultOrdered(boolean isOrdered) {
+        this.isResultOrdered = isOrdered;
+    }
+
     /**
      * Initialize the test as a purely Deephaven test. This should only be called once at the beginning of the test
      * 
@@ -114,6 +131,9 @@ public class CompareTestRunner {
         var rcount = result.resultRowCount();
         var ecount = (expectedRowCount < 1) ? Long.MAX_VALUE : expectedRowCount;
         assertTrue(rcount > 0 && rcount <= ecount, "Wrong result row count: " + rcount);
+        var expected = result.expectedFingerprint();
+        assertTrue(expected == null || expected.equals(result.fingerprint()),
+                "Result fingerprint " + result.fingerprint() + " does not match Deephaven's " + expected);
         System.out.println("Result Count: " + rcount);
     }
 
@@ -230,7 +250,8 @@ public class CompareTestRunner {
 
 
     /**
-     * Run the test in Deephaven proper. Do not push to the command line.
+     * Run the test in Deephaven proper. Do not push to the command line. The <code>result</code> table is fingerprinted
+     * on the engine and recorded as a metric, so that results can be verified without fetching them.
      * 
      * @param name the benchmark name
      * @param operation the operation being measured
@@ -252,7 +273,7 @@ public class CompareTestRunner {
             long_col("result_row_count", [${resultSizeGetter}]),
         ])
         """;
-        return runTest(name, query, setup, operation, mainSizeGetter, resultSizeGetter);
+        return runTest(name, query, "result", setup, operation, mainSizeGetter, resultSizeGetter);
     }
 
     /**
@@ -272,7 +293,9 @@ public class CompareTestRunner {
         ./bin/python $1
         '''
         save_file('run-benchmark-test.sh', text)
+        save_file('bench_api_fingerprint.py', '''${fingerprintReference}''')
         """;
+        query = query.replace("${fingerprintReference}", Filer.getURLText(Bench.class.getResource("fingerprint.py")));
         api.query(query).execute();
 
         query = """
@@ -283,9 +306,14 @@ public class CompareTestRunner {
         op_duration = time.perf_counter_ns() - begin_time
         main_size = ${mainSizeGetter}
         result_size = ${resultSizeGetter}
+        fingerprint = ''
+        if 'result' in globals():
+            from bench_api_fingerprint import bench_api_fingerprint_result
+            fingerprint = bench_api_fingerprint_result(result, ordered=${ordered})
 
         print("-- Test Results --")
-        print("{", "'duration':", op_duration, ", 'main_size':", main_size, ", 'result_size':", result_size, "}")
+        print("{", "'duration':", op_duration, ", 'main_size':", main_size, ", 'result_size':", result_size,
+            ", 'fingerprint':", repr(fingerprint), "}")
         '''
         save_file('benchmark-test.py', text)
         result = run_script('./run-benchmark-test.sh', 'benchmark-test.py')
@@ -294,14 +322,16 @@ public class CompareTestRunner {
         stats = new_table([
             double_col("elapsed_nanos", [result['duration']]),
             long_col("processed_row_count", [result['main_size']]),
-            long_col("result_row_count", [result['result_size']])
+            long_col("result_row_count", [result['result_size']]),
+            string_col("fingerprint", [result['fingerprint']])
         ])
         """;
-        return runTest(name, query, setup, operation, mainSizeGetter, resultSizeGetter);
+        query = query.replace("${ordered}", isFingerprintOrdered() ? "True" : "False");
+        return runTest(name, query, null, setup, operation, mainSizeGetter, resultSizeGetter);
     }
 
-    Result runTest(String name, String query, String setup, String operation, String mainSizeGetter,
-            String resultSizeGetter) {
+    Result runTest(String name, String query, String fingerprintTable, String setup, String operation,
+            String mainSizeGetter, String resultSizeGetter) {
         if (api == null)
             throw new RuntimeException("Initialize with initDeephaven() or initPython()s before running the test");
         api.setName(name);
@@ -313,20 +343,59 @@ public class CompareTestRunner {
 
         try {
             var result = new AtomicReference<Result>();
-            api.query(query).fetchAfter("stats", table -> {
+            var fingerprint = new AtomicReference<String>();
+            var benchQuery = api.query(query).fetchAfter("stats", table -> {
                 long loadedRowCount = table.getSum("processed_row_count").longValue();
                 long resultRowCount = table.getSum("result_row_count").longValue();
                 long elapsedNanos = table.getSum("elapsed_nanos").longValue();
-                var r = new Result(loadedRowCount, Duration.ofNanos(elapsedNanos), resultRowCount);
+                var r = new Result(loadedRowCount, Duration.ofNanos(elapsedNanos), resultRowCount, null, null);
                 result.set(r);
-            }).execute();
-            api.result().test("deephaven-engine", result.get().elapsedTime(), result.get().loadedRowCount());
-            return result.get();
+                if (table.getColumnNames().contains("fingerprint"))
+                    fingerprint.set(table.getValue(0, "fingerprint").toString());
+            });
+            if (fingerprintTable != null)
+                benchQuery.fetchFingerprint(fingerprintTable, isResultOrdered, f -> fingerprint.set(f));
+            benchQuery.execute();
+            var r = result.get();
+            api.result().test("deephaven-engine", r.elapsedTime(), r.loadedRowCount());
+            var expected = addResultFingerprint(fingerprint.get(), r.resultRowCount(), fingerprintTable != null);
+            return new Result(r.loadedRowCount(), r.elapsedTime(), r.resultRowCount(), fingerprint.get(), expected);
         } finally {
             api.close();
         }
     }
 
+    /**
+     * Record the fingerprint of a test result. The fingerprint of a Deephaven test is kept as the reference for the
+     * test class, and the fingerprint of any other product is compared to it and recorded as a match (1) or not (0).
+     * 
+     * @param fingerprint the result fingerprint or null or blank if there is none
+     * @param resultRowCount the row count of the result
+     * @param isReference true if this is the fingerprint of the Deephaven test, otherwise false
+     * @return the reference fingerprint this result must match, or null if there is nothing to compare to
+     */
+    String addResultFingerprint(String fingerprint, long resultRowCount, boolean isReference) {
+        var testClass = testInst.getClass().getName();
+        var reference = isReference ? null : referenceFingerprints.get(testClass);
+        if (fingerprint == null || fingerprint.isBlank())
+            return (reference == null) ? null : reference.value();
+        boolean isOrdered = isFingerprintOrdered();
+        var metrics = new Metrics(Timer.now(), "deephaven-engine", "result");
+        metrics.set("fingerprint", resultRowCount, fingerprint, isOrdered ? "ordered" : "unordered");
+        if (isReference)
+            referenceFingerprints.put(testClass, new Fingerprint(fingerprint, isOrdered));
+        if (reference != null)
+            metrics.set("fingerprint.match", fingerprint.equals(reference.value()) ? 1 : 0,
+                    "expected=" + reference.value());
+        api.metrics().add(metrics);
+        return (reference == null) ? null : reference.value();
+    }
+
+    boolean isFingerprintOrdered() {
+        var reference = referenceFingerprints.get(testInst.getClass().getName());
+        return (requiredPackages.isEmpty() || reference == null) ? isResultOrdered : reference.isOrdered();
+    }
+
     void initialize(Object testInst) {
         var query = """
         import subprocess, os, stat, time
@@ -449,7 +518,11 @@ public class CompareTestRunner {
         table.generateParquet();
     }
 
-    record Result(long loadedRowCount, Duration elapsedTime, long resultRowCount) {
+    record Result(long loadedRowCount, Duration elapsedTime, long resultRowCount, String fingerprint,
+            String expectedFingerprint) {
+    }
+
+    record Fingerprint(String value, boolean isOrdered) {
     }
 
 }
@@ -23,6 +23,7 @@ public class SortTest {
     @Order(1)
     public void deephavenSort() {
         runner.initDeephaven(1, "source", null, "int640", "str250");
+        runner.setResultOrdered(true);
         var setup = "from deephaven.parquet import read";
         var op = """
         source = read('/data/source.parquet').select()
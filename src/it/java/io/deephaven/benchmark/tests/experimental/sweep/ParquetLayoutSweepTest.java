@@ -0,0 +1,69 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.tests.experimental.sweep;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+import io.deephaven.benchmark.tests.experimental.sweep.SweepRunner.SweepResult;
+
+/**
+ * Sweep parquet layouts (codec, target page size, dictionary limits) for the standard multi-column table. Each layout
+ * is written, read in full, and read with a narrow projection of one column. The layouts that are Pareto-optimal for
+ * write rate, read rate, narrow read rate and file size are recorded as "Pareto" benchmarks.
+ * <p>
+ * Note: The Deephaven parquet writer does not have a row group size setting, so row group size is not swept
+ */
+class ParquetLayoutSweepTest {
+    final SweepRunner runner = new SweepRunner(this);
+    final String[] codecs = {"UNCOMPRESSED", "SNAPPY", "ZSTD", "LZ4_RAW"};
+    final int[] pageSizes = {64 * 1024, 1024 * 1024, 8 * 1024 * 1024};
+    final int[][] dictionaryLimits = {{1024 * 1024, 1024 * 1024}, {2 * 1024 * 1024, 16 * 1024 * 1024}};
+    final String narrowColumn = "long10K";
+
+    @Test
+    void sweepLayouts() {
+        var setup = SweepRunner.getStandardTableQuery("source", runner.scaleRowCount * 3) + """
+        remove_path('/data/layout.ptr.parquet')
+        """;
+        var write = """
+        write(
+            source, '/data/layout.ptr.parquet', compression_codec_name='${codec}',
+            max_dictionary_keys=${dictKeys}, max_dictionary_size=${dictBytes}, target_page_size=${pageSize}
+        )
+        bench_api_metrics_add('data', 'file.size', str(os.path.getsize('/data/layout.ptr.parquet')), 'parquet')
+        """;
+        var read = "result = read('/data/layout.ptr.parquet').select()";
+        var narrowRead = "result = read('/data/layout.ptr.parquet').select(['" + narrowColumn + "'])";
+
+        var layouts = new ArrayList<SweepResult>();
+        for (String codec : codecs) {
+            for (int pageSize : pageSizes) {
+                for (int[] dict : dictionaryLimits) {
+                    var params = new LinkedHashMap<String, Object>();
+                    params.put("Codec", codec);
+                    params.put("Page", pageSize);
+                    params.put("DictKeys", dict[0]);
+                    params.put("DictBytes", dict[1]);
+                    var label = SweepRunner.toLabel(params);
+
+                    var op = write.replace("${codec}", codec).replace("${pageSize}", "" + pageSize)
+                            .replace("${dictKeys}", "" + dict[0]).replace("${dictBytes}", "" + dict[1]);
+                    var w = runner.run("ParquetWrite- Layout " + label + " -Static", params, setup, op, "source.size");
+                    var r = runner.run("ParquetRead- Layout " + label + " -Static", params, "result = None", read,
+                            "result.size");
+                    var n = runner.run("ParquetNarrowRead- Layout " + label + " -Static", params, "result = None",
+                            narrowRead, "result.size");
+
+                    var metrics = new LinkedHashMap<String, Number>();
+                    metrics.put("write.rate", w.rate());
+                    metrics.put("read.rate", r.rate());
+                    metrics.put("narrow.read.rate", n.rate());
+                    metrics.put("file.size", w.metric("data.file.size"));
+                    layouts.add(new SweepResult(r.name(), params, r.elapsed(), r.rowCount(), metrics));
+                }
+            }
+        }
+        runner.recordParetoFront("ParquetLayout- Pareto", layouts, l -> l.metric("write.rate"),
+                l -> l.metric("read.rate"), l -> l.metric("narrow.read.rate"), l -> -l.metric("file.size"));
+    }
+
+}
@@ -0,0 +1,120 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.tests.experimental.sweep;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Measure how reading key-value partitioned parquet scales with the number of partition files, from 10 to 100,000
+ * files, both on local disk and in S3 (minio). For each file count, the following are recorded as separate benchmarks
+ * where the rate is files per second:
+ * <ul>
+ * <li>Discovery: Creating the table, which finds the table locations</li>
+ * <li>Metadata: Creating the table and getting its size, which loads the metadata for every location</li>
+ * <li>FirstRow: Creating the table and selecting its first row</li>
+ * <li>Pruned: Creating the table and selecting rows from a single partition</li>
+ * </ul>
+ * Each file has the same number of rows (<code>rowsPerFile</code>), so that the measurements are dominated by the file
+ * count rather than the data size. Each file count is written under its own prefix with fixed file names, so rewriting
+ * a file count in S3 replaces the same objects and leaves no stale files from other file counts.
+ */
+class PartitionScaleTest {
+    final int rowsPerFile = 10;
+    final SweepRunner runner = new SweepRunner(this);
+    final String s3Instructions = """
+        special_instructions=s3.S3Instructions(
+            region_name='aws-global', endpoint_override='http://minio:9000',
+            credentials=s3.Credentials.basic('minioadmin', 'minioadmin'),
+            read_timeout='PT60S', connection_timeout='PT20S'
+        )""";
+
+    @BeforeEach
+    void setup() {
+        runner.setRequiredServices("deephaven", "minio");
+    }
+
+    @Test
+    void local10Files() {
+        runScale(10, false);
+    }
+
+    @Test
+    void local100Files() {
+        runScale(100, false);
+    }
+
+    @Test
+    void local1KFiles() {
+        runScale(1000, false);
+    }
+
+    @Test
+    void local10KFiles() {
+        runScale(10000, false);
+    }
+
+    @Test
+    void local100KFiles() {
+        runScale(100000, false);
+    }
+
+    @Test
+    void s310Files() {
+        runScale(10, true);
+    }
+
+    @Test
+    void s3100Files() {
+        runScale(100, true);
+    }
+
+    @Test
+    void s31KFiles() {
+        runScale(1000, true);
+    }
+
+    @Test
+    void s310KFiles() {
+        runScale(10000, true);
+    }
+
+    @Test
+    void s3100KFiles() {
+        runScale(100000, true);
+    }
+
+    void runScale(int fileCount, boolean isS3) {
+        var store = isS3 ? "S3" : "Local";
+        var path = (isS3 ? "s3://data/partscale/" : "/data/partscale/") + fileCount + "-files";
+        var instructions = isS3 ? (", " + s3Instructions) : "";
+        var label = fileCount + " Files";
+        var params = new LinkedHashMap<String, Object>();
+        params.put("Files", fileCount);
+        params.put("Store", store);
+        long rowCount = (long) fileCount * rowsPerFile;
+
+        var write = """
+        remove_path('/data/partscale')
+        source = empty_table(${rowCount}).update(['part=(int)(ii % ${fileCount})', 'long10K=(ii % 10000)'])
+        write_partitioned(source.partition_by('part'), '${path}', base_name='data'${instructions})
+        """;
+        write = write.replace("${rowCount}", "" + rowCount).replace("${fileCount}", "" + fileCount)
+                .replace("${path}", path).replace("${instructions}", instructions);
+        runner.execute(write);
+
+        var read = "read('${path}', file_layout=ParquetFileLayout.KV_PARTITIONED${instructions})"
+                .replace("${path}", path).replace("${instructions}", instructions);
+        var setup = "from deephaven.parquet import ParquetFileLayout\nresult = None";
+        var prefix = store + "PartitionedRead- ";
+        var files = "" + fileCount;
+
+        runner.run(prefix + "Discovery " + label + " -Static", params, setup, "result = " + read, files);
+        runner.run(prefix + "Metadata " + label + " -Static", params, setup,
+                "result = " + read + "\nresult_size = result.size", files);
+        runner.run(prefix + "FirstRow " + label + " -Static", params, setup, "result = " + read + ".head(1).select()",
+                files);
+        runner.run(prefix + "Pruned " + label + " -Static", params, setup,
+                "result = " + read + ".where('part = 7').select()", files);
+    }
+
+}
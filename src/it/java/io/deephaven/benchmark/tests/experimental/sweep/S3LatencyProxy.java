@@ -0,0 +1,98 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.tests.experimental.sweep;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Controls a <a href="https://github.com/Shopify/toxiproxy">Toxiproxy</a> service that sits between the engine and
+ * minio to simulate the latency and bandwidth of a real object store. The proxy (service <code>s3-proxy</code> in the
+ * docker compose file) listens on port 9100 and forwards to <code>minio:9000</code>. Its control API address is given
+ * by the <code>s3.proxy.addr</code> property (default localhost:8474).
+ * <p>
+ * Conditions are applied to the responses from minio. Tail latency is injected as a second latency toxic that applies
+ * to the given fraction of connections.
+ */
+class S3LatencyProxy {
+    static final String proxyName = "s3";
+    static final String listenAddr = "0.0.0.0:9100";
+    static final String upstreamAddr = "minio:9000";
+    final String apiAddr;
+    final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    /**
+     * Make a controller for the proxy at the given control API address
+     *
+     * @param apiAddr the host:port of the Toxiproxy control API
+     */
+    S3LatencyProxy(String apiAddr) {
+        this.apiAddr = apiAddr;
+    }
+
+    /**
+     * Create the proxy from the engine to minio if it does not exist, and remove any existing conditions
+     */
+    void initialize() {
+        post("/populate", """
+        [{"name": "${name}", "listen": "${listen}", "upstream": "${upstream}", "enabled": true}]
+        """.replace("${name}", proxyName).replace("${listen}", listenAddr).replace("${upstream}", upstreamAddr));
+        post("/reset", "");
+    }
+
+    /**
+     * Replace the current conditions with the given one
+     *
+     * @param condition the network condition to simulate
+     */
+    void apply(Condition condition) {
+        post("/reset", "");
+        if (condition.latencyMillis() > 0 || condition.jitterMillis() > 0)
+            addToxic("latency", "latency", 1.0, "\"latency\": " + condition.latencyMillis() + ", \"jitter\": "
+                    + condition.jitterMillis());
+        if (condition.tailLatencyMillis() > 0 && condition.tailFraction() > 0)
+            addToxic("tail", "latency", condition.tailFraction(), "\"latency\": " + condition.tailLatencyMillis());
+        if (condition.bandwidthKBps() > 0)
+            addToxic("bandwidth", "bandwidth", 1.0, "\"rate\": " + condition.bandwidthKBps());
+    }
+
+    private void addToxic(String name, String type, double toxicity, String attributes) {
+        var toxic = """
+        {"name": "${name}", "type": "${type}", "stream": "downstream", "toxicity": ${toxicity},
+            "attributes": {${attributes}}}
+        """;
+        toxic = toxic.replace("${name}", name).replace("${type}", type).replace("${toxicity}", "" + toxicity);
+        post("/proxies/" + proxyName + "/toxics", toxic.replace("${attributes}", attributes));
+    }
+
+    private String post(String path, String body) {
+        var uri = "http://" + apiAddr + path;
+        try {
+            var request = HttpRequest.newBuilder(new URI(uri)).timeout(Duration.ofSeconds(10))
+                    .header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body)).build();
+            var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 300)
+                throw new RuntimeException("Bad status " + response.statusCode() + ": " + response.body());
+            return response.body();
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to call S3 proxy: " + uri, ex);
+        }
+    }
+
+    /**
+     * A simulated network condition between the engine and the object store
+     *
+     * @param name a short name used in benchmark names (ex. Region)
+     * @param latencyMillis the latency added to each response
+     * @param jitterMillis the random variation (+/-) added to the latency
+     * @param bandwidthKBps the bandwidth cap in KB per second or 0 for no cap
+     * @param tailLatencyMillis the extra latency for the slowest fraction of connections
+     * @param tailFraction the fraction of connections (0 to 1) that get the tail latency
+     */
+    record Condition(String name, long latencyMillis, long jitterMillis, long bandwidthKBps, long tailLatencyMillis,
+            double tailFraction) {
+    }
+
+}
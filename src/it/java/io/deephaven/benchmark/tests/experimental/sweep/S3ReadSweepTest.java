@@ -0,0 +1,98 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.tests.experimental.sweep;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import io.deephaven.benchmark.tests.experimental.sweep.S3LatencyProxy.Condition;
+import io.deephaven.benchmark.tests.experimental.sweep.SweepRunner.SweepResult;
+
+/**
+ * Sweep the <code>S3Instructions</code> read-ahead count, fragment size and max concurrent requests for reading the
+ * standard multi-column parquet from S3 under simulated network conditions. Reads go through a latency-injecting
+ * proxy in front of minio (see <code>S3LatencyProxy</code>), and the fastest settings for each condition are
+ * recorded as a "Best" benchmark.
+ */
+@TestMethodOrder(OrderAnnotation.class)
+class S3ReadSweepTest {
+    final SweepRunner runner = new SweepRunner(this);
+    final S3LatencyProxy proxy = new S3LatencyProxy(runner.api().property("s3.proxy.addr", "localhost:8474"));
+    final int[] readAheadCounts = {1, 8, 32};
+    final int[] fragmentSizes = {64 * 1024, 1024 * 1024, 8 * 1024 * 1024};
+    final int[] maxConcurrentRequests = {16, 64, 256};
+
+    @BeforeEach
+    void setup() {
+        runner.setRequiredServices("deephaven", "minio", "s3-proxy");
+    }
+
+    @Test
+    @Order(1)
+    void writeSource() {
+        var q = SweepRunner.getStandardTableQuery("source", runner.scaleRowCount * 3) + """
+        write(
+            source, 's3://data/sweep.ptr.parquet', special_instructions=s3.S3Instructions(
+              region_name='aws-global', endpoint_override='http://minio:9000',
+              credentials=s3.Credentials.basic('minioadmin', 'minioadmin'),
+              connection_timeout='PT20S'
+            )
+        )
+        """;
+        runner.execute(q);
+    }
+
+    @Test
+    @Order(2)
+    void sweepLocal() {
+        sweep(new Condition("Local", 0, 0, 0, 0, 0));
+    }
+
+    @Test
+    @Order(3)
+    void sweepRegion() {
+        sweep(new Condition("Region", 20, 5, 100000, 0, 0));
+    }
+
+    @Test
+    @Order(4)
+    void sweepRegionWithTail() {
+        sweep(new Condition("Tail", 20, 5, 100000, 500, 0.05));
+    }
+
+    void sweep(Condition condition) {
+        var read = """
+        result = read('s3://data/sweep.ptr.parquet', special_instructions=s3.S3Instructions(
+            region_name='aws-global', endpoint_override='http://s3-proxy:9100',
+            credentials=s3.Credentials.basic('minioadmin', 'minioadmin'),
+            read_timeout='PT60S', connection_timeout='PT20S',
+            read_ahead_count=${readAhead}, fragment_size=${fragmentSize},
+            max_concurrent_requests=${concurrency}
+        )).select()
+        """;
+        var results = new ArrayList<SweepResult>();
+        try {
+            proxy.initialize();
+            proxy.apply(condition);
+            for (int readAhead : readAheadCounts) {
+                for (int fragmentSize : fragmentSizes) {
+                    for (int concurrency : maxConcurrentRequests) {
+                        var params = new LinkedHashMap<String, Object>();
+                        params.put("ReadAhead", readAhead);
+                        params.put("Fragment", fragmentSize);
+                        params.put("Concurrency", concurrency);
+                        var name = "S3ParquetRead- Sweep " + condition.name() + " " + SweepRunner.toLabel(params)
+                                + " -Static";
+                        var op = read.replace("${readAhead}", "" + readAhead)
+                                .replace("${fragmentSize}", "" + fragmentSize)
+                                .replace("${concurrency}", "" + concurrency);
+                        results.add(runner.run(name, params, "result = None", op, "result.size"));
+                    }
+                }
+            }
+            runner.recordBest("S3ParquetRead- Sweep " + condition.name() + " Best -Static", results);
+        } finally {
+            proxy.apply(new Condition("None", 0, 0, 0, 0, 0));
+        }
+    }
+
+}
@@ -0,0 +1,320 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.tests.experimental.sweep;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import io.deephaven.benchmark.api.Bench;
+import io.deephaven.benchmark.controller.Controller;
+import io.deephaven.benchmark.controller.DeephavenDockerController;
+import io.deephaven.benchmark.metric.Metrics;
+import io.deephaven.benchmark.util.Timer;
+
+/**
+ * A runner for benchmarks that sweep a set of parameters (e.g. S3 read-ahead, Parquet page size) over the same data.
+ * Unlike the standard runners, services are restarted only once for each runner instance, so files written early in
+ * the sweep can be read by later benchmarks without regenerating them. Each run is recorded as its own benchmark, and
+ * the parameters of each run are recorded as metrics in the "sweep" category.
+ * <p>
+ * Note: This class is for running tests in the <code>experimental</code> package. Sweeps can take a long time, so scale
+ * is usually kept lower than the standard tests.
+ */
+class SweepRunner {
+    final Object testInst;
+    final Set<String> requiredServices = new TreeSet<>(List.of("deephaven"));
+    final long scaleRowCount;
+    private Bench api;
+    private Controller controller;
+    private boolean isStarted = false;
+
+    SweepRunner(Object testInst) {
+        this.testInst = testInst;
+        this.api = Bench.create(testInst);
+        this.scaleRowCount = api.propertyAsIntegral("scale.row.count", "100000");
+        this.controller = new DeephavenDockerController(api.property("docker.compose.file", ""),
+                api.property("deephaven.addr", ""));
+    }
+
+    /**
+     * Get the Bench API instance for this runner
+     *
+     * @return the Bench API instance
+     */
+    Bench api() {
+        if (api.isClosed())
+            api = Bench.create(testInst);
+        return api;
+    }
+
+    /**
+     * Sets the prefixes of the services required to run this sweep. Those services will be turned on while the rest
+     * will be turned off.
+     *
+     * @param servicePrefixes the services to run the sweep
+     */
+    void setRequiredServices(String... servicePrefixes) {
+        requiredServices.clear();
+        requiredServices.addAll(Arrays.asList(servicePrefixes));
+    }
+
+    /**
+     * Execute a query (e.g. generate and write data) without recording it as a benchmark
+     *
+     * @param query the query to execute
+     */
+    void execute(String query) {
+        startServices();
+        var bench = api();
+        try {
+            bench.setName("#sweep-setup");
+            bench.query(getImports() + query).execute();
+        } finally {
+            bench.close();
+        }
+    }
+
+    /**
+     * Run a single benchmark of the sweep. The operation is measured, and the setup query is run outside of the
+     * measurement. The row count expression is evaluated after the operation to get the processed row count (ex.
+     * result.size).
+     *
+     * @param name the benchmark name
+     * @param params the parameters used in this run, which are recorded as metrics
+     * @param setup a query to run before the measured operation
+     * @param operation the measured operation (one or more statements)
+     * @param rowCountExpr an expression giving the number of rows processed by the operation
+     * @return the result of the run
+     */
+    SweepResult run(String name, Map<String, Object> params, String setup, String operation, String rowCountExpr) {
+        startServices();
+        var q = """
+        ${setup}
+        bench_api_metrics_start()
+        begin_time = time.perf_counter_ns()
+        ${operation}
+        end_time = time.perf_counter_ns()
+        bench_api_metrics_end(begin_time, end_time)
+        standard_metrics = bench_api_metrics_collect()
+
+        stats = new_table([
+            double_col("elapsed_nanos", [end_time - begin_time]),
+            long_col("processed_row_count", [${rowCountExpr}])
+        ])
+        """;
+        q = q.replace("${setup}", setup);
+        q = q.replace("${operation}", operation);
+        q = q.replace("${rowCountExpr}", rowCountExpr);
+
+        var bench = api();
+        try {
+            bench.setName(name);
+            var elapsed = new AtomicReference<Duration>();
+            var rowCount = new AtomicReference<Long>();
+            var engineMetrics = new LinkedHashMap<String, Number>();
+            bench.query(getImports() + q).fetchAfter("stats", table -> {
+                elapsed.set(Duration.ofNanos(table.getSum("elapsed_nanos").longValue()));
+                rowCount.set(table.getSum("processed_row_count").longValue());
+            }).fetchAfter("standard_metrics", table -> {
+                bench.metrics().add(table);
+                for (int i = 0, n = table.getRowCount(); i < n; i++) {
+                    var metricName = table.getValue(i, "category") + "." + table.getValue(i, "name");
+                    engineMetrics.put(metricName, table.getNumber(i, "value"));
+                }
+            }).execute();
+            bench.result().test("deephaven-engine", elapsed.get(), rowCount.get());
+            bench.metrics().add(toParamMetrics(params));
+            return new SweepResult(name, params, elapsed.get(), rowCount.get(), engineMetrics);
+        } finally {
+            bench.close();
+        }
+    }
+
+    /**
+     * Record the run with the highest rate as its own benchmark, where the parameters of the best run are recorded as
+     * metrics
+     *
+     * @param name the benchmark name for the best run
+     * @param results the results of the sweep
+     * @return the best result
+     */
+    SweepResult recordBest(String name, List<SweepResult> results) {
+        var best = results.stream().max(Comparator.comparingDouble(r -> r.rate())).orElseThrow();
+        record(name, best, "best of " + results.size() + " runs: " + best.name(), false);
+        return best;
+    }
+
+    /**
+     * Record each result that is not dominated by another result as its own benchmark. A result is dominated if another
+     * result is at least as good for every objective and better for at least one. The metrics of each recorded result
+     * are included in the "sweep" category.
+     *
+     * @param namePrefix the prefix for the name of each recorded result, which is followed by its parameters
+     * @param results the results of the sweep
+     * @param objectives functions giving values where higher is better (ex. read rate, negative file size)
+     * @return the Pareto-optimal results
+     */
+    @SafeVarargs
+    final List<SweepResult> recordParetoFront(String namePrefix, List<SweepResult> results,
+            ToDoubleFunction<SweepResult>... objectives) {
+        var front = getParetoFront(results, objectives);
+        for (SweepResult r : front) {
+            var note = "pareto optimal of " + results.size() + " runs";
+            record(namePrefix + ' ' + toLabel(r.params()) + " -Static", r, note, true);
+        }
+        return front;
+    }
+
+    /**
+     * Get the results that are not dominated by any other result for the given objectives
+     *
+     * @param results the results of the sweep
+     * @param objectives functions giving values where higher is better
+     * @return the Pareto-optimal results in the order given
+     */
+    @SafeVarargs
+    static List<SweepResult> getParetoFront(List<SweepResult> results, ToDoubleFunction<SweepResult>... objectives) {
+        return results.stream().filter(r -> results.stream().noneMatch(o -> dominates(o, r, objectives))).toList();
+    }
+
+    static private boolean dominates(SweepResult a, SweepResult b, ToDoubleFunction<SweepResult>[] objectives) {
+        boolean isBetter = false;
+        for (var objective : objectives) {
+            double va = objective.applyAsDouble(a);
+            double vb = objective.applyAsDouble(b);
+            if (va < vb)
+                return false;
+            if (va > vb)
+                isBetter = true;
+        }
+        return isBetter;
+    }
+
+    /**
+     * Get a query that generates the standard multi-column table used by the file tests (str10K, long10K, int10K,
+     * short10K, bigDec10K, intArr5, intVec5), where every tenth row is null
+     *
+     * @param tableName the name of the table variable to generate
+     * @param rowCount the number of rows to generate
+     * @return the query
+     */
+    static String getStandardTableQuery(String tableName, long rowCount) {
+        var array5 = "java.util.stream.IntStream.range((int)(ii % 5),(int)((ii % 5) + 5)).toArray()";
+        var columns = new LinkedHashMap<String, String>();
+        columns.put("str10K", "(`` + (ii % 10000))");
+        columns.put("long10K", "(ii % 10000)");
+        columns.put("int10K", "((int)(ii % 10000))");
+        columns.put("short10K", "((short)(ii % 10000))");
+        columns.put("bigDec10K", "java.math.BigDecimal.valueOf(ii % 10000)");
+        columns.put("intArr5", array5);
+        columns.put("intVec5", "vec(" + array5 + ")");
+        var generators = columns.entrySet().stream()
+                .map(e -> "    '" + e.getKey() + "=(ii % 10 == 0) ? null : " + e.getValue() + "'")
+                .collect(Collectors.joining(",\n"));
+        return tableName + " = empty_table(" + rowCount + ").update([\n" + generators + "\n])\n";
+    }
+
+    /**
+     * Make a short label from the given parameters suitable for use in benchmark names
+     *
+     * @param params the sweep parameters
+     * @return a label like <code>Codec=ZSTD Page=64K</code>
+     */
+    static String toLabel(Map<String, Object> params) {
+        return params.entrySet().stream().map(e -> e.getKey() + '=' + toLabelValue(e.getValue()))
+                .collect(Collectors.joining(" "));
+    }
+
+    static private String toLabelValue(Object value) {
+        if (!(value instanceof Number))
+            return value.toString();
+        long v = ((Number) value).longValue();
+        if (v >= 1024 * 1024 && v % (1024 * 1024) == 0)
+            return (v / (1024 * 1024)) + "M";
+        if (v >= 1024 && v % 1024 == 0)
+            return (v / 1024) + "K";
+        return "" + v;
+    }
+
+    private void record(String name, SweepResult result, String note, boolean includeMetrics) {
+        var bench = api();
+        try {
+            bench.setName(name);
+            bench.result().test("deephaven-engine", result.elapsed(), result.rowCount());
+            var metrics = toParamMetrics(result.params());
+            metrics.set("run.rate", result.rate(), note);
+            if (includeMetrics)
+                result.metrics().forEach((n, v) -> metrics.set(n, v));
+            bench.metrics().add(metrics);
+        } finally {
+            bench.close();
+        }
+    }
+
+    private Metrics toParamMetrics(Map<String, Object> params) {
+        var metrics = new Metrics(Timer.now(), "test-runner", "sweep");
+        params.forEach((k, v) -> {
+            if (v instanceof Number)
+                metrics.set("param." + k, (Number) v);
+            else
+                metrics.set("param." + k, 0, v.toString());
+        });
+        return metrics;
+    }
+
+    private String getImports() {
+        return """
+        import time, os, shutil
+        from deephaven import empty_table, garbage_collect, new_table, merge
+        from deephaven.column import long_col, double_col
+        from deephaven.parquet import read, write, write_partitioned
+        from deephaven import read_csv, write_csv
+        from deephaven import dtypes as dht
+        from deephaven.experimental import s3
+
+        def remove_path(path):
+            if(os.path.exists(path)):
+                if(os.path.isdir(path)): shutil.rmtree(path)
+                else: os.remove(path)
+
+        bench_api_metrics_init()
+        """;
+    }
+
+    private void startServices() {
+        if (isStarted)
+            return;
+        isStarted = true;
+        var bench = api();
+        var timer = bench.timer();
+        if (controller.restartService()) {
+            var metrics = new Metrics(Timer.now(), "test-runner", "setup.docker");
+            metrics.set("restart", timer.duration().toMillis(), "standard");
+            bench.metrics().add(metrics);
+        }
+        controller.stopService(requiredServices);
+    }
+
+    /**
+     * The result of a single run in a sweep
+     *
+     * @param name the benchmark name
+     * @param params the parameters of the run
+     * @param elapsed the elapsed time of the measured operation
+     * @param rowCount the rows processed by the operation
+     * @param metrics the metrics collected on the engine keyed by category.name (ex. data.file.size)
+     */
+    record SweepResult(String name, Map<String, Object> params, Duration elapsed, long rowCount,
+            Map<String, Number> metrics) {
+        double rate() {
+            return rowCount / Math.max(elapsed.toNanos() / 1.0e9, 1.0e-9);
+        }
+
+        double metric(String name) {
+            var value = metrics.get(name);
+            return (value == null) ? 0 : value.doubleValue();
+        }
+    }
+
+}
@@ -2,14 +2,18 @@
 package io.deephaven.benchmark.tests.standard;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import io.deephaven.benchmark.api.Bench;
+import io.deephaven.benchmark.connect.ResultTable;
 import io.deephaven.benchmark.controller.Controller;
 import io.deephaven.benchmark.controller.DeephavenDockerController;
+import io.deephaven.benchmark.jfr.JfrReader;
 import io.deephaven.benchmark.metric.Metrics;
+import io.deephaven.benchmark.util.Statistics;
 import io.deephaven.benchmark.util.Timer;
 
 /**
@@ -201,6 +205,18 @@ final public class StandardTestRunner {
         return (long) (api.propertyAsIntegral("scale.row.count", "100000") * rowCountFactor);
     }
 
+    Duration getSampleInterval() {
+        return api.propertyAsDuration("metrics.sample.interval", "50 millis");
+    }
+
+    boolean isJfrEnabled() {
+        return api.propertyAsBoolean("jfr.capture.enabled", "false");
+    }
+
+    boolean isGcEventsEnabled() {
+        return api.propertyAsBoolean("gc.events.enabled", "false");
+    }
+
     long getMaxExpectedRowCount(long expectedRowCount, long scaleFactor) {
         return (expectedRowCount < 1) ? Long.MAX_VALUE : expectedRowCount;
     }
@@ -238,16 +254,23 @@ final public class StandardTestRunner {
         loaded_tbl_size = ${mainTable}.size
         ${setupQueries}
         ${preOpQueries}
-        bench_api_metrics_start()
+        bench_api_sampler_start(${sampleInterval})
+        bench_api_jfr_start(${jfrEnabled})
+        bench_api_gc_events_start(${gcEventsEnabled})
         print('${logOperationBegin}')
+        bench_api_metrics_start()
 
         begin_time = time.perf_counter_ns()
         result = ${operation}
         end_time = time.perf_counter_ns()
         
+        bench_api_metrics_end(begin_time, end_time)
         print('${logOperationEnd}')
-        bench_api_metrics_end()
+        standard_jfr = bench_api_jfr_stop()
+        standard_gc = bench_api_gc_events_stop()
+        bench_api_sampler_stop()
         standard_metrics = bench_api_metrics_collect()
+        standard_timeseries = bench_api_sampler_collect()
         
         stats = new_table([
             double_col("elapsed_nanos", [end_time - begin_time]),
@@ -276,8 +299,12 @@ final public class StandardTestRunner {
             right = right.where(right_filter)
         
         ${preOpQueries}
-        bench_api_metrics_start()
+        bench_api_sampler_start(${sampleInterval})
+        bench_api_jfr_start(${jfrEnabled})
+        bench_api_gc_events_start(${gcEventsEnabled})
+        bench_api_update_perf_start()
         print('${logOperationBegin}')
+        bench_api_metrics_start()
         begin_time = time.perf_counter_ns()
         result = ${operation}
         
@@ -291,9 +318,14 @@ final public class StandardTestRunner {
         source_filter.waitForCompletion()
         
         end_time = time.perf_counter_ns()
+        bench_api_update_perf_stop()
+        bench_api_metrics_end(begin_time, end_time)
         print('${logOperationEnd}')
-        bench_api_metrics_end()
+        standard_jfr = bench_api_jfr_stop()
+        standard_gc = bench_api_gc_events_stop()
+        bench_api_sampler_stop()
         standard_metrics = bench_api_metrics_collect()
+        standard_timeseries = bench_api_sampler_collect()
         
         stats = new_table([
             double_col("elapsed_nanos", [end_time - begin_time]),
@@ -315,6 +347,9 @@ final public class StandardTestRunner {
         query = query.replace("${operation}", operation);
         query = query.replace("${logOperationBegin}", getLogSnippet("Begin", name));
         query = query.replace("${logOperationEnd}", getLogSnippet("End", name));
+        query = query.replace("${sampleInterval}", "" + getSampleInterval().toMillis());
+        query = query.replace("${jfrEnabled}", isJfrEnabled() ? "True" : "False");
+        query = query.replace("${gcEventsEnabled}", isGcEventsEnabled() ? "True" : "False");
         return query;
     }
 
@@ -326,24 +361,36 @@ final public class StandardTestRunner {
         stopUnusedServices(requiredServices);
 
         try {
-            if (getWarmupRowCount() > 0)
-                api.query(warmupQuery).execute();
+            runWarmups(warmupQuery);
             var result = new AtomicReference<Result>();
+            var originResults = new LinkedHashMap<String, Result>();
+            var containerMetrics = controller.getMetrics();
             api.query(mainQuery).fetchAfter("stats", table -> {
-                long loadedRowCount = table.getSum("processed_row_count").longValue();
-                long resultRowCount = table.getSum("result_row_count").longValue();
-                long elapsedNanos = table.getSum("elapsed_nanos").longValue();
-                var r = new Result(loadedRowCount, Duration.ofNanos(elapsedNanos), resultRowCount);
-                result.set(r);
+                originResults.putAll(getOriginResults(table));
+                result.set(originResults.values().iterator().next());
             }).fetchAfter("standard_metrics", table -> {
                 api.metrics().add(table);
+                addPerRowMetrics(table, originResults, "alloc.bytes");
                 var metrics = new Metrics(Timer.now(), "test-runner", "setup.scale");
                 metrics.set("static.factor", staticFactor);
                 metrics.set("inc.factor", incFactor);
                 metrics.set("row.factor", rowCountFactor);
                 api.metrics().add(metrics);
+            }).fetchAfter("standard_timeseries", table -> {
+                api.timeSeries().add(table);
+            }).fetchAfter("standard_jfr", table -> {
+                addJfrMetrics(name, table);
+            }).fetchAfter("standard_gc", table -> {
+                addGcMetrics(table);
             }).execute();
-            api.result().test("deephaven-engine", result.get().elapsedTime(), result.get().loadedRowCount());
+            var trials = runTrials(getTrialQuery(mainQuery), originResults);
+            var trialNote = "trials=" + trials.values().stream().mapToInt(t -> t.size()).max().orElse(0);
+            Controller.getMetricsDelta(containerMetrics, controller.getMetrics(), trialNote)
+                    .forEach(m -> api.metrics().add(m));
+            if (mainQuery.contains("bench_api_update_perf_start()"))
+                addUpdatePerfMetrics();
+            originResults.forEach((origin, r) -> api.result().test(origin, trials.get(origin), r.loadedRowCount()));
+            addPairedMetrics(trials, originResults);
             return result.get();
         } finally {
             addServiceLog(api);
@@ -351,6 +398,213 @@ final public class StandardTestRunner {
         }
     }
 
+    /**
+     * Add the update graph metrics for the window of the last measured operation. This runs apart from the measured
+     * query, since it may wait for the engine to write its performance logs, and that wait does not belong in the
+     * cost of warmups or repeated trials.
+     */
+    void addUpdatePerfMetrics() {
+        var query = """
+        bench_api_metrics_init()
+        bench_api_update_perf_end()
+        standard_update_perf = bench_api_metrics_collect()
+        """;
+        api.query(query).fetchAfter("standard_update_perf", table -> {
+            api.metrics().add(table);
+        }).execute();
+    }
+
+    /**
+     * Run the warmup query until the JIT has settled or <code>warmup.max.count</code> warmups have run. The JIT is
+     * considered settled when the elapsed time of the last two warmups differs by no more than
+     * <code>warmup.tolerance</code> and the JIT compile time of the last warmup is within that fraction of its
+     * elapsed time. When more than one warmup is allowed, the warmup count, last JIT compile time, and the cold-start
+     * (first warmup) and steady-state (last warmup) rates are recorded for each origin.
+     * 
+     * @param query the warmup query
+     */
+    void runWarmups(String query) {
+        if (getWarmupRowCount() <= 0)
+            return;
+        long maxCount = api.propertyAsIntegral("warmup.max.count", "1");
+        if (maxCount <= 1) {
+            api.query(query).execute();
+            return;
+        }
+        double tolerance = Double.parseDouble(api.property("warmup.tolerance", "0.05"));
+        var warmups = new LinkedHashMap<String, List<Warmup>>();
+        var reason = "max.count";
+        for (int count = 0; count < maxCount; count++) {
+            var results = new LinkedHashMap<String, Result>();
+            var compileSecs = new HashMap<String, Double>();
+            api.query(query).fetchAfter("stats", table -> {
+                results.putAll(getOriginResults(table));
+            }).fetchAfter("standard_metrics", table -> {
+                var rows = table.findRows("name", "compile.time");
+                for (int i = 0, n = rows.getRowCount(); i < n; i++) {
+                    compileSecs.put(rows.getValue(i, "origin").toString(), rows.getNumber(i, "value").doubleValue());
+                }
+            }).execute();
+            results.forEach((origin, r) -> {
+                var warmup = new Warmup(r, compileSecs.getOrDefault(origin, 0.0));
+                warmups.computeIfAbsent(origin, o -> new ArrayList<>()).add(warmup);
+            });
+            if (warmups.values().stream().allMatch(w -> isWarmupSteady(w, tolerance))) {
+                reason = "steady";
+                break;
+            }
+        }
+        for (var entry : warmups.entrySet()) {
+            var first = entry.getValue().get(0);
+            var last = entry.getValue().get(entry.getValue().size() - 1);
+            var metrics = new Metrics(Timer.now(), entry.getKey(), "warmup");
+            metrics.set("count", entry.getValue().size(), "stop=" + reason);
+            metrics.set("compile.time", last.compileSecs());
+            metrics.set("cold.rate", first.rate());
+            metrics.set("steady.rate", last.rate());
+            api.metrics().add(metrics);
+        }
+    }
+
+    boolean isWarmupSteady(List<Warmup> warmups, double tolerance) {
+        if (warmups.size() < 2)
+            return false;
+        double prevSecs = warmups.get(warmups.size() - 2).secs();
+        var last = warmups.get(warmups.size() - 1);
+        return Math.abs(last.secs() - prevSecs) <= tolerance * prevSecs
+                && last.compileSecs() <= tolerance * last.secs();
+    }
+
+    /**
+     * Get the query for repeated trials from the main query by removing the lines that start, stop or collect
+     * instrumentation (metrics, sampler, JFR, GC events and update performance). That leaves the trial without the
+     * <code>garbage_collect()</code> in <code>bench_api_metrics_start()</code> or recordings running during the
+     * operation, and only the <code>stats</code> table is produced.
+     * 
+     * @param query the main query
+     * @return the main query without instrumentation
+     */
+    String getTrialQuery(String query) {
+        var instrumentation = "\\s*(standard_\\w+\\s*=\\s*)?"
+                + "bench_api_(metrics|sampler|jfr|gc_events|update_perf)_\\w+\\(.*";
+        return query.lines().filter(line -> !line.matches(instrumentation)).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Repeat the measured query in the same session until the 95% confidence interval of the rate for every origin is
+     * within <code>trial.ci.target</code> of the mean, or <code>trial.max.count</code> trials have run, or the
+     * <code>trial.time.budget</code> runs out. Each trial re-creates the query inputs. The first trial is the main
+     * query that has already been run, and the rest run the trial query (@see getTrialQuery()), collecting only the
+     * elapsed time.
+     * <p>
+     * When the suite is scheduled with <code>schedule.time.budget</code>, the trial count assigned to the benchmark
+     * replaces <code>trial.max.count</code> and is recorded with the trial metrics.
+     * 
+     * @param query the trial query
+     * @param firstResults the results of the main query for each origin
+     * @return the elapsed time of each trial for each origin
+     */
+    Map<String, List<Duration>> runTrials(String query, Map<String, Result> firstResults) {
+        var trials = new LinkedHashMap<String, List<Duration>>();
+        firstResults.forEach((origin, r) -> trials.put(origin, new ArrayList<>(List.of(r.elapsedTime()))));
+        long scheduled = api.scheduledTrials();
+        long maxCount = (scheduled > 0) ? scheduled : api.propertyAsIntegral("trial.max.count", "1");
+        long minCount = api.propertyAsIntegral("trial.min.count", "3");
+        double ciTarget = Double.parseDouble(api.property("trial.ci.target", "0.02"));
+        var budget = api.propertyAsDuration("trial.time.budget", "2 minutes");
+        var timer = api.timer();
+        var reason = "max.count";
+        for (int count = 1; count < maxCount; count++) {
+            if (count >= minCount && isTrialConfident(trials, ciTarget)) {
+                reason = "ci.target";
+                break;
+            }
+            if (timer.duration().compareTo(budget) >= 0) {
+                reason = "time.budget";
+                break;
+            }
+            api.query(query).fetchAfter("stats", table -> {
+                getOriginResults(table).forEach((origin, r) -> {
+                    trials.computeIfAbsent(origin, o -> new ArrayList<>()).add(r.elapsedTime());
+                });
+            }).execute();
+        }
+        if (maxCount > 1 || scheduled > 0) {
+            var metrics = new Metrics(Timer.now(), "test-runner", "trial");
+            if (scheduled > 0)
+                metrics.set("scheduled.count", scheduled);
+            metrics.set("count", trials.values().stream().mapToInt(t -> t.size()).max().orElse(0), "stop=" + reason);
+            metrics.set("duration.secs", timer.duration().toMillis() / 1000.0);
+            api.metrics().add(metrics);
+        }
+        return trials;
+    }
+
+    /**
+     * Compare the trials of each engine to the trials of the first engine (A/B) as pairs in trial order. When queries
+     * are interleaved across engines (<code>connector.multi.interleave=true</code>), each pair ran back to back in
+     * alternating order, so the paired difference cancels host drift and order effects. The number of pairs, mean
+     * relative rate change and the half-width of its 95% confidence interval are added in the "ab" category for each
+     * engine after the first. The confidence interval is left out when there are fewer than 2 pairs.
+     * 
+     * @param trials the elapsed time of each trial for each origin
+     * @param originResults the results of the main query for each origin
+     */
+    void addPairedMetrics(Map<String, List<Duration>> trials, Map<String, Result> originResults) {
+        if (trials.size() < 2)
+            return;
+        var origins = new ArrayList<>(trials.keySet());
+        var baseline = origins.get(0);
+        var baseTrials = trials.get(baseline);
+        for (String origin : origins.subList(1, origins.size())) {
+            var candTrials = trials.get(origin);
+            int pairs = Math.min(baseTrials.size(), candTrials.size());
+            var changes = new double[pairs];
+            for (int i = 0; i < pairs; i++) {
+                double baseRate = originResults.get(baseline).loadedRowCount() / toSecs(baseTrials.get(i));
+                double candRate = originResults.get(origin).loadedRowCount() / toSecs(candTrials.get(i));
+                changes[i] = (baseRate == 0) ? 0 : candRate / baseRate - 1;
+            }
+            var metrics = new Metrics(Timer.now(), origin, "ab");
+            metrics.set("pair.count", pairs, "baseline=" + baseline);
+            metrics.set("rate.change.mean", Statistics.mean(changes), "baseline=" + baseline);
+            if (pairs > 1)
+                metrics.set("rate.change.ci", Statistics.confidenceInterval(changes), "baseline=" + baseline);
+            api.metrics().add(metrics);
+        }
+    }
+
+    static double toSecs(Duration duration) {
+        return Math.max(duration.toNanos(), 1) / 1.0e9;
+    }
+
+    boolean isTrialConfident(Map<String, List<Duration>> trials, double ciTarget) {
+        return trials.values().stream().allMatch(durations -> {
+            var rates = durations.stream().mapToDouble(d -> 1.0e9 / Math.max(d.toNanos(), 1)).toArray();
+            return Statistics.relativeConfidenceInterval(rates) <= ciTarget;
+        });
+    }
+
+    /**
+     * Get the results from the stats table for each engine origin. A single engine's stats do not have an origin
+     * column, but stats merged from several engines (e.g. by <code>MultiConnector</code>) have one row per origin.
+     * 
+     * @param table the stats table
+     * @return the results keyed by origin
+     */
+    Map<String, Result> getOriginResults(ResultTable table) {
+        var results = new LinkedHashMap<String, Result>();
+        var hasOrigin = table.getColumnNames().contains("origin");
+        for (int i = 0, n = table.getRowCount(); i < n; i++) {
+            var origin = hasOrigin ? table.getValue(i, "origin").toString() : "deephaven-engine";
+            long loadedRowCount = table.getNumber(i, "processed_row_count").longValue();
+            long resultRowCount = table.getNumber(i, "result_row_count").longValue();
+            long elapsedNanos = table.getNumber(i, "elapsed_nanos").longValue();
+            results.put(origin, new Result(loadedRowCount, Duration.ofNanos(elapsedNanos), resultRowCount));
+        }
+        return results;
+    }
+
     String listStr(String... values) {
         return String.join(", ", Arrays.stream(values).map(c -> "'" + c + "'").toList());
     }
@@ -382,6 +636,81 @@ final public class StandardTestRunner {
         api.query(query).execute();
     }
 
+    /**
+     * Add metrics that divide the given engine metrics by the number of rows processed by the operation (ex.
+     * operation.alloc.bytes.per.row)
+     * 
+     * @param table the standard metrics table
+     * @param originResults the results for each origin
+     * @param names the names of the operation metrics to divide
+     */
+    void addPerRowMetrics(ResultTable table, Map<String, Result> originResults, String... names) {
+        for (String name : names) {
+            var rows = table.findRows("name", name);
+            for (int i = 0, n = rows.getRowCount(); i < n; i++) {
+                var result = originResults.get(rows.getValue(i, "origin").toString());
+                if (result == null || result.loadedRowCount() < 1)
+                    continue;
+                var value = rows.getNumber(i, "value").doubleValue();
+                var metrics = new Metrics(Timer.now(), rows.getValue(i, "origin").toString(), "operation");
+                metrics.set(name + ".per.row", value / result.loadedRowCount());
+                api.metrics().add(metrics);
+            }
+        }
+    }
+
+    /**
+     * Save the given JFR recording to the test-jfr directory and add its summary to the metrics. If the table comes
+     * from more than one engine, each engine's recording is saved and summarized separately under its origin.
+     *
+     * @param name the name of the benchmark
+     * @param table the JFR recording as base64 chunks with the origin of each chunk
+     */
+    void addJfrMetrics(String name, ResultTable table) {
+        var origins = new LinkedHashSet<String>();
+        for (int i = 0, n = table.getRowCount(); i < n; i++) {
+            origins.add(table.getValue(i, "origin").toString());
+        }
+        for (String origin : origins) {
+            var fileName = (origins.size() > 1) ? name + "." + origin : name;
+            fileName = fileName.replaceAll("[^A-Za-z0-9.-]+", "_") + ".jfr";
+            var chunks = table.findRows("origin", origin);
+            var jfrFile = JfrReader.saveRecording(chunks, Bench.outputDir.resolve("test-jfr").resolve(fileName));
+            api.metrics().add(new JfrReader(jfrFile).getMetrics(origin, 10));
+        }
+    }
+
+    /**
+     * Add a histogram of the pauses in the given GC recording to the metrics, and add each pause to the time series.
+     * If the table comes from more than one engine, each engine's recording is read separately.
+     *
+     * @param table the GC recording as base64 chunks with the origin of each chunk
+     */
+    void addGcMetrics(ResultTable table) {
+        var origins = new LinkedHashSet<String>();
+        for (int i = 0, n = table.getRowCount(); i < n; i++) {
+            origins.add(table.getValue(i, "origin").toString());
+        }
+        for (String origin : origins) {
+            try {
+                var gcFile = Files.createTempFile("bench-gc", ".jfr");
+                try {
+                    JfrReader.saveRecording(table.findRows("origin", origin), gcFile);
+                    var events = new JfrReader(gcFile).getGcEvents();
+                    api.metrics().add(JfrReader.getGcMetrics(origin, events));
+                    for (var e : events) {
+                        api.timeSeries().add(origin, e.timestamp(), "gc.pause.millis",
+                                e.sumOfPauses().toNanos() / 1_000_000.0);
+                    }
+                } finally {
+                    Files.deleteIfExists(gcFile);
+                }
+            } catch (Exception ex) {
+                throw new RuntimeException("Failed to read GC recording for origin: " + origin, ex);
+            }
+        }
+    }
+
     void addServiceLog(Bench api) {
         var timer = api.timer();
         var logText = controller.getLog();
@@ -482,6 +811,16 @@ final public class StandardTestRunner {
                 .generateParquet();
     }
 
+    record Warmup(Result result, double compileSecs) {
+        double secs() {
+            return result.elapsedTime().toNanos() / 1.0e9;
+        }
+
+        double rate() {
+            return result.loadedRowCount() / Math.max(secs(), 1.0e-9);
+        }
+    }
+
     record Result(long loadedRowCount, Duration elapsedTime, long resultRowCount) {
     }
 
@@ -3,8 +3,10 @@ package io.deephaven.benchmark.tests.standard.file;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import io.deephaven.benchmark.api.Bench;
+import io.deephaven.benchmark.connect.ResultTable;
 import io.deephaven.benchmark.controller.Controller;
 import io.deephaven.benchmark.controller.DeephavenDockerController;
 import io.deephaven.benchmark.metric.Metrics;
@@ -23,6 +25,7 @@ class FileTestRunner {
     private int scaleFactor = 1;
     private long scaleRowCount;
     private boolean useParquetDefaultSettings = false;
+    private String codec = "none";
 
     FileTestRunner(Object testInst) {
         this.testInst = testInst;
@@ -66,6 +69,7 @@ class FileTestRunner {
      * @param testName name that will appear in the results as the benchmark name
      */
     void runCsvReadTest(String testName, String... columnNames) {
+        this.codec = "csv";
         var q = """ 
         read_csv('/data/source.ptr.csv', ${types})
         metric_file_size = os.path.getsize('/data/source.ptr.csv')
@@ -73,20 +77,24 @@ class FileTestRunner {
         """;
         q = q.replace("${types}", getTypes(columnNames));
         runReadTest(testName, q);
+        runColdReadTest(testName, q, "/data/source.ptr.csv");
     }
 
     /**
      * Run a benchmark that measures parquet read performance. This test always runs after a corresponding write test.
      * 
      * @param testName name that will appear in the results as the benchmark name
+     * @param codec the compression codec used by the corresponding write test
      */
-    void runParquetReadTest(String testName) {
+    void runParquetReadTest(String testName, String codec) {
+        this.codec = codec;
         var q = """
         read('/data/source.ptr.parquet').select()
         metric_file_size = os.path.getsize('/data/source.ptr.parquet')
         bench_api_metrics_add('data', 'file.size', str(metric_file_size), 'parquet')
         """;
         runReadTest(testName, q);
+        runColdReadTest(testName, q, "/data/source.ptr.parquet");
     }
 
     /**
@@ -97,6 +105,7 @@ class FileTestRunner {
      * @param columnNames the names of the pre-defined columns to generate
      */
     void runParquetWriteTest(String testName, String codec, String... columnNames) {
+        this.codec = codec;
         var q = """
         write(
             source, '/data/source.ptr.parquet', compression_codec_name='${codec}'${parquetSettings}
@@ -116,6 +125,7 @@ class FileTestRunner {
      * @param columnNames the names of the pre-defined columns to generate
      */
     void runCsvWriteTest(String testName, String... columnNames) {
+        this.codec = "csv";
         var q = """
         write_csv(source, '/data/source.ptr.csv')
         metric_file_size = os.path.getsize('/data/source.ptr.csv')
@@ -130,12 +140,36 @@ class FileTestRunner {
      * @param testName name that will appear in the results as the benchmark name
      */
     void runReadTest(String testName, String readQuery, String... columnNames) {
+        runReadQuery(testName, readQuery, "");
+    }
+
+    /**
+     * Run a benchmark that measures read performance after evicting the read file from the OS page cache. The
+     * benchmark name is the warm read test's name with "Read" replaced by "ColdRead" (ex. ParquetColdRead- Snappy
+     * Multi Col -Static). Skip if the <code>file.read.cold.enabled</code> property is false.
+     * 
+     * @param testName the name of the corresponding warm read benchmark
+     * @param readQuery the query that reads the file
+     * @param filePath the path of the file or directory on the engine to evict before reading
+     */
+    void runColdReadTest(String testName, String readQuery, String filePath) {
+        if (!api.propertyAsBoolean("file.read.cold.enabled", "true"))
+            return;
+        var evictQuery = """
+        metric_evicted_files = bench_api_evict_file_cache('${filePath}')
+        bench_api_metrics_add('data', 'cache.evicted.files', str(metric_evicted_files))
+        """.replace("${filePath}", filePath);
+        runReadQuery(testName.replaceFirst("Read-", "ColdRead-"), readQuery, evictQuery);
+    }
+
+    private void runReadQuery(String testName, String readQuery, String preReadQuery) {
         var q = """
+        ${preReadQuery}
         bench_api_metrics_start()
         begin_time = time.perf_counter_ns()
         source = ${readQuery}
         end_time = time.perf_counter_ns()
-        bench_api_metrics_end()
+        bench_api_metrics_end(begin_time, end_time)
         standard_metrics = bench_api_metrics_collect()
         
         stats = new_table([
@@ -145,6 +179,7 @@ class FileTestRunner {
         ])
         """;
         q = q.replace("${readQuery}", readQuery);
+        q = q.replace("${preReadQuery}", preReadQuery);
         runTest(testName, q);
     }
 
@@ -164,7 +199,7 @@ class FileTestRunner {
         begin_time = time.perf_counter_ns()
         ${writeQuery}
         end_time = time.perf_counter_ns()
-        bench_api_metrics_end()
+        bench_api_metrics_end(begin_time, end_time)
         standard_metrics = bench_api_metrics_collect()
         
         stats = new_table([
@@ -181,17 +216,24 @@ class FileTestRunner {
     }
 
     private void runTest(String testName, String query) {
+        if (api.isClosed()) {
+            initialize(testInst);
+            setScaleFactors(rowCountFactor, scaleFactor);
+        }
         try {
             api.setName(testName);
             stopUnusedServices(requiredServices);
+            var elapsed = new AtomicReference<Duration>();
             api.query(query).fetchAfter("stats", table -> {
                 long rowCount = table.getSum("processed_row_count").longValue();
                 long elapsedNanos = table.getSum("elapsed_nanos").longValue();
                 long resultRowCount = table.getSum("result_row_count").longValue();
                 assertEquals(scaleRowCount * scaleFactor, resultRowCount);
-                api.result().test("deephaven-engine", Duration.ofNanos(elapsedNanos), rowCount);
+                elapsed.set(Duration.ofNanos(elapsedNanos));
+                api.result().test("deephaven-engine", elapsed.get(), rowCount);
             }).fetchAfter("standard_metrics", table -> {
                 api.metrics().add(table);
+                addThroughputMetrics(table, elapsed.get());
                 var metrics = new Metrics(Timer.now(), "test-runner", "setup.scale");
                 metrics.set("static_scale_factor", scaleFactor);
                 metrics.set("row_count_factor", rowCountFactor);
@@ -203,6 +245,33 @@ class FileTestRunner {
         }
     }
 
+    /**
+     * Add MB/s throughput for the file size and the logical and physical I/O bytes collected during the operation. The
+     * codec is supplied in the note so that throughput can be compared across codecs. Reads that are served mostly from
+     * page cache have high logical but low physical throughput, while reads that are bound by decompression have low
+     * throughput for both.
+     * 
+     * @param table the standard metrics collected on the engine
+     * @param elapsed the elapsed time of the operation
+     */
+    private void addThroughputMetrics(ResultTable table, Duration elapsed) {
+        if (elapsed == null || elapsed.isZero())
+            return;
+        double secs = elapsed.toNanos() / 1.0e9;
+        var metrics = new Metrics(Timer.now(), "deephaven-engine", "throughput");
+        for (int i = 0, n = table.getRowCount(); i < n; i++) {
+            var category = table.getValue(i, "category").toString();
+            var name = table.getValue(i, "name").toString();
+            var isFileSize = category.equals("data") && name.equals("file.size");
+            if (!isFileSize && !(category.equals("io") && name.endsWith(".bytes")))
+                continue;
+            var mbPerSec = table.getNumber(i, "value").doubleValue() / 1.0e6 / secs;
+            var metricName = isFileSize ? "file.mb.per.sec" : name.replace(".bytes", ".mb.per.sec");
+            metrics.set(metricName, mbPerSec, codec.toLowerCase());
+        }
+        api.metrics().add(metrics);
+    }
+
     /**
      * Get the lines of code required to generate the data for pre-defined column names
      * 
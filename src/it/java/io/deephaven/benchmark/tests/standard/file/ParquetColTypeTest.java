@@ -27,7 +27,7 @@ class ParquetColTypeTest {
     @Order(2)
     void readFourIntegralCols() {
         setup(5, 12);
-        runner.runParquetReadTest("ParquetRead- 4 Integral Cols -Static");
+        runner.runParquetReadTest("ParquetRead- 4 Integral Cols -Static", "NONE");
     }
 
     @Test
@@ -41,7 +41,7 @@ class ParquetColTypeTest {
     @Order(4)
     void readOneStringCol() {
         setup(5, 30);
-        runner.runParquetReadTest("ParquetRead- 1 String Col -Static");
+        runner.runParquetReadTest("ParquetRead- 1 String Col -Static", "NONE");
     }
 
     @Test
@@ -57,7 +57,7 @@ class ParquetColTypeTest {
     @Tag("Iterate")
     void readOneBigDecimalCol() {
         setup(5, 5);
-        runner.runParquetReadTest("ParquetRead- 1 Big Decimal Col -Static");
+        runner.runParquetReadTest("ParquetRead- 1 Big Decimal Col -Static", "NONE");
     }
 
     @Test
@@ -71,7 +71,7 @@ class ParquetColTypeTest {
     @Order(8)
     void readOneInt1KArrayCol() {
         setup(0.10, 2);
-        runner.runParquetReadTest("ParquetRead- 1 Array Col of 1K Ints -Static");
+        runner.runParquetReadTest("ParquetRead- 1 Array Col of 1K Ints -Static", "NONE");
     }
 
     @Test
@@ -85,7 +85,7 @@ class ParquetColTypeTest {
     @Order(10)
     void readOneInt1KVectorCol() {
         setup(0.10, 2);
-        runner.runParquetReadTest("ParquetRead- 1 Vector Col of 1K Ints -Static");
+        runner.runParquetReadTest("ParquetRead- 1 Vector Col of 1K Ints -Static", "NONE");
     }
 
     @Test
@@ -99,7 +99,7 @@ class ParquetColTypeTest {
     @Order(12)
     void readOneInt5ArrayCol() {
         setup(2, 20);
-        runner.runParquetReadTest("ParquetRead- 1 Array Col of 5 Ints -Static");
+        runner.runParquetReadTest("ParquetRead- 1 Array Col of 5 Ints -Static", "NONE");
     }
 
     @Test
@@ -113,7 +113,7 @@ class ParquetColTypeTest {
     @Order(14)
     void readOneInt5VectorCol() {
         setup(2, 16);
-        runner.runParquetReadTest("ParquetRead- 1 Vector Col of 5 Ints -Static");
+        runner.runParquetReadTest("ParquetRead- 1 Vector Col of 5 Ints -Static", "NONE");
     }
 
     @Test
@@ -127,7 +127,7 @@ class ParquetColTypeTest {
     @Order(16)
     void readOneObjectArrayCol() {
         setup(2, 1);
-        runner.runParquetReadTest("ParquetRead- 1 Array Col of 3 Strings and 2 Nulls -Static");
+        runner.runParquetReadTest("ParquetRead- 1 Array Col of 3 Strings and 2 Nulls -Static", "NONE");
     }
 
     @Test
@@ -141,7 +141,7 @@ class ParquetColTypeTest {
     @Order(18)
     void readOneObjectVectorCol() {
         setup(1, 1);
-        runner.runParquetReadTest("ParquetRead- 1 Vector Col of 3 String and 2 Nulls -Static");
+        runner.runParquetReadTest("ParquetRead- 1 Vector Col of 3 String and 2 Nulls -Static", "NONE");
     }
 
 }
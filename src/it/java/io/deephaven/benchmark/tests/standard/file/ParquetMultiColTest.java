@@ -27,7 +27,7 @@ class ParquetMultiColTest {
     @Test
     @Order(2)
     void readMultiColSnappy() {
-        runner.runParquetReadTest("ParquetRead- Snappy Multi Col -Static");
+        runner.runParquetReadTest("ParquetRead- Snappy Multi Col -Static", "SNAPPY");
     }
 
     @Test
@@ -39,7 +39,7 @@ class ParquetMultiColTest {
     @Test
     @Order(4)
     void readMultiColZstd() {
-        runner.runParquetReadTest("ParquetRead- Zstd Multi Col -Static");
+        runner.runParquetReadTest("ParquetRead- Zstd Multi Col -Static", "ZSTD");
     }
 
     @Test
@@ -51,7 +51,7 @@ class ParquetMultiColTest {
     @Test
     @Order(6)
     void readMultiColLzo() {
-        runner.runParquetReadTest("ParquetRead- Lzo Multi Col -Static");
+        runner.runParquetReadTest("ParquetRead- Lzo Multi Col -Static", "LZO");
     }
 
     @Test
@@ -63,7 +63,7 @@ class ParquetMultiColTest {
     @Test
     @Order(8)
     void readMultiColLz4Raw() {
-        runner.runParquetReadTest("ParquetRead- Lz4Raw Multi Col -Static");
+        runner.runParquetReadTest("ParquetRead- Lz4Raw Multi Col -Static", "LZ4_RAW");
     }
 
     @Test
@@ -75,7 +75,7 @@ class ParquetMultiColTest {
     @Test
     @Order(10)
     void readMultiColGzip() {
-        runner.runParquetReadTest("ParquetRead- Gzip Multi Col -Static");
+        runner.runParquetReadTest("ParquetRead- Gzip Multi Col -Static", "GZIP");
     }
 
     @Test
@@ -87,7 +87,7 @@ class ParquetMultiColTest {
     @Test
     @Order(12)
     void readMultiColNone() {
-        runner.runParquetReadTest("ParquetRead- No Codec Multi Col -Static");
+        runner.runParquetReadTest("ParquetRead- No Codec Multi Col -Static", "NONE");
     }
 
     @Test
@@ -101,7 +101,7 @@ class ParquetMultiColTest {
     @Order(14)
     void readMultiColDefaultSnappy() {
         runner.useParquetDefaultSettings();
-        runner.runParquetReadTest("ParquetRead- Snappy Multi Col Defaults -Static");
+        runner.runParquetReadTest("ParquetRead- Snappy Multi Col Defaults -Static", "SNAPPY");
     }
 
 }
@@ -122,7 +122,7 @@ class KafkaTestRunner {
         ${awaitTableLoad}
         
         end_time = time.perf_counter_ns()
-        bench_api_metrics_end()
+        bench_api_metrics_end(begin_time, end_time)
         standard_metrics = bench_api_metrics_collect()
         
         stats = new_table([
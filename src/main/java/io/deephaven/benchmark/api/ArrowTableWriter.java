@@ -0,0 +1,239 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.api;
+
+import static java.nio.file.StandardOpenOption.*;
+import java.io.Closeable;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import io.deephaven.benchmark.util.Filer;
+
+/**
+ * Writes rows of a result table to a file as an Arrow IPC stream, where each call to <code>write</code> appends one
+ * record batch. The schema is fixed by the column types given up front (See <code>Bench.getColumnTypes</code>), so
+ * every batch and every file of the same table has the same schema. Numeric columns accept numbers or their plain
+ * decimal text (ex. "0.2000"), and blank values are written as null. Any other value in a numeric column fails the
+ * write rather than being guessed at.
+ * <p>
+ * In append mode, batches are added to the end of an existing stream file instead of replacing it. The new stream is
+ * staged in a temporary file, and on close its record batches are spliced onto the existing file in place of its end
+ * marker. The existing file is left untouched if its schema differs or any write fails.
+ */
+final public class ArrowTableWriter implements Closeable {
+    static final byte[] endMarker = {-1, -1, -1, -1, 0, 0, 0, 0};
+    static final Pattern decimalPattern = Pattern.compile("[-+]?([0-9]+[.]?[0-9]*|[.][0-9]+)([eE][-+]?[0-9]+)?");
+    final Path file;
+    final List<String> columns;
+    final List<ColumnType> types;
+    final boolean isAppend;
+    private BufferAllocator allocator = null;
+    private VectorSchemaRoot root = null;
+    private ArrowStreamWriter writer = null;
+    private OutputStream out = null;
+    private Path stagedFile = null;
+    private boolean isFailed = false;
+
+    /**
+     * Make a writer for the given file and columns. The file is not created until the first batch is written.
+     *
+     * @param file the Arrow IPC stream file
+     * @param columns the column names of the table
+     * @param types the type of each column in the same order as the columns
+     */
+    public ArrowTableWriter(Path file, List<String> columns, List<ColumnType> types) {
+        this(file, columns, types, false);
+    }
+
+    /**
+     * Make a writer for the given file and columns that optionally appends to the existing file
+     *
+     * @param file the Arrow IPC stream file
+     * @param columns the column names of the table
+     * @param types the type of each column in the same order as the columns
+     * @param isAppend true to append batches to an existing file, otherwise false to replace it
+     */
+    public ArrowTableWriter(Path file, List<String> columns, List<ColumnType> types, boolean isAppend) {
+        if (columns.size() != types.size())
+            throw new RuntimeException("Column count " + columns.size() + " does not match type count " + types.size());
+        this.file = file;
+        this.columns = new ArrayList<>(columns);
+        this.types = new ArrayList<>(types);
+        this.isAppend = isAppend;
+    }
+
+    /**
+     * Write the given rows as one record batch
+     *
+     * @param rows rows with values in the same order as the columns
+     */
+    public void write(List<List<Object>> rows) {
+        if (rows.isEmpty())
+            return;
+        try {
+            if (root == null)
+                open();
+            root.allocateNew();
+            for (int c = 0, cn = columns.size(); c < cn; c++) {
+                var vector = root.getVector(c);
+                for (int r = 0, rn = rows.size(); r < rn; r++) {
+                    var value = rows.get(r).get(c);
+                    if (vector instanceof BigIntVector v) {
+                        var l = toLong(columns.get(c), value);
+                        if (l == null)
+                            v.setNull(r);
+                        else
+                            v.setSafe(r, l);
+                    } else if (vector instanceof Float8Vector v) {
+                        var d = toDouble(columns.get(c), value);
+                        if (d == null)
+                            v.setNull(r);
+                        else
+                            v.setSafe(r, d);
+                    } else if (vector instanceof VarCharVector v) {
+                        if (value == null)
+                            v.setNull(r);
+                        else
+                            v.setSafe(r, value.toString().getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                vector.setValueCount(rows.size());
+            }
+            root.setRowCount(rows.size());
+            writer.writeBatch();
+        } catch (Exception ex) {
+            isFailed = true;
+            throw new RuntimeException("Failed to write Arrow batch to file: " + file, ex);
+        }
+    }
+
+    /**
+     * End the stream and release the Arrow memory used by this writer. In append mode, the staged batches are then
+     * added to the existing file.
+     */
+    public void close() {
+        if (root == null)
+            return;
+        try {
+            writer.end();
+            writer.close();
+            out.close();
+            root.close();
+            allocator.close();
+            if (stagedFile != null && !isFailed)
+                appendStream(stagedFile, file);
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to close Arrow file: " + file, ex);
+        } finally {
+            root = null;
+            if (stagedFile != null)
+                Filer.delete(stagedFile);
+        }
+    }
+
+    private void open() throws Exception {
+        var fields = new ArrayList<Field>();
+        for (int c = 0, n = columns.size(); c < n; c++) {
+            var type = switch (types.get(c)) {
+                case LONG -> new ArrowType.Int(64, true);
+                case DOUBLE -> new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+                case STRING -> new ArrowType.Utf8();
+            };
+            fields.add(Field.nullable(columns.get(c), type));
+        }
+        allocator = new RootAllocator();
+        root = VectorSchemaRoot.create(new Schema(fields), allocator);
+        if (isAppend && Files.exists(file) && Files.size(file) > 0)
+            stagedFile = file.resolveSibling(file.getFileName() + ".append");
+        out = Files.newOutputStream(stagedFile != null ? stagedFile : file, CREATE, TRUNCATE_EXISTING, WRITE);
+        writer = new ArrowStreamWriter(root, null, out);
+        writer.start();
+    }
+
+    /**
+     * Append the record batches of one stream file to another stream file with the same schema. The end marker of the
+     * target is replaced by the batches and end marker of the source.
+     *
+     * @param source the stream file with batches to append
+     * @param target the stream file to append to
+     */
+    static void appendStream(Path source, Path target) throws Exception {
+        try (var src = FileChannel.open(source, READ); var dst = FileChannel.open(target, READ, WRITE)) {
+            var schema = readSchemaMessage(src);
+            if (!schema.equals(readSchemaMessage(dst)))
+                throw new RuntimeException("Arrow schema of " + target + " does not match the appended columns");
+            long end = dst.size() - endMarker.length;
+            var marker = ByteBuffer.allocate(endMarker.length);
+            dst.read(marker, end);
+            if (end < schema.limit() || !Arrays.equals(marker.array(), endMarker))
+                throw new RuntimeException("Arrow stream is not properly ended: " + target);
+            dst.truncate(end);
+            src.transferTo(schema.limit(), src.size() - schema.limit(), dst.position(end));
+        }
+    }
+
+    /**
+     * Read the schema message at the start of a stream file, which is a continuation marker, the metadata length
+     * (little-endian) and the metadata itself
+     */
+    static ByteBuffer readSchemaMessage(FileChannel channel) throws Exception {
+        var prefix = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(prefix, 0);
+        if (prefix.position() < 8 || prefix.getInt(0) != -1)
+            throw new RuntimeException("Arrow stream does not start with a schema message");
+        var message = ByteBuffer.allocate(8 + prefix.getInt(4));
+        channel.read(message, 0);
+        return message.flip();
+    }
+
+    static Long toLong(String column, Object value) {
+        if (value instanceof Number n)
+            return n.longValue();
+        var d = toDouble(column, value);
+        if (d == null)
+            return null;
+        if (d != Math.rint(d) || Double.isInfinite(d))
+            throw new RuntimeException("Bad integral value for column " + column + ": " + value);
+        var str = value.toString().trim();
+        return str.matches("[-+]?[0-9]+") ? Long.valueOf(str) : d.longValue();
+    }
+
+    static Double toDouble(String column, Object value) {
+        if (value instanceof Number n)
+            return n.doubleValue();
+        if (value == null || value.toString().isBlank())
+            return null;
+        var str = value.toString().trim();
+        if (str.equals("NaN") || str.equals("Infinity") || str.equals("-Infinity"))
+            return Double.valueOf(str);
+        if (!decimalPattern.matcher(str).matches())
+            throw new RuntimeException("Bad numeric value for column " + column + ": " + value);
+        return Double.valueOf(str);
+    }
+
+    /**
+     * The type a column is stored as
+     */
+    public enum ColumnType {
+        STRING, LONG, DOUBLE
+    }
+
+}
@@ -8,8 +8,11 @@ import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import io.deephaven.benchmark.api.ArrowTableWriter.ColumnType;
 import io.deephaven.benchmark.metric.Metrics;
 import io.deephaven.benchmark.util.Filer;
 import io.deephaven.benchmark.util.Ids;
@@ -35,6 +38,10 @@ final public class Bench {
      * The name of the benchmark metrics csv file
      */
     static final public String metricsFileName = "benchmark-metrics.csv";
+    /**
+     * The name of the benchmark time series csv file
+     */
+    static final public String timeSeriesFileName = "benchmark-timeseries.csv";
     /**
      * The name of the benchmark platform csv file
      */
@@ -64,6 +71,7 @@ final public class Bench {
     final Object testInst;
     final BenchResult result;
     final BenchMetrics metrics;
+    final BenchTimeSeries timeSeries;
     final BenchPlatform platform;
     final QueryLog queryLog;
     final BenchLog runLog;
@@ -71,11 +79,13 @@ final public class Bench {
     final List<Closeable> closeables = new ArrayList<>();
     final Session session = new Session();
     private boolean isClosed = false;
+    private String name = null;
 
     Bench(Class<?> testInst) {
         this.testInst = testInst;
         this.result = new BenchResult(outputDir);
         this.metrics = new BenchMetrics(outputDir);
+        this.timeSeries = new BenchTimeSeries(outputDir);
         this.platform = new BenchPlatform(this, outputDir);
         this.queryLog = new QueryLog(outputDir, testInst);
         this.runLog = new BenchLog(outputDir, testInst);
@@ -89,12 +99,27 @@ final public class Bench {
     public void setName(String name) {
         if (name == null || name.isBlank())
             throw new RuntimeException("No blank Benchmark names allowed");
+        this.name = name;
         this.result.setName(name);
         this.metrics.setName(name);
+        this.timeSeries.setName(name);
         this.queryLog.setName(name);
         this.runLog.setName(name);
     }
 
+    /**
+     * Get the trial count assigned to the current benchmark by the suite schedule given in the
+     * <code>schedule.file</code> property (See <code>schedule.time.budget</code>)
+     * 
+     * @return the assigned trial count or 0 if there is no schedule or the benchmark is not in it
+     */
+    public long scheduledTrials() {
+        var scheduleFile = property("schedule.file", "");
+        if (scheduleFile.isBlank() || name == null)
+            return 0;
+        return TrialSchedule.getTrialCount(Paths.get(scheduleFile), name);
+    }
+
     /**
      * Get a property from the profile, System, Environment or return a default value
      * 
@@ -106,6 +131,59 @@ final public class Bench {
         return profile.property(name, defaultValue);
     }
 
+    /**
+     * Get a property from the profile, System, Environment or return a default value without an API instance (e.g.
+     * for processing results after the tests have run)
+     * 
+     * @param name the property name
+     * @param defaultValue value to return if the property does not exist
+     * @return the property value or default
+     */
+    static public String profileProperty(String name, String defaultValue) {
+        return profile.property(name, defaultValue);
+    }
+
+    /**
+     * Get a duration property (ex. 90 minutes) from the profile, System, Environment or return a default value without
+     * an API instance
+     * 
+     * @param name the property name
+     * @param defaultValue value to return if the property does not exist
+     * @return the property value or default
+     */
+    static public Duration profilePropertyAsDuration(String name, String defaultValue) {
+        return profile.propertyAsDuration(name, defaultValue);
+    }
+
+    /**
+     * Get a copy of the properties defined in the profile file, not including System or Environment properties (e.g.
+     * for writing a modified profile for another process)
+     * 
+     * @return a copy of the profile properties
+     */
+    static public Properties profileProperties() {
+        return profile.getProperties();
+    }
+
+    /**
+     * Get the column types of a table file written during a benchmark run (ex. benchmark-results.csv) as declared
+     * with the file's header. Columns the file does not declare as numeric, and columns the file does not have (ex. the
+     * run-id of a summary), are strings.
+     * 
+     * @param fileName the name of the table file
+     * @param columns the columns to get the types of
+     * @return the type of each column
+     */
+    static public List<ColumnType> getColumnTypes(String fileName, List<String> columns) {
+        var types = switch (fileName) {
+            case resultFileName -> BenchResult.columnTypes;
+            case metricsFileName -> BenchMetrics.columnTypes;
+            case timeSeriesFileName -> BenchTimeSeries.columnTypes;
+            default -> Map.<String, ColumnType>of();
+        };
+        return columns.stream().map(c -> types.getOrDefault(c, ColumnType.STRING)).toList();
+    }
+
     /**
      * Get an integral property from the profile, System, Environment or return a default value
      * 
@@ -199,6 +277,15 @@ final public class Bench {
         return metrics;
     }
 
+    /**
+     * Get the time series for this Benchmark instance (e.g. test) used for collecting samples taken over time
+     * 
+     * @return the time series instance
+     */
+    public BenchTimeSeries timeSeries() {
+        return timeSeries;
+    }
+
     /**
      * Get the platform for this Benchmark instance (e.g. test) used for collecting platform properties
      * 
@@ -227,7 +314,9 @@ final public class Bench {
     }
 
     /**
-     * Finish all running tasks (e.g. queries, generators), close any I/O, and append any results to the file system
+     * Finish all running tasks (e.g. queries, generators), close any I/O, and append any results to the file system.
+     * If <code>result.budget.action=fail</code> and any result rate was outside of its expected bounds, fail after
+     * everything is closed.
      */
     public void close() {
         if (isClosed)
@@ -241,12 +330,21 @@ final public class Bench {
             }
         }
         closeables.clear();
+        var connectorMetrics = session.getConnectorMetrics();
+        if (connectorMetrics != null)
+            metrics.add(connectorMetrics);
         result.commit();
+        timeSeries.summarize().forEach(m -> metrics.add(m));
+        timeSeries.commit();
         metrics.commit();
         platform.commit();
         runLog.close();
         queryLog.close();
+        ResultSink.sink.flush();
         session.close();
+        var violations = result.getViolations();
+        if (!violations.isEmpty() && property("result.budget.action", "mark").trim().equalsIgnoreCase("fail"))
+            throw new RuntimeException("Rates outside of expected bounds: " + violations);
     }
 
     Metrics awaitCompletion(Future<Metrics> future) {
@@ -272,6 +370,7 @@ final public class Bench {
 
     static private Path initializeOutputDirectory() {
         setSystemProperties();
+        setResultSinkFormat();
         boolean isTimestamped = profile.propertyAsBoolean("timestamp.test.results", "false");
         Path dir = rootOutputDir;
         if (isTimestamped)
@@ -284,6 +383,10 @@ final public class Bench {
         }
     }
 
+    static private void setResultSinkFormat() {
+        ResultSink.sink.setColumnarFormat(profile.property("result.columnar.format", "none"));
+    }
+
     static private void setSystemProperties() {
         Duration timeout = profile.propertyAsDuration("default.completion.timeout", "5 minutes");
         System.setProperty("deephaven.session.executeTimeout", timeout.toString());
@@ -1,8 +1,6 @@
 /* Copyright (c) 2022-2023 Deephaven Data Labs and Patent Pending */
 package io.deephaven.benchmark.api;
 
-import static java.nio.file.StandardOpenOption.*;
-import java.io.BufferedWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -36,6 +34,7 @@ final public class BenchLog {
         if (isClosed)
             return;
         isClosed = true;
+        ResultSink.sink.flush(logFile);
     }
 
     /**
@@ -65,11 +64,7 @@ final public class BenchLog {
     }
 
     private void write(String text) {
-        try (BufferedWriter out = Files.newBufferedWriter(logFile, CREATE, APPEND)) {
-            out.write(text);
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to write to the run log: " + logFile, ex);
-        }
+        ResultSink.sink.write(logFile, text);
     }
 
     static Path getLogFile(Path parent, Class<?> testClass) {
@@ -1,11 +1,10 @@
 /* Copyright (c) 2022-2023 Deephaven Data Labs and Patent Pending */
 package io.deephaven.benchmark.api;
 
-import java.io.BufferedWriter;
-import java.nio.file.Files;
+import static io.deephaven.benchmark.api.ArrowTableWriter.ColumnType.*;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
+import io.deephaven.benchmark.api.ArrowTableWriter.ColumnType;
 import io.deephaven.benchmark.connect.ResultTable;
 import io.deephaven.benchmark.metric.Metrics;
 import io.deephaven.benchmark.util.Numbers;
@@ -17,6 +16,7 @@ import io.deephaven.benchmark.util.Numbers;
 final public class BenchMetrics {
     static final String[] header =
             {"benchmark_name", "origin", "timestamp", "name", "value", "note"};
+    static final Map<String, ColumnType> columnTypes = Map.of("timestamp", LONG, "value", DOUBLE);
     final List<Metrics> metrics = new ArrayList<>();
     final Path file;
     private String name = null;
@@ -52,13 +52,14 @@ final public class BenchMetrics {
     }
 
     /**
-     * Add metrics to persist to the file system
+     * Add metrics, along with any related metrics, to persist to the file system
      * 
      * @param m metrics to add
      * @return this instance
      */
     public BenchMetrics add(Metrics m) {
         metrics.add(m);
+        m.getRelated().forEach(r -> add(r));
         return this;
     }
 
@@ -70,16 +71,14 @@ final public class BenchMetrics {
             return;
 
         List<String> head = Arrays.stream(header).toList();
-        if (!hasHeader())
-            writeLine(head, file);
-
         for (Metrics metric : metrics) {
             for (String name : metric.getNames()) {
                 var m = new HashMap<>(metric.getMetric(name));
                 m.put("benchmark_name", this.name);
-                writeLine(head.stream().map(h -> m.get(h)).toList(), file);
+                ResultSink.sink.writeRow(file, head, head.stream().map(h -> m.get(h)).toList());
             }
         }
+        ResultSink.sink.flush(file);
     }
 
     void setName(String name) {
@@ -97,19 +96,6 @@ final public class BenchMetrics {
         }
     }
 
-    private boolean hasHeader() {
-        return Files.exists(file);
-    }
-
-    static void writeLine(Collection<?> values, Path file) {
-        try (BufferedWriter out = Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-            out.write(String.join(",", values.stream().map(v -> v.toString()).toList()));
-            out.newLine();
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to write result to file: " + file, ex);
-        }
-    }
-
     static String format(float v) {
         return String.format("%.2f", v);
     }
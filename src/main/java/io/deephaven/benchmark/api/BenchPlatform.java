@@ -1,12 +1,10 @@
 /* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
 package io.deephaven.benchmark.api;
 
-import java.io.BufferedWriter;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -21,6 +19,7 @@ import io.deephaven.engine.exceptions.ArgumentException;
  * platform property file for an entire test run, properties, once added, are not permitted to be overwritten.
  */
 public class BenchPlatform {
+    static final List<String> header = List.of("origin", "name", "value");
     static final Map<String, Property> properties = new LinkedHashMap<>();
     static boolean hasBeenCommitted = false;
     final Bench api;
@@ -68,8 +67,7 @@ public class BenchPlatform {
     void commit() {
         if (!hasBeenCommitted) {
             hasBeenCommitted = true;
-            Filer.delete(platformFile);
-            writeLine(new Property("origin", "name", "value", new AtomicBoolean(true)), platformFile);
+            ResultSink.sink.delete(platformFile);
             addTestRunnerProps(properties);
             addRunnerProfileProps(properties);
             addEngineProps(properties);
@@ -80,6 +78,7 @@ public class BenchPlatform {
                 prop.isWritten().set(true);
             }
         }
+        ResultSink.sink.flush(platformFile);
     }
 
     /**
@@ -267,12 +266,8 @@ public class BenchPlatform {
     }
 
     static void writeLine(Property prop, Path file) {
-        try (BufferedWriter out = Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-            out.write(String.join(",", normalize(prop.origin()), normalize(prop.name()), normalize(prop.value())));
-            out.newLine();
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to write result to file: " + file, ex);
-        }
+        var values = List.of(normalize(prop.origin()), normalize(prop.name()), normalize(prop.value()));
+        ResultSink.sink.writeRow(file, header, values);
     }
 
     static String normalize(String value) {
@@ -6,6 +6,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import io.deephaven.benchmark.connect.ConnectorFactory;
@@ -24,6 +25,8 @@ final public class BenchQuery implements Closeable {
     final QueryLog queryLog;
     final Map<String, Consumer<ResultTable>> snapshotFetchers = new LinkedHashMap<>();
     final Map<String, Function<ResultTable, Boolean>> tickingFetchers = new LinkedHashMap<>();
+    final Map<String, Consumer<String>> fingerprintFetchers = new LinkedHashMap<>();
+    final Map<String, Boolean> fingerprintOrdering = new LinkedHashMap<>();
     final Properties props = new Properties();
     final Session session;
 
@@ -60,6 +63,24 @@ final public class BenchQuery implements Closeable {
         return this;
     }
 
+    /**
+     * Subscribes a handler to receive a fingerprint of a table after execution of the query logic is completed. The
+     * fingerprint is computed on the engine, so only a 128-bit hash (32 hex digits) is transferred instead of the table
+     * data. Tables with the same rows give the same fingerprint, which is portable to other products through the
+     * reference in <code>fingerprint.py</code>. When the query runs on more than one engine, the fingerprints of all
+     * engines must match, or the execution fails.
+     * 
+     * @param table a table name present in the query logic
+     * @param isOrdered true if row order contributes to the fingerprint, otherwise false
+     * @param fingerprintHandler a consumer that receives the fingerprint
+     * @return this bench query instance
+     */
+    public BenchQuery fetchFingerprint(String table, boolean isOrdered, Consumer<String> fingerprintHandler) {
+        fingerprintFetchers.put(table, fingerprintHandler);
+        fingerprintOrdering.put(table, isOrdered);
+        return this;
+    }
+
     /**
      * Add properties to be passed to the <code>Connector</code> used in the query
      * 
@@ -96,6 +117,44 @@ final public class BenchQuery implements Closeable {
                 throw new RuntimeException("Failed to get snapshot of table: " + e.getKey(), ex);
             }
         });
+
+        fingerprintFetchers.entrySet().forEach(e -> {
+            var fingerprintTable = "bench_api_fingerprint_" + e.getKey();
+            var isOrdered = fingerprintOrdering.get(e.getKey()) ? "True" : "False";
+            executeBarrageQuery(String.format("%s = bench_api_fingerprint(%s, ordered=%s)", fingerprintTable,
+                    e.getKey(), isOrdered));
+            var fingerprints = new AtomicReference<ResultTable>();
+            try {
+                Future<Metrics> f = conn.fetchSnapshotData(fingerprintTable, table -> fingerprints.set(table));
+                f.get().set("duration.secs", timer.duration().toMillis() / 1000.0);
+                bench.addFuture(f);
+            } catch (Exception ex) {
+                throw new RuntimeException("Failed to get fingerprint of table: " + e.getKey(), ex);
+            }
+            e.getValue().accept(getCommonFingerprint(e.getKey(), fingerprints.get()));
+        });
+    }
+
+    /**
+     * Get the fingerprint shared by every row of the given fingerprint table, where there is a row for each engine the
+     * query ran on
+     * 
+     * @param table the name of the fingerprinted table
+     * @param fingerprints the fingerprint table with one row per engine
+     * @return the fingerprint common to all engines
+     */
+    static String getCommonFingerprint(String table, ResultTable fingerprints) {
+        var byOrigin = new LinkedHashMap<String, String>();
+        boolean hasOrigin = fingerprints.getColumnNames().contains("origin");
+        for (int i = 0, n = fingerprints.getRowCount(); i < n; i++) {
+            var origin = hasOrigin ? fingerprints.getValue(i, "origin").toString() : "row" + i;
+            byOrigin.put(origin, fingerprints.getValue(i, "fingerprint").toString());
+        }
+        if (byOrigin.isEmpty())
+            throw new RuntimeException("No fingerprint found for table: " + table);
+        if (byOrigin.values().stream().distinct().count() > 1)
+            throw new RuntimeException("Fingerprints of table '" + table + "' differ across engines: " + byOrigin);
+        return byOrigin.values().iterator().next();
     }
 
     /**
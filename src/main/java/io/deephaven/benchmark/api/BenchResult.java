@@ -1,26 +1,49 @@
 /* Copyright (c) 2022-2023 Deephaven Data Labs and Patent Pending */
 package io.deephaven.benchmark.api;
 
-import java.io.BufferedWriter;
-import java.nio.file.Files;
+import static io.deephaven.benchmark.api.ArrowTableWriter.ColumnType.*;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.util.*;
+import io.deephaven.benchmark.api.ArrowTableWriter.ColumnType;
 import io.deephaven.benchmark.util.Log;
+import io.deephaven.benchmark.util.Statistics;
 import io.deephaven.benchmark.util.Timer;
 
 /**
  * Represents the results of a query instance. Results are collected for each test and appended to a CSV file when the
- * API is closed after each test. The results focus on rates for the test run.
+ * API is closed after each test. The results focus on rates for the test run. A rate may be recorded for each origin
+ * (ex. several engines running the same test), and each origin results in its own row.
+ * <p>
+ * A test may be measured over several trials. The op_rate is taken from the median trial duration, and the spread of
+ * the trial rates is recorded as min, median, mean, standard deviation and 95% confidence interval half-width.
+ * <p>
+ * Expected rate bounds can be declared with <code>expectRate</code>, or as a tolerance against a named baseline with
+ * <code>expectBaseline</code> (or the <code>result.baseline.name</code> property for all tests). Each row records the
+ * expected bounds and an op_rate_status of "ok", "regressed" (below the bounds), "exceeded" (above the bounds) or
+ * "no.baseline". Rates outside the bounds are kept as violations, which fail the test when the API is closed if
+ * <code>result.budget.action=fail</code>.
  */
 final public class BenchResult {
-    static final String[] header =
-            {"benchmark_name", "origin", "timestamp", "test_duration", "op_duration", "op_rate", "row_count"};
+    static final String[] header = {"benchmark_name", "origin", "timestamp", "test_duration", "op_duration", "op_rate",
+            "row_count", "trial_count", "op_rate_min", "op_rate_median", "op_rate_mean", "op_rate_stddev",
+            "op_rate_ci", "op_rate_expected_min", "op_rate_expected_max", "op_rate_status"};
+    static final Map<String, ColumnType> columnTypes = Map.ofEntries(Map.entry("timestamp", LONG),
+            Map.entry("test_duration", DOUBLE), Map.entry("op_duration", DOUBLE), Map.entry("op_rate", LONG),
+            Map.entry("row_count", LONG), Map.entry("trial_count", LONG), Map.entry("op_rate_min", LONG),
+            Map.entry("op_rate_median", LONG), Map.entry("op_rate_mean", LONG), Map.entry("op_rate_stddev", LONG),
+            Map.entry("op_rate_ci", LONG), Map.entry("op_rate_expected_min", LONG),
+            Map.entry("op_rate_expected_max", LONG));
     final Timer timer;
-    final Map<String, Object> rate;
+    final Map<String, Map<String, Object>> rates;
+    final Map<String, List<Duration>> trials = new LinkedHashMap<>();
     final Path file;
+    final List<String> violations = new ArrayList<>();
     private String name = null;
+    private long expectedMinRate = 0;
+    private long expectedMaxRate = Long.MAX_VALUE;
+    private String baselineName = defaultBaselineName();
+    private double baselineTolerance = defaultBaselineTolerance();
 
     BenchResult(Path parent) {
         this(parent, Bench.resultFileName);
@@ -29,8 +52,7 @@ final public class BenchResult {
     BenchResult(Path parent, String resultFileName) {
         this.file = parent.resolve(resultFileName);
         this.timer = Timer.start();
-        this.rate = new LinkedHashMap<>();
-        initializeRates(rate);
+        this.rates = new LinkedHashMap<>();
     }
 
     /**
@@ -47,7 +69,7 @@ final public class BenchResult {
     }
 
     /**
-     * Record a test rate for this result instance
+     * Record a test rate for this result instance. Recording again for the same origin replaces the previous rate.
      * 
      * @param origin the place where the measurement was collected
      * @param duration duration of the measured test
@@ -55,62 +77,169 @@ final public class BenchResult {
      * @return this result instance
      */
     public BenchResult test(String origin, Duration duration, long count) {
+        return test(origin, List.of(duration), count);
+    }
+
+    /**
+     * Record the durations of repeated trials of a test for this result instance. The median duration is used for the
+     * test rate. Recording again for the same origin replaces the previous trials.
+     * 
+     * @param origin the place where the measurement was collected
+     * @param trialDurations the durations of each measured trial
+     * @param count the processed item count for each trial (e.g. rowCount)
+     * @return this result instance
+     */
+    public BenchResult test(String origin, List<Duration> trialDurations, long count) {
+        if (trialDurations.isEmpty())
+            throw new RuntimeException("No trial durations supplied for origin: " + origin);
+        var nanos = trialDurations.stream().mapToDouble(d -> d.toNanos()).toArray();
+        var rate = rates.computeIfAbsent(origin, o -> initializeRate());
         rate.put("origin", origin);
-        rate.put("op_duration", duration);
+        rate.put("op_duration", Duration.ofNanos((long) Statistics.median(nanos)));
         rate.put("row_count", count);
+        trials.put(origin, List.copyOf(trialDurations));
+        return this;
+    }
+
+    /**
+     * Expect the op_rate of each origin to be within the given bounds when the result is committed
+     * 
+     * @param minRate the lowest acceptable rate
+     * @param maxRate the highest acceptable rate
+     * @return this result instance
+     */
+    public BenchResult expectRate(long minRate, long maxRate) {
+        if (minRate > maxRate)
+            throw new RuntimeException("Expected min rate is more than max rate: " + minRate + " > " + maxRate);
+        this.expectedMinRate = minRate;
+        this.expectedMaxRate = maxRate;
         return this;
     }
 
     /**
-     * Save the collected results to a csv file. Skip results where name starts with "#". If no user-specified test
-     * result has been supplied, calculate add a default based on time since test start
+     * Expect the op_rate of each origin to be within the given fraction of the baseline rate for the same benchmark and
+     * origin when the result is committed. The name "history" uses the median rate of earlier local runs. Other names
+     * are baseline csv files given by the <code>result.baseline.&lt;name&gt;</code> property or by the name itself.
+     * 
+     * @param name the baseline name
+     * @param tolerance the acceptable fraction above or below the baseline rate (ex. 0.1 = 10%)
+     * @return this result instance
+     */
+    public BenchResult expectBaseline(String name, double tolerance) {
+        if (tolerance < 0)
+            throw new RuntimeException("Baseline tolerance must not be negative: " + tolerance);
+        this.baselineName = name;
+        this.baselineTolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Get the rates outside of their expected bounds from the results committed so far
+     * 
+     * @return descriptions of the rates that were out of bounds
+     */
+    public List<String> getViolations() {
+        return Collections.unmodifiableList(violations);
+    }
+
+    /**
+     * Save the collected results to a csv file with one row per origin. Skip results where name starts with "#". If
+     * no user-specified test result has been supplied, calculate add a default based on time since test start
      */
     public void commit() {
         if (name.startsWith("#"))
             return;
 
         List<String> head = Arrays.stream(header).toList();
-        if (!hasHeader())
-            writeLine(head, file);
-
         ensureTestRate();
 
-        var m = new HashMap<String, Object>(rate);
-        m.put("benchmark_name", name);
-        m.put("timestamp", timer.beginTime);
-        m.put("test_duration", format(toSeconds(timer.duration())));
-        m.put("op_duration", format(toSeconds((Duration) m.get("op_duration"))));
-        m.put("op_rate", toRate(m.get("op_duration"), m.get("row_count")));
-        Log.info("Result: %s", m);
-        writeLine(head.stream().map(h -> m.get(h)).toList(), file);
-        initializeRates(rate);
+        var testDuration = format(toSeconds(timer.duration()));
+        rates.values().forEach(rate -> {
+            var m = new HashMap<String, Object>(rate);
+            m.put("benchmark_name", name);
+            m.put("timestamp", timer.beginTime);
+            m.put("test_duration", testDuration);
+            m.put("op_duration", format(toSeconds((Duration) m.get("op_duration"))));
+            m.put("op_rate", toRate(m.get("op_duration"), m.get("row_count")));
+            addTrialStats(m, trials.get(rate.get("origin")), (Long) rate.get("row_count"));
+            addExpectedRate(m);
+            Log.info("Result: %s", m);
+            ResultSink.sink.writeRow(file, head, head.stream().map(h -> m.get(h)).toList());
+        });
+        ResultSink.sink.flush(file);
+        rates.clear();
+        trials.clear();
+        expectedMinRate = 0;
+        expectedMaxRate = Long.MAX_VALUE;
+        baselineName = defaultBaselineName();
+        baselineTolerance = defaultBaselineTolerance();
     }
 
     void setName(String name) {
         this.name = name;
     }
 
-    private boolean hasHeader() {
-        return Files.exists(file);
+    private Map<String, Object> initializeRate() {
+        var rate = new LinkedHashMap<String, Object>();
+        Arrays.stream(header).forEach(h -> rate.put(h, 0)); // Preserve key order
+        return rate;
+    }
+
+    private void addTrialStats(Map<String, Object> m, List<Duration> durations, long count) {
+        var trialRates = durations.stream().mapToDouble(d -> count * 1.0e9 / Math.max(d.toNanos(), 1)).toArray();
+        m.put("trial_count", trialRates.length);
+        m.put("op_rate_min", (long) Arrays.stream(trialRates).min().orElse(0));
+        m.put("op_rate_median", (long) Statistics.median(trialRates));
+        m.put("op_rate_mean", (long) Statistics.mean(trialRates));
+        m.put("op_rate_stddev", (long) Statistics.stddev(trialRates));
+        m.put("op_rate_ci", (long) Statistics.confidenceInterval(trialRates));
     }
 
-    private void initializeRates(Map<String, Object> rates) {
-        Arrays.stream(header).forEach(h -> rates.put(h, 0)); // Preserve key order
+    private void addExpectedRate(Map<String, Object> m) {
+        m.put("op_rate_expected_min", "");
+        m.put("op_rate_expected_max", "");
+        m.put("op_rate_status", "");
+        boolean hasBaseline = !baselineName.isBlank();
+        if (!hasBaseline && expectedMinRate <= 0 && expectedMaxRate == Long.MAX_VALUE)
+            return;
+        long minRate = expectedMinRate;
+        long maxRate = expectedMaxRate;
+        if (hasBaseline) {
+            var baseline = RateBaseline.get(baselineName, file.getParent());
+            var baseRate = baseline.getRate(name, m.get("origin").toString(), (Long) m.get("row_count"));
+            if (baseRate == null && minRate <= 0 && maxRate == Long.MAX_VALUE) {
+                m.put("op_rate_status", "no.baseline");
+                return;
+            }
+            if (baseRate != null) {
+                minRate = Math.max(minRate, (long) (baseRate * (1 - baselineTolerance)));
+                maxRate = Math.min(maxRate, (long) Math.ceil(baseRate * (1 + baselineTolerance)));
+            }
+        }
+        long rate = (Long) m.get("op_rate");
+        var status = (rate < minRate) ? "regressed" : (rate > maxRate) ? "exceeded" : "ok";
+        m.put("op_rate_expected_min", minRate);
+        m.put("op_rate_expected_max", (maxRate == Long.MAX_VALUE) ? "" : maxRate);
+        m.put("op_rate_status", status);
+        if (!status.equals("ok"))
+            violations.add(name + " " + m.get("origin") + " op_rate=" + rate + " " + status + " expected=[" + minRate
+                    + "," + m.get("op_rate_expected_max") + "]");
     }
 
     private void ensureTestRate() {
-        if (!rate.get("row_count").equals(0))
+        if (rates.values().stream().anyMatch(r -> !r.get("row_count").equals(0)))
             return;
+        rates.clear();
+        trials.clear();
         test("n/a", timer, Bench.profile.propertyAsIntegral("scale.row.count", "10000"));
     }
 
-    static void writeLine(Collection<?> values, Path file) {
-        try (BufferedWriter out = Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-            out.write(String.join(",", values.stream().map(v -> v.toString()).toList()));
-            out.newLine();
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to write result to file: " + file, ex);
-        }
+    static String defaultBaselineName() {
+        return Bench.profile.property("result.baseline.name", "").trim();
+    }
+
+    static double defaultBaselineTolerance() {
+        return Double.parseDouble(Bench.profile.property("result.baseline.tolerance", "0.1"));
     }
 
     static String format(float v) {
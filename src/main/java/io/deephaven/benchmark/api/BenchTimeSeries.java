@@ -0,0 +1,139 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.api;
+
+import static io.deephaven.benchmark.api.ArrowTableWriter.ColumnType.*;
+import java.nio.file.Path;
+import java.util.*;
+import io.deephaven.benchmark.api.ArrowTableWriter.ColumnType;
+import io.deephaven.benchmark.connect.ResultTable;
+import io.deephaven.benchmark.metric.Metrics;
+
+/**
+ * Represents the time series samples taken during usage of the Bench API (e.g. heap used sampled on the engine every
+ * 50 millis during an operation). Samples are appended to a CSV file when the API is closed after each test. Summaries
+ * of the samples, like peak and percentiles, can be supplied as metrics.
+ */
+final public class BenchTimeSeries {
+    static final String[] header = {"benchmark_name", "origin", "timestamp", "name", "value"};
+    static final Map<String, ColumnType> columnTypes = Map.of("timestamp", LONG, "value", DOUBLE);
+    static final double[] percentiles = {50, 90, 99};
+    final List<Sample> samples = new ArrayList<>();
+    final Path file;
+    private String name = null;
+
+    BenchTimeSeries(Path parent) {
+        this(parent, Bench.timeSeriesFileName);
+    }
+
+    BenchTimeSeries(Path parent, String timeSeriesFileName) {
+        this.file = parent.resolve(timeSeriesFileName);
+    }
+
+    /**
+     * Add the samples from a table to persist to the file system. This table must have columns defined as
+     * <code>timestamp, origin, name, value</code>
+     *
+     * @param table a table containing samples
+     * @return this instance
+     */
+    public BenchTimeSeries add(ResultTable table) {
+        assertColumnNames(table);
+        for (int r = 0, rn = table.getRowCount(); r < rn; r++) {
+            var origin = table.getValue(r, "origin").toString();
+            var timestamp = table.getNumber(r, "timestamp").longValue();
+            var sname = table.getValue(r, "name").toString();
+            add(origin, timestamp, sname, table.getNumber(r, "value"));
+        }
+        return this;
+    }
+
+    /**
+     * Add a sample to persist to the file system
+     *
+     * @param origin where the sample was taken (ex. deephaven-engine)
+     * @param timestamp millis since epoch when the sample was taken
+     * @param name the name of the sampled value (ex. heap.used)
+     * @param value the sampled value
+     * @return this instance
+     */
+    public BenchTimeSeries add(String origin, long timestamp, String name, Number value) {
+        samples.add(new Sample(origin, timestamp, name, value.doubleValue()));
+        return this;
+    }
+
+    /**
+     * Summarize the samples for each origin and sample name as peak and percentile metrics
+     * <p>
+     * ex. heap.used.peak, heap.used.p50, heap.used.p90, heap.used.p99
+     *
+     * @return metrics for each origin or empty if there are no samples
+     */
+    public List<Metrics> summarize() {
+        var byOrigin = new LinkedHashMap<String, Map<String, List<Sample>>>();
+        for (Sample s : samples) {
+            byOrigin.computeIfAbsent(s.origin(), o -> new LinkedHashMap<>())
+                    .computeIfAbsent(s.name(), n -> new ArrayList<>()).add(s);
+        }
+        var summaries = new ArrayList<Metrics>();
+        byOrigin.forEach((origin, byName) -> {
+            long timestamp = byName.values().stream().flatMap(v -> v.stream()).mapToLong(s -> s.timestamp()).max()
+                    .getAsLong();
+            var metrics = new Metrics(timestamp, origin, "sampler");
+            byName.forEach((sname, values) -> {
+                var sorted = values.stream().mapToDouble(s -> s.value()).sorted().toArray();
+                metrics.set(sname + ".peak", sorted[sorted.length - 1], "samples=" + sorted.length);
+                for (double p : percentiles) {
+                    metrics.set(sname + ".p" + (int) p, percentile(sorted, p));
+                }
+            });
+            summaries.add(metrics);
+        });
+        return summaries;
+    }
+
+    /**
+     * Save the collected samples to a csv file. Skip samples where name starts with "#"
+     */
+    public void commit() {
+        if (name.startsWith("#") || samples.isEmpty())
+            return;
+
+        List<String> head = Arrays.stream(header).toList();
+        for (Sample s : samples) {
+            ResultSink.sink.writeRow(file, head, List.of(name, s.origin(), s.timestamp(), s.name(), s.value()));
+        }
+        ResultSink.sink.flush(file);
+        samples.clear();
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the nearest-rank percentile from the given sorted values
+     *
+     * @param sorted values sorted in ascending order
+     * @param percentile the percentile between 0 and 100
+     * @return the value at the percentile
+     */
+    static double percentile(double[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private void assertColumnNames(ResultTable table) {
+        var required = new TreeSet<>(Arrays.asList(header));
+        required.remove("benchmark_name"); // Supplied by this class
+        var columns = new TreeSet<>(table.getColumnNames());
+
+        for (String req : required) {
+            if (!columns.contains(req))
+                throw new RuntimeException("Missing required time series column: " + req);
+        }
+    }
+
+    record Sample(String origin, long timestamp, String name, double value) {
+    }
+
+}
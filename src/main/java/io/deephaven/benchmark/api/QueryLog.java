@@ -1,8 +1,6 @@
 /* Copyright (c) 2022-2023 Deephaven Data Labs and Patent Pending */
 package io.deephaven.benchmark.api;
 
-import static java.nio.file.StandardOpenOption.*;
-import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -55,6 +53,7 @@ class QueryLog implements Closeable {
             write(queries.get(i), 0);
             write("````", 2);
         }
+        ResultSink.sink.flush(logFile);
     }
 
     /**
@@ -84,13 +83,7 @@ class QueryLog implements Closeable {
     }
 
     private void write(String text, int newLineCount) {
-        try (BufferedWriter out = Files.newBufferedWriter(logFile, CREATE, APPEND)) {
-            out.write(text);
-            for (int i = 0; i < newLineCount; i++)
-                out.newLine();
-        } catch (Exception ex) {
-            throw new RuntimeException("Failed to write to query log: " + logFile, ex);
-        }
+        ResultSink.sink.write(logFile, text + System.lineSeparator().repeat(newLineCount));
     }
 
     static Path getLogFile(Path parent, Class<?> testClass) {
@@ -0,0 +1,109 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.api;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import io.deephaven.benchmark.util.RunHistory;
+import io.deephaven.benchmark.util.Statistics;
+
+/**
+ * Baseline op_rates for each benchmark and origin, used to check that a new result is within a tolerance of known
+ * results. The baseline named "history" is the local history, which is the median rate of each benchmark in the last
+ * <code>result.baseline.history.count</code> runs next to the current run directory (ex. <code>results/run-*</code>).
+ * Any other name is a csv file with <code>benchmark_name</code>, <code>origin</code> and <code>op_rate</code> columns
+ * (ex. the <code>benchmark-results.csv</code> of a known good run), given by the
+ * <code>result.baseline.&lt;name&gt;</code> property or by the name itself.
+ * <p>
+ * Rates are only compared at the same scale. When a baseline has a <code>row_count</code> column, a result is compared
+ * only to the rows with its row count. Rows without a row count are used for any row count that has no rows of its own.
+ * <p>
+ * Baselines are read once and cached, since they do not change during a run.
+ */
+class RateBaseline {
+    static final String historyName = "history";
+    static final Map<String, RateBaseline> baselines = new ConcurrentHashMap<>();
+    final Map<String, Double> rates;
+
+    RateBaseline(Map<String, Double> rates) {
+        this.rates = rates;
+    }
+
+    /**
+     * Get the named baseline for the run in the given directory
+     *
+     * @param name the baseline name
+     * @param runDir the directory of the current run, which is never part of its own baseline
+     * @return the baseline
+     */
+    static RateBaseline get(String name, Path runDir) {
+        var key = name + '>' + runDir.toAbsolutePath();
+        return baselines.computeIfAbsent(key, k -> {
+            if (name.equals(historyName)) {
+                int historyCount = (int) Bench.profile.propertyAsIntegral("result.baseline.history.count", "10");
+                return new RateBaseline(readRates(getHistoryFiles(runDir, historyCount)));
+            }
+            var file = Path.of(Bench.profile.property("result.baseline." + name, name));
+            if (!Files.exists(file))
+                throw new RuntimeException("Missing rate baseline file for name '" + name + "': " + file);
+            return new RateBaseline(readRates(List.of(file)));
+        });
+    }
+
+    /**
+     * Get the baseline rate for the given benchmark and origin at the given row count
+     *
+     * @param benchmarkName the benchmark name
+     * @param origin the origin of the rate (ex. deephaven-engine)
+     * @param rowCount the row count of the result being compared
+     * @return the rate or null if the baseline does not have the benchmark at that row count
+     */
+    Double getRate(String benchmarkName, String origin, long rowCount) {
+        var key = benchmarkName + '>' + origin;
+        var rate = rates.get(key + '>' + rowCount);
+        return (rate != null) ? rate : rates.get(key);
+    }
+
+    /**
+     * Get the result files of the most recent runs next to the given run directory, not including the run itself
+     *
+     * @param runDir the directory of the current run
+     * @param historyCount the number of most recent runs to use
+     * @return the result files in run id order
+     */
+    static List<Path> getHistoryFiles(Path runDir, int historyCount) {
+        var currentDir = runDir.toAbsolutePath().normalize();
+        var parent = currentDir.getParent();
+        if (parent == null)
+            return List.of();
+        var files = RunHistory.getResultFiles(parent, Bench.resultFileName).stream()
+                .filter(f -> !f.getParent().equals(currentDir)).toList();
+        return files.subList(Math.max(files.size() - Math.max(historyCount, 1), 0), files.size());
+    }
+
+    static Map<String, Double> readRates(List<Path> files) {
+        var samples = new LinkedHashMap<String, List<Double>>();
+        for (Path file : files) {
+            try {
+                for (var row : RunHistory.readRows(file, "benchmark_name", "origin", "op_rate")) {
+                    var rate = row.getOrDefault("op_rate", "");
+                    if (rate.isBlank())
+                        continue;
+                    var rowCount = row.getOrDefault("row_count", "");
+                    var key = row.get("benchmark_name") + '>' + row.get("origin")
+                            + (rowCount.isBlank() ? "" : ">" + rowCount);
+                    samples.computeIfAbsent(key, k -> new ArrayList<>()).add(Double.parseDouble(rate));
+                }
+            } catch (Exception ex) {
+                throw new RuntimeException("Failed to read rate baseline: " + file, ex);
+            }
+        }
+        var rates = new HashMap<String, Double>();
+        samples.forEach((key, values) -> {
+            rates.put(key, Statistics.median(values.stream().mapToDouble(v -> v).toArray()));
+        });
+        return rates;
+    }
+
+}
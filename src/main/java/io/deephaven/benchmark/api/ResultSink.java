@@ -0,0 +1,198 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.api;
+
+import static java.nio.file.StandardOpenOption.*;
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * The single writer for the files produced during a benchmark run (ex. benchmark-results.csv, query logs). Each file
+ * gets one buffered channel that stays open for the whole run rather than being opened and closed for every line
+ * written. Channels are flushed as each test is committed and closed when the JVM shuts down.
+ * <p>
+ * Table files (results, metrics, time series, platform) can also be written in columnar form for faster loading by
+ * dashboards. When the columnar format is <code>arrow</code>, rows written to <code>name.csv</code> are also appended
+ * to <code>name.arrows</code> as an Arrow IPC stream with one record batch per flush, using the column types declared
+ * for the file.
+ */
+final class ResultSink {
+    static final List<String> columnarFormats = List.of("none", "arrow");
+    static final ResultSink sink = createSink();
+    final private Map<Path, Channel> channels = new LinkedHashMap<>();
+    private String columnarFormat = "none";
+
+    /**
+     * Set the columnar format to write along with table files. Files already opened are not affected.
+     *
+     * @param format the columnar format (none or arrow)
+     */
+    synchronized void setColumnarFormat(String format) {
+        format = format.trim().toLowerCase();
+        if (!columnarFormats.contains(format))
+            throw new RuntimeException("Unsupported columnar result format: " + format + " Use " + columnarFormats);
+        this.columnarFormat = format;
+    }
+
+    /**
+     * Append text to the given file
+     *
+     * @param file the file to write to
+     * @param text the text to append
+     */
+    synchronized void write(Path file, String text) {
+        var channel = getChannel(file);
+        try {
+            channel.out.write(text);
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to write to file: " + file, ex);
+        }
+    }
+
+    /**
+     * Append a row of comma-separated values to the given table file. If the file is new or empty, the header is
+     * written first.
+     *
+     * @param file the table file to write to
+     * @param header the column names of the table
+     * @param values the row values in the same order as the header
+     */
+    synchronized void writeRow(Path file, List<String> header, List<?> values) {
+        var channel = getChannel(file);
+        try {
+            if (!channel.hasHeader) {
+                channel.out.write(String.join(",", header));
+                channel.out.newLine();
+                channel.hasHeader = true;
+            }
+            channel.out.write(String.join(",", values.stream().map(v -> v.toString()).toList()));
+            channel.out.newLine();
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to write row to file: " + file, ex);
+        }
+        if (!columnarFormat.equals("none")) {
+            if (channel.columnar == null)
+                channel.columnar = new ArrowTableWriter(getColumnarFile(file), header,
+                        Bench.getColumnTypes(file.getFileName().toString(), header));
+            channel.pendingRows.add(new ArrayList<Object>(values));
+        }
+    }
+
+    /**
+     * Flush any buffered data for the given file, including rows pending for its columnar form
+     *
+     * @param file the file to flush
+     */
+    synchronized void flush(Path file) {
+        var channel = channels.get(file);
+        if (channel != null)
+            flush(channel);
+    }
+
+    /**
+     * Flush the buffered data for all open files
+     */
+    synchronized void flush() {
+        channels.values().forEach(c -> flush(c));
+    }
+
+    /**
+     * Close the channel for the given file, and delete the file along with its columnar form
+     *
+     * @param file the file to delete
+     */
+    synchronized void delete(Path file) {
+        var channel = channels.remove(file);
+        if (channel != null)
+            close(channel);
+        try {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(getColumnarFile(file));
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to delete file: " + file, ex);
+        }
+    }
+
+    /**
+     * Flush and close all open files
+     */
+    synchronized void close() {
+        channels.values().forEach(c -> close(c));
+        channels.clear();
+    }
+
+    /**
+     * Get the file used for the columnar form of the given table file (ex. benchmark-results.arrows)
+     *
+     * @param file the table file
+     * @return the columnar file
+     */
+    static Path getColumnarFile(Path file) {
+        var name = file.getFileName().toString().replaceAll("[.]csv$", "");
+        return file.resolveSibling(name + ".arrows");
+    }
+
+    // A file deleted out from under an open channel (ex. by a unit test) is detected after flush and reopened
+    private Channel getChannel(Path file) {
+        var channel = channels.get(file);
+        if (channel != null && channel.isFlushed && !Files.exists(file)) {
+            close(channels.remove(file));
+            channel = null;
+        }
+        if (channel == null) {
+            try {
+                boolean hasHeader = Files.exists(file) && Files.size(file) > 0;
+                channel = new Channel(Files.newBufferedWriter(file, CREATE, APPEND), hasHeader);
+                channels.put(file, channel);
+            } catch (Exception ex) {
+                throw new RuntimeException("Failed to open file: " + file, ex);
+            }
+        }
+        channel.isFlushed = false;
+        return channel;
+    }
+
+    private void flush(Channel channel) {
+        try {
+            channel.out.flush();
+            if (channel.columnar != null && !channel.pendingRows.isEmpty())
+                channel.columnar.write(channel.pendingRows);
+            channel.pendingRows.clear();
+            channel.isFlushed = true;
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to flush result file", ex);
+        }
+    }
+
+    private void close(Channel channel) {
+        try {
+            flush(channel);
+            channel.out.close();
+            if (channel.columnar != null)
+                channel.columnar.close();
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to close result file", ex);
+        }
+    }
+
+    static private ResultSink createSink() {
+        var sink = new ResultSink();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> sink.close()));
+        return sink;
+    }
+
+    static class Channel {
+        final BufferedWriter out;
+        final List<List<Object>> pendingRows = new ArrayList<>();
+        ArrowTableWriter columnar = null;
+        boolean hasHeader;
+        boolean isFlushed = false;
+
+        Channel(BufferedWriter out, boolean hasHeader) {
+            this.out = out;
+            this.hasHeader = hasHeader;
+        }
+    }
+
+}
@@ -2,6 +2,7 @@
 package io.deephaven.benchmark.api;
 
 import io.deephaven.benchmark.connect.Connector;
+import io.deephaven.benchmark.metric.Metrics;
 
 /**
  * Contains session information that is shared between queries but is managed by <code>BenchQuery</code>. Each
@@ -19,6 +20,10 @@ class Session {
         return connector;
     }
 
+    Metrics getConnectorMetrics() {
+        return (connector != null) ? connector.getMetrics() : null;
+    }
+
     void close() {
         if (connector != null) {
             connector.close();
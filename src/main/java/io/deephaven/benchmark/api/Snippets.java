@@ -1,6 +1,8 @@
 /* Copyright (c) 2022-2024 Deephaven Data Labs and Patent Pending */
 package io.deephaven.benchmark.api;
 
+import java.util.*;
+
 /**
  * Contains snippets of python functions that can be called inside a query executed on the Deephaven Engine
  */
@@ -126,23 +128,248 @@ class Snippets {
         """;
 
     /**
-     * Set heap usage, compile time, GC time and GC Count to global variables
+     * Get a snapshot of the allocated bytes and CPU time for each live thread keyed by thread id. Each value is a list
+     * of thread name, allocated bytes and CPU nanos
+     */
+    static String bench_api_thread_snapshot = """
+        import jpy
+        def bench_api_thread_snapshot():
+            threads = jpy.cast(bench_api_get_bean('getThreadMXBean'), jpy.get_type('com.sun.management.ThreadMXBean'))
+            ids = threads.getAllThreadIds()
+            allocs = threads.getThreadAllocatedBytes(ids)
+            cpus = threads.getThreadCpuTime(ids)
+            infos = threads.getThreadInfo(ids)
+            snapshot = {}
+            for i in range(0, len(ids)):
+                if infos[i] is None or allocs[i] < 0: continue
+                snapshot[ids[i]] = [infos[i].getThreadName(), allocs[i], max(cpus[i], 0)]
+            return snapshot
+        """;
+
+    /**
+     * Engine thread name prefixes and the thread pool the threads belong to. The update graph refresh thread and its
+     * update executor are both named for <code>PeriodicUpdateGraph</code> (ex.
+     * <code>PeriodicUpdateGraph-updateExecutor-1</code>), initialization threads for
+     * <code>OperationInitializationThreadPool</code>, and S3 reads run on the S3 client's completion and event loop
+     * threads. Threads with no matching prefix are in the "other" pool.
+     */
+    static final Map<String, String> threadPoolPrefixes = new TreeMap<>(Map.of("PeriodicUpdateGraph", "update.graph",
+            "OperationInitializationThreadPool", "op.init", "S3AsyncClientFactory", "parquet.read",
+            "aws-java-sdk-NettyEventLoop", "parquet.read"));
+
+    /**
+     * Get the name of the thread pool a thread belongs to from its name (@see threadPoolPrefixes)
+     * 
+     * @param threadName the name of an engine thread
+     * @return the thread pool name or "other" if none match
+     */
+    static String getThreadPool(String threadName) {
+        return threadPoolPrefixes.entrySet().stream().filter(e -> threadName.startsWith(e.getKey()))
+                .map(e -> e.getValue()).findFirst().orElse("other");
+    }
+
+    /**
+     * Get the name of the thread pool a thread belongs to from its name, using the same prefixes as
+     * <code>getThreadPool</code>
+     */
+    static String bench_api_thread_pool = """
+        bench_api_thread_pool_prefixes = [${prefixes}]
+        def bench_api_thread_pool(thread_name):
+            for prefix, pool in bench_api_thread_pool_prefixes:
+                if thread_name.startswith(prefix): return pool
+            return 'other'
+        """.replace("${prefixes}", String.join(", ", threadPoolPrefixes.entrySet().stream()
+            .map(e -> "('" + e.getKey() + "', '" + e.getValue() + "')").toList()));
+
+    /**
+     * Add the bytes allocated and CPU time used by engine threads between the given snapshots as metrics, in total and
+     * split by thread pool. The CPU/wall ratio over the operation's begin and end times gives the effective parallelism
+     * of the operation, and dividing that by the available processors gives the parallel efficiency. Threads that ended
+     * during the operation are not counted.
+     */
+    static String bench_api_thread_metrics = """
+        def bench_api_thread_metrics(start_snapshot, end_snapshot, begin_nanos, end_nanos):
+            wall_secs = max(end_nanos - begin_nanos, 1) / 1.0e9
+            pools = {'update.graph': 0, 'op.init': 0, 'parquet.read': 0, 'other': 0}
+            cpu_pools = dict.fromkeys(pools, 0)
+            for tid, (name, alloc, cpu) in end_snapshot.items():
+                start_alloc, start_cpu = start_snapshot[tid][1:] if tid in start_snapshot else (0, 0)
+                pools[bench_api_thread_pool(name)] += alloc - start_alloc
+                cpu_pools[bench_api_thread_pool(name)] += cpu - start_cpu
+            bench_api_metrics_add('operation', 'alloc.bytes', sum(pools.values()))
+            for pool, alloc in pools.items():
+                bench_api_metrics_add('operation', 'alloc.bytes.' + pool, alloc)
+            cpu_secs = sum(cpu_pools.values()) / 1.0e9
+            procs = bench_api_get_bean('getOperatingSystemMXBean').getAvailableProcessors()
+            bench_api_metrics_add('operation', 'cpu.secs', cpu_secs)
+            bench_api_metrics_add('operation', 'cpu.wall.ratio', cpu_secs / wall_secs)
+            bench_api_metrics_add('operation', 'cpu.efficiency', cpu_secs / wall_secs / procs)
+            for pool, cpu in cpu_pools.items():
+                bench_api_metrics_add('operation', 'cpu.secs.' + pool, cpu / 1.0e9)
+        """;
+
+    /**
+     * Get a snapshot of memory the heap metrics don't see. Includes direct and mapped buffer pool usage, resident set
+     * size (RSS) and its high-water mark from <code>/proc/self/status</code>, and Native Memory Tracking totals when the
+     * engine runs with <code>-XX:NativeMemoryTracking=summary</code>. Values that are not available are left out.
+     * Whether NMT is enabled is checked on the first call, so frequent samples skip the diagnostic command when it's off.
+     */
+    static String bench_api_native_mem = """
+        import re, jpy
+        bench_api_native_mem_nmt = None
+        def bench_api_native_mem():
+            global bench_api_native_mem_nmt
+            mem = {}
+            pool_type = jpy.get_type('java.lang.management.BufferPoolMXBean')
+            pools = jpy.get_type('java.lang.management.ManagementFactory').getPlatformMXBeans(pool_type.jclass)
+            for i in range(0, pools.size()):
+                pool = jpy.cast(pools.get(i), pool_type)
+                if pool.getName() in ['direct', 'mapped']: mem[pool.getName() + '.bytes'] = pool.getMemoryUsed()
+            try:
+                with open('/proc/self/status') as f:
+                    status = dict(line.split(':', 1) for line in f if ':' in line)
+                mem['rss.bytes'] = int(status['VmRSS'].split()[0]) * 1024
+                mem['rss.peak.bytes'] = int(status['VmHWM'].split()[0]) * 1024
+            except Exception: pass
+            if bench_api_native_mem_nmt is False: return mem
+            try:
+                name = jpy.get_type('javax.management.ObjectName')('com.sun.management:type=DiagnosticCommand')
+                args = jpy.array('java.lang.Object', [jpy.array('java.lang.String', ['summary'])])
+                sig = jpy.array('java.lang.String', ['[Ljava.lang.String;'])
+                out = str(bench_api_get_bean('getPlatformMBeanServer').invoke(name, 'vmNativeMemory', args, sig))
+                total = re.search(r'Total: reserved=(\\d+)KB, committed=(\\d+)KB', out)
+                if total:
+                    mem['nmt.reserved.bytes'] = int(total.group(1)) * 1024
+                    mem['nmt.committed.bytes'] = int(total.group(2)) * 1024
+                bench_api_native_mem_nmt = total is not None
+            except Exception: bench_api_native_mem_nmt = False
+            return mem
+        """;
+
+    /**
+     * Reset the RSS high-water mark of the engine process so that <code>rss.peak.bytes</code> covers only what follows.
+     * Return false if the reset is not supported (e.g. not Linux)
+     */
+    static String bench_api_native_peak_reset = """
+        def bench_api_native_peak_reset():
+            try:
+                with open('/proc/self/clear_refs', 'w') as f: f.write('5')
+                return True
+            except Exception: return False
+        """;
+
+    /**
+     * Add the native memory values from the given start snapshot and the current snapshot as metrics in the "native"
+     * category. The RSS peak is only added if the high-water mark was reset at the start.
+     */
+    static String bench_api_native_metrics = """
+        def bench_api_native_metrics(start_mem, peak_reset):
+            end_mem = bench_api_native_mem()
+            for name, value in end_mem.items():
+                if name == 'rss.peak.bytes':
+                    if peak_reset: bench_api_metrics_add('native', name, value)
+                    continue
+                if name in start_mem: bench_api_metrics_add('native', name.replace('.bytes', '.start.bytes'), start_mem[name])
+                bench_api_metrics_add('native', name.replace('.bytes', '.end.bytes'), value)
+        """;
+
+    /**
+     * Get the I/O counters for the engine process from <code>/proc/self/io</code>. Logical bytes (rchar, wchar) count
+     * all bytes passed through read/write calls including those served from page cache, while physical bytes
+     * (read_bytes, write_bytes) count bytes that went to or came from storage. Return an empty dict if not available
+     */
+    static String bench_api_proc_io = """
+        def bench_api_proc_io():
+            try:
+                with open('/proc/self/io') as f:
+                    return {k.strip(): int(v) for k, v in (line.split(':', 1) for line in f if ':' in line)}
+            except Exception: return {}
+        """;
+
+    /**
+     * Add the difference between the given start I/O counters and the current ones as metrics in the "io" category.
+     * The page cache hit ratio is the fraction of logical bytes read that did not come from storage.
+     */
+    static String bench_api_io_metrics = """
+        def bench_api_io_metrics(start_io):
+            end_io = bench_api_proc_io()
+            names = {'rchar': 'logical.read.bytes', 'wchar': 'logical.write.bytes', 'read_bytes': 'physical.read.bytes',
+                'write_bytes': 'physical.write.bytes', 'syscr': 'read.syscalls', 'syscw': 'write.syscalls'}
+            deltas = {}
+            for key, name in names.items():
+                if key not in end_io or key not in start_io: continue
+                deltas[name] = end_io[key] - start_io[key]
+                bench_api_metrics_add('io', name, deltas[name])
+            logical = deltas.get('logical.read.bytes', 0)
+            if logical > 0:
+                physical = deltas.get('physical.read.bytes', 0)
+                bench_api_metrics_add('io', 'page.cache.hit.ratio', max(0.0, 1.0 - physical / logical))
+        """;
+
+    /**
+     * Evict the given file, or all files under the given directory, from the OS page cache so that the next read comes
+     * from storage. Dirty pages are flushed first, since they can't be dropped. This uses
+     * <code>posix_fadvise(DONTNEED)</code>, which works on files the engine can open without extra privileges.
+     * <p>
+     * ex. bench_api_evict_file_cache('/data/source.ptr.parquet')
+     * 
+     * @param path the file or directory to evict
+     * @return the number of files evicted
+     */
+    static String bench_api_evict_file_cache = """
+        import os
+        def bench_api_evict_file_cache(path):
+            if os.path.isdir(path): paths = [os.path.join(d, f) for d, _, files in os.walk(path) for f in files]
+            else: paths = [path] if os.path.exists(path) else []
+            for p in paths:
+                fd = os.open(p, os.O_RDONLY)
+                try:
+                    os.fsync(fd)
+                    os.posix_fadvise(fd, 0, 0, os.POSIX_FADV_DONTNEED)
+                finally:
+                    os.close(fd)
+            return len(paths)
+        """;
+
+    /**
+     * Set heap usage, compile time, GC time, GC Count, thread allocations and CPU, wall time, native memory and I/O
+     * counters to global variables. The thread snapshot is taken last, so it should be called directly before the
+     * measured operation.
      */
     static String bench_api_metrics_start = """
+        import time
         from deephaven import garbage_collect   
         def bench_api_metrics_start():
-            global bench_mem_usage, bench_compile_time, bench_gc_time, bench_gc_count
+            global bench_mem_usage, bench_compile_time, bench_gc_time, bench_gc_count, bench_thread_snapshot
+            global bench_native_mem, bench_native_peak_reset, bench_wall_start, bench_proc_io
             garbage_collect()
             bench_compile_time = bench_api_compile_time()
             bench_gc_time, bench_gc_count = bench_api_gc_info()
             bench_mem_usage = bench_api_mem_usage()
+            bench_native_mem = bench_api_native_mem()
+            bench_native_peak_reset = bench_api_native_peak_reset()
+            bench_proc_io = bench_api_proc_io()
+            bench_thread_snapshot = bench_api_thread_snapshot()
+            bench_wall_start = time.perf_counter_ns()
         """;
 
     /**
-     * Get difference from <code>bench_api_metrics_start</code> values and add as collected metrics
+     * Get difference from <code>bench_api_metrics_start</code> values and add as collected metrics. The thread snapshot
+     * is taken first, so it should be called directly after the measured operation. The operation's begin and end
+     * times (ex. <code>time.perf_counter_ns()</code>) give the wall time for CPU ratios, which otherwise runs from the
+     * start snapshot to the end snapshot.
+     * <p>
+     * ex. bench_api_metrics_end(begin_time, end_time)
      */
     static String bench_api_metrics_end = """
-        def bench_api_metrics_end():
+        import time
+        def bench_api_metrics_end(begin_nanos=None, end_nanos=None):
+            end_snapshot = bench_api_thread_snapshot()
+            if end_nanos is None: end_nanos = time.perf_counter_ns()
+            if begin_nanos is None: begin_nanos = bench_wall_start
+            bench_api_thread_metrics(bench_thread_snapshot, end_snapshot, begin_nanos, end_nanos)
+            bench_api_native_metrics(bench_native_mem, bench_native_peak_reset)
+            bench_api_io_metrics(bench_proc_io)
             bench_api_metrics_add('operation','compile.time',(bench_api_compile_time()-bench_compile_time)/1000.0)
             gc_time, gc_count = bench_api_gc_info()
             bench_api_metrics_add('operation','gc.time',(gc_time - bench_gc_time)/1000.0)
@@ -151,6 +378,289 @@ class Snippets {
             bench_api_metrics_add('operation','heap.gain',bench_api_mem_usage() - bench_mem_usage) 
         """;
 
+    /**
+     * Start a background thread on the engine that samples heap used, allocation rate, process CPU, thread count, GC
+     * activity, direct buffer usage and RSS at the given interval. Samples are accumulated until <code>bench_api_sampler_stop</code> is called. An
+     * interval of zero or less disables sampling.
+     * <p>
+     * ex. bench_api_sampler_start(50)
+     * 
+     * @param interval_millis the time between samples
+     */
+    static String bench_api_sampler_start = """
+        import threading, time, jpy
+        def bench_api_sampler_start(interval_millis=50):
+            global bench_api_samples, bench_api_sampler_stopper, bench_api_sampler_thread
+            bench_api_samples = []
+            bench_api_sampler_stopper = threading.Event()
+            bench_api_sampler_thread = None
+            if interval_millis <= 0: return
+            mem = bench_api_get_bean('getMemoryMXBean')
+            threads = jpy.cast(bench_api_get_bean('getThreadMXBean'), jpy.get_type('com.sun.management.ThreadMXBean'))
+            os_bean = jpy.cast(bench_api_get_bean('getOperatingSystemMXBean'),
+                jpy.get_type('com.sun.management.OperatingSystemMXBean'))
+            procs = os_bean.getAvailableProcessors()
+
+            def sample_loop():
+                prev_nanos = time.perf_counter_ns()
+                prev_alloc = threads.getTotalThreadAllocatedBytes()
+                prev_cpu = os_bean.getProcessCpuTime()
+                prev_gc_time, prev_gc_count = bench_api_gc_info()
+                while not bench_api_sampler_stopper.wait(interval_millis / 1000.0):
+                    nanos = time.perf_counter_ns()
+                    alloc = threads.getTotalThreadAllocatedBytes()
+                    cpu = os_bean.getProcessCpuTime()
+                    gc_time, gc_count = bench_api_gc_info()
+                    secs = max(nanos - prev_nanos, 1) / 1.0e9
+                    now_millis = int(time.time() * 1000)
+                    bench_api_samples.append([now_millis, 'heap.used', mem.getHeapMemoryUsage().getUsed()])
+                    bench_api_samples.append([now_millis, 'alloc.rate', (alloc - prev_alloc) / secs])
+                    bench_api_samples.append([now_millis, 'process.cpu', (cpu - prev_cpu) / 1.0e9 / secs / procs])
+                    bench_api_samples.append([now_millis, 'thread.count', threads.getThreadCount()])
+                    bench_api_samples.append([now_millis, 'gc.count', gc_count - prev_gc_count])
+                    bench_api_samples.append([now_millis, 'gc.time', (gc_time - prev_gc_time) / 1000.0])
+                    for name, value in bench_api_native_mem().items():
+                        if name in ['direct.bytes', 'rss.bytes']: bench_api_samples.append([now_millis, name, value])
+                    prev_nanos, prev_alloc, prev_cpu = nanos, alloc, cpu
+                    prev_gc_time, prev_gc_count = gc_time, gc_count
+
+            bench_api_sampler_thread = threading.Thread(target=sample_loop, daemon=True)
+            bench_api_sampler_thread.start()
+        """;
+
+    /**
+     * Stop the sampler started with <code>bench_api_sampler_start</code> and wait for the last sample to finish
+     * <p>
+     * ex. bench_api_sampler_stop()
+     */
+    static String bench_api_sampler_stop = """
+        def bench_api_sampler_stop():
+            if globals().get('bench_api_sampler_thread') is None: return
+            bench_api_sampler_stopper.set()
+            bench_api_sampler_thread.join()
+        """;
+
+    /**
+     * Collect the samples taken since <code>bench_api_sampler_start</code> into a Deephaven table that can be fetched
+     * from the bench api as a time series
+     * <p>
+     * ex. bench_api_timeseries_table = bench_api_sampler_collect()
+     */
+    static String bench_api_sampler_collect = """
+        from deephaven import new_table
+        from deephaven.column import long_col, string_col, double_col
+        def bench_api_sampler_collect():
+            samples = globals().get('bench_api_samples', [])
+            return new_table([
+                long_col('timestamp', [s[0] for s in samples]),
+                string_col('origin', ['deephaven-engine'] * len(samples)),
+                string_col('name', [s[1] for s in samples]),
+                double_col('value', [float(s[2]) for s in samples])
+            ])
+        """;
+
+    /**
+     * Start a Java Flight Recorder (JFR) recording on the engine using the given JFR settings (e.g. default, profile).
+     * If <code>enabled</code> is false, no recording is started.
+     * <p>
+     * ex. bench_api_jfr_start(True, 'profile')
+     * 
+     * @param enabled whether to start the recording
+     * @param settings the name of the JFR configuration to use
+     */
+    static String bench_api_jfr_start = """
+        import jpy
+        def bench_api_jfr_start(enabled=True, settings='profile'):
+            global bench_api_jfr_recording
+            bench_api_jfr_recording = None
+            if not enabled: return
+            config = jpy.get_type('jdk.jfr.Configuration').getConfiguration(settings)
+            bench_api_jfr_recording = jpy.get_type('jdk.jfr.Recording')(config)
+            bench_api_jfr_recording.start()
+        """;
+
+    /**
+     * Stop the recording started by <code>bench_api_jfr_start</code> and return the recording as a table of
+     * base64-encoded chunks in the <code>chunk</code> column with the engine that made them in the <code>origin</code>
+     * column. The table is empty if no recording was started.
+     * <p>
+     * ex. bench_api_jfr_table = bench_api_jfr_stop()
+     * 
+     * @return a table containing the recording
+     */
+    static String bench_api_jfr_stop = """
+        from deephaven import new_table
+        from deephaven.column import string_col
+        def bench_api_jfr_stop(chunk_size=4000000):
+            recording = globals().get('bench_api_jfr_recording')
+            chunks = [] if recording is None else bench_api_jfr_chunks(recording, chunk_size)
+            return new_table([
+                string_col('origin', ['deephaven-engine'] * len(chunks)),
+                string_col('chunk', chunks)
+            ])
+        """;
+
+    /**
+     * Start a JFR recording on the engine that includes only garbage collection events. Unlike the cumulative
+     * collection counts and times from the GarbageCollectorMXBean, this captures every pause with its collector and
+     * cause. If <code>enabled</code> is false, no recording is started.
+     * <p>
+     * Note: JFR is used instead of GarbageCollectorMXBean notifications, since a Java NotificationListener cannot be
+     * implemented from Python
+     * <p>
+     * ex. bench_api_gc_events_start(True)
+     * 
+     * @param enabled whether to start the recording
+     */
+    static String bench_api_gc_events_start = """
+        import jpy
+        def bench_api_gc_events_start(enabled=True):
+            global bench_api_gc_recording
+            bench_api_gc_recording = None
+            if not enabled: return
+            bench_api_gc_recording = jpy.get_type('jdk.jfr.Recording')()
+            bench_api_gc_recording.enable('jdk.GarbageCollection')
+            bench_api_gc_recording.enable('jdk.G1EvacuationOldStatistics')
+            bench_api_gc_recording.start()
+        """;
+
+    /**
+     * Stop the recording started by <code>bench_api_gc_events_start</code> and return the recording as a table of
+     * base64-encoded chunks in the <code>chunk</code> column along with the <code>origin</code> of the recording
+     * <p>
+     * ex. bench_api_gc_table = bench_api_gc_events_stop()
+     * 
+     * @return a table containing the recording
+     */
+    static String bench_api_gc_events_stop = """
+        from deephaven import new_table
+        from deephaven.column import string_col
+        def bench_api_gc_events_stop(chunk_size=4000000):
+            recording = globals().get('bench_api_gc_recording')
+            chunks = [] if recording is None else bench_api_jfr_chunks(recording, chunk_size)
+            return new_table([
+                string_col('origin', ['deephaven-engine'] * len(chunks)),
+                string_col('chunk', chunks)
+            ])
+        """;
+
+    /**
+     * Stop and close the given JFR recording and return its contents as a list of base64-encoded chunks
+     * <p>
+     * ex. chunks = bench_api_jfr_chunks(recording, 4000000)
+     * 
+     * @param recording the JFR recording
+     * @param chunk_size the maximum number of bytes per chunk before encoding
+     * @return a list of base64 strings
+     */
+    static String bench_api_jfr_chunks = """
+        import base64, os, tempfile, jpy
+        def bench_api_jfr_chunks(recording, chunk_size):
+            chunks = []
+            recording.stop()
+            fd, path = tempfile.mkstemp(suffix='.jfr')
+            os.close(fd)
+            try:
+                recording.dump(jpy.get_type('java.io.File')(path).toPath())
+                with open(path, 'rb') as f:
+                    while data := f.read(chunk_size):
+                        chunks.append(base64.b64encode(data).decode('ascii'))
+            finally:
+                recording.close()
+                os.remove(path)
+            return chunks
+        """;
+
+    /**
+     * Mark the beginning of a window for collecting update graph performance with
+     * <code>bench_api_update_perf_end</code>
+     * <p>
+     * ex. bench_api_update_perf_start()
+     */
+    static String bench_api_update_perf_start = """
+        import time
+        def bench_api_update_perf_start():
+            global bench_api_update_perf_begin, bench_api_update_perf_finish
+            bench_api_update_perf_begin = time.time_ns()
+            bench_api_update_perf_finish = None
+        """;
+
+    /**
+     * Mark the end of the window started by <code>bench_api_update_perf_start</code>. This only records the time, so
+     * the logs can be read later with <code>bench_api_update_perf_end</code> without waiting inside the measured query
+     * <p>
+     * ex. bench_api_update_perf_stop()
+     */
+    static String bench_api_update_perf_stop = """
+        import time
+        def bench_api_update_perf_stop():
+            global bench_api_update_perf_finish
+            bench_api_update_perf_finish = time.time_ns()
+        """;
+
+    /**
+     * Add update graph metrics for the window between <code>bench_api_update_perf_start</code> and
+     * <code>bench_api_update_perf_stop</code> (or now if the window was not stopped). Cycle count and cycle duration
+     * percentiles come from the server state log, and the most expensive listener nodes with their usage time and row
+     * counts come from the update performance log.
+     * <p>
+     * Note: The engine writes these logs at its reporting interval (e.g.
+     * <code>-DUpdatePerformanceTracker.reportingIntervalMillis=1000</code>), so if the logs do not yet cover the
+     * window, this waits up to <code>flush_wait_secs</code> for them. Intervals that overlap the edges of the window are
+     * included whole.
+     * <p>
+     * ex. bench_api_update_perf_end(10)
+     * 
+     * @param top_count the number of most expensive nodes to add as metrics
+     * @param flush_wait_secs the maximum seconds to wait for the logs to cover the window
+     */
+    static String bench_api_update_perf_end = """
+        import time
+        from deephaven import agg, perfmon as pm
+        def bench_api_update_perf_end(top_count=10, flush_wait_secs=5):
+            begin = bench_api_update_perf_begin
+            end = globals().get('bench_api_update_perf_finish') or time.time_ns()
+            upl = pm.update_performance_log()
+            ssl = pm.server_state_log()
+            def is_covered():
+                return upl.where(f'epochNanos(IntervalEndTime) >= {end}').size > 0
+            deadline = time.time() + flush_wait_secs
+            while not is_covered() and time.time() < deadline:
+                time.sleep(0.25)
+
+            def in_window(t, start_col, duration_nanos):
+                return t.snapshot().where([f'epochNanos({start_col}) + {duration_nanos} > {begin}',
+                    f'epochNanos({start_col}) < {end}']).flatten()
+
+            def get(t, col, i):
+                return t.j_object.getColumnSource(col).get(i)
+
+            cycles = []
+            states = in_window(ssl, 'IntervalStartTime', 'IntervalDurationMicros * 1000L')
+            for i in range(0, states.size):
+                times = get(states, 'IntervalUGPCyclesTimeMicros', i)
+                if times is not None: cycles.extend([times[c] / 1000.0 for c in range(0, len(times))])
+            cycles.sort()
+            bench_api_metrics_add('update.graph', 'cycle.count', len(cycles))
+            if cycles:
+                for p in [50, 90, 99]:
+                    rank = max(0, min(len(cycles), -(-p * len(cycles) // 100)) - 1)
+                    bench_api_metrics_add('update.graph', 'cycle.p' + str(p) + '.millis', cycles[rank])
+                bench_api_metrics_add('update.graph', 'cycle.max.millis', cycles[-1])
+                bench_api_metrics_add('update.graph', 'cycle.total.secs', sum(cycles) / 1000.0)
+
+            nodes = in_window(upl, 'IntervalStartTime', 'epochNanos(IntervalEndTime) - epochNanos(IntervalStartTime)')
+            nodes = nodes.agg_by([agg.sum_(['UsageNanos','RowsAdded','RowsRemoved','RowsModified','InvocationCount'])],
+                by=['EntryId','EntryDescription']).sort_descending(['UsageNanos']).head(top_count).flatten()
+            for i in range(0, nodes.size):
+                name = 'node.' + str(i + 1).zfill(2)
+                descr = str(get(nodes, 'EntryDescription', i)).replace(',', ' ')
+                rows = get(nodes, 'RowsAdded', i) + get(nodes, 'RowsRemoved', i) + get(nodes, 'RowsModified', i)
+                bench_api_metrics_add('update.graph', name + '.usage.secs', get(nodes, 'UsageNanos', i) / 1.0e9, descr)
+                bench_api_metrics_add('update.graph', name + '.rows', rows, descr)
+                bench_api_metrics_add('update.graph', name + '.invocations', get(nodes, 'InvocationCount', i), descr)
+        """;
+
     /**
      * Add a metrics to the accumulated list of metrics that will be transformed by
      * <code>bench_api_metrics_collect</code> into a Deephaven table for retrieval
@@ -186,6 +696,76 @@ class Snippets {
             return t
         """;
 
+    /**
+     * Compute a 128-bit fingerprint of a table on the engine so that results can be verified without fetching them.
+     * Each column value is converted to a canonical 64-bit word with a query formula (integers as longs, floating
+     * values rounded to 40 mantissa bits, date-times as epoch nanos, everything else as a name-based UUID of its text),
+     * and the words of each row are mixed into two row hashes with splitmix64 (<code>SplittableRandom</code>). Each
+     * slice of <code>chunk_rows</code> rows is hashed with a parallel <code>select</code> and summed on the engine, so
+     * only the two lane sums of each slice come back to Python. The same rows give the same fingerprint in pandas,
+     * pyarrow or DuckDB using the reference in <code>fingerprint.py</code>. If <code>ordered</code> is true, the row
+     * position is mixed into each row hash, so the same rows in a different order give a different fingerprint.
+     * Returns a single-row table with the fingerprint as 32 hex digits, the row count, and whether it is ordered.
+     * <p>
+     * ex. fingerprint = bench_api_fingerprint(result, ordered=False)
+     * 
+     * @param table the table to fingerprint
+     * @param ordered whether row order contributes to the fingerprint
+     * @param chunk_rows the number of rows in each slice that is hashed and summed at once
+     * @return a single-row table with columns fingerprint, row_count, ordered
+     */
+    static String bench_api_fingerprint = """
+        from deephaven import new_table, dtypes
+        from deephaven.column import string_col, long_col, bool_col
+        from deephaven.numpy import to_numpy
+        def bench_api_fingerprint(table, ordered=False, chunk_rows=10000000):
+            if table.is_refreshing: table = table.snapshot()
+            row_count = table.size
+            integers = [dtypes.byte, dtypes.short, dtypes.int32, dtypes.long]
+            floats = [dtypes.float32, dtypes.double]
+            null = '0x6e756c6c6e756c6cL'
+            seeds = ['0x9e3779b97f4a7c15L', '0x2545f4914f6cdd1dL']
+            mix = 'new java.util.SplittableRandom({z}).nextLong()'
+            formulas = []
+            for i, c in enumerate(table.columns):
+                t = c.data_type
+                column = []
+                if t in integers: f = 'isNull({c}) ? {null} : (long){c}'
+                elif t in floats:
+                    column.append('__r{i} = isNull({c}) || Double.isNaN({c}) ? Double.NaN : Double.longBitsToDouble('
+                        'Math.floorDiv(Long.sum(Double.doubleToLongBits((double){c} + 0.0), 2048L), 4096L) * 4096L)')
+                    f = 'Double.isNaN(__r{i}) ? {null} : (__r{i} == Math.rint(__r{i}) && Math.abs(__r{i}) < 9.0E18)' \\
+                        ' ? (long)__r{i} : Double.doubleToLongBits(__r{i})'
+                elif t == dtypes.bool_: f = 'isNull({c}) ? {null} : ({c} ? 1L : 0L)'
+                elif t == dtypes.Instant: f = 'isNull({c}) ? {null} : epochNanos({c})'
+                else:
+                    text = 'String.valueOf({c})' if t == dtypes.char else '({c}).toString()'
+                    f = 'isNull({c}) ? {null} : java.util.UUID.nameUUIDFromBytes(' + text + \\
+                        '.getBytes(java.nio.charset.StandardCharsets.UTF_8)).getMostSignificantBits()'
+                column.append('__w{i} = ' + f)
+                column.append('__m{i} = ' + mix.replace('{z}', 'Long.sum(__w{i}, {i}L)'))
+                formulas += [x.replace('{c}', c.name).replace('{i}', str(i)).replace('{null}', null) for x in column]
+
+            canonical = table.view(formulas)
+            lanes = [0, 0]
+            for start in range(0, row_count, chunk_rows):
+                hashes = []
+                for lane, seed in enumerate(seeds):
+                    h = mix.replace('{z}', 'Long.sum(%s, Long.sum(ii, %dL))' % (seed, start)) if ordered else seed
+                    for i in range(len(table.columns)):
+                        h = mix.replace('{z}', 'Long.sum(%s, __m%d)' % (h, i))
+                    hashes.append('__h%d = %s' % (lane, h))
+                chunk = canonical.slice(start, min(start + chunk_rows, row_count))
+                sums = to_numpy(chunk.select(hashes).sum_by()).reshape(-1)
+                lanes = [(a + int(b)) & 0xffffffffffffffff for a, b in zip(lanes, sums)]
+
+            return new_table([
+                string_col('fingerprint', ['%016x%016x' % (lanes[0], lanes[1])]),
+                long_col('row_count', [row_count]),
+                bool_col('ordered', [ordered])
+            ])
+        """;
+
     /**
      * Returns a query containing the api functions called by the query
      * 
@@ -199,6 +779,25 @@ class Snippets {
         defs += getFunc("bench_api_metrics_init", bench_api_metrics_init, query, defs);
         defs += getFunc("bench_api_metrics_start", bench_api_metrics_start, query, defs);
         defs += getFunc("bench_api_metrics_end", bench_api_metrics_end, query, defs);
+        defs += getFunc("bench_api_thread_metrics", bench_api_thread_metrics, query, defs);
+        defs += getFunc("bench_api_thread_snapshot", bench_api_thread_snapshot, query, defs);
+        defs += getFunc("bench_api_thread_pool", bench_api_thread_pool, query, defs);
+        defs += getFunc("bench_api_native_metrics", bench_api_native_metrics, query, defs);
+        defs += getFunc("bench_api_native_peak_reset", bench_api_native_peak_reset, query, defs);
+        defs += getFunc("bench_api_io_metrics", bench_api_io_metrics, query, defs);
+        defs += getFunc("bench_api_proc_io", bench_api_proc_io, query, defs);
+        defs += getFunc("bench_api_sampler_start", bench_api_sampler_start, query, defs);
+        defs += getFunc("bench_api_sampler_stop", bench_api_sampler_stop, query, defs);
+        defs += getFunc("bench_api_sampler_collect", bench_api_sampler_collect, query, defs);
+        defs += getFunc("bench_api_native_mem", bench_api_native_mem, query, defs);
+        defs += getFunc("bench_api_jfr_start", bench_api_jfr_start, query, defs);
+        defs += getFunc("bench_api_jfr_stop", bench_api_jfr_stop, query, defs);
+        defs += getFunc("bench_api_gc_events_start", bench_api_gc_events_start, query, defs);
+        defs += getFunc("bench_api_gc_events_stop", bench_api_gc_events_stop, query, defs);
+        defs += getFunc("bench_api_jfr_chunks", bench_api_jfr_chunks, query, defs);
+        defs += getFunc("bench_api_update_perf_start", bench_api_update_perf_start, query, defs);
+        defs += getFunc("bench_api_update_perf_stop", bench_api_update_perf_stop, query, defs);
+        defs += getFunc("bench_api_update_perf_end", bench_api_update_perf_end, query, defs);
         defs += getFunc("bench_api_mem_usage", bench_api_mem_usage, query, defs);
         defs += getFunc("bench_api_compile_time", bench_api_compile_time, query, defs);
         defs += getFunc("bench_api_gc_info", bench_api_gc_info, query, defs);
@@ -206,6 +805,8 @@ class Snippets {
         defs += getFunc("bench_api_metrics_add", bench_api_metrics_add, query, defs);
         defs += getFunc("bench_api_metrics_collect", bench_api_metrics_collect, query, defs);
         defs += getFunc("bench_api_await_column_value_limit", bench_api_await_column_value_limit, query, defs);
+        defs += getFunc("bench_api_fingerprint", bench_api_fingerprint, query, defs);
+        defs += getFunc("bench_api_evict_file_cache", bench_api_evict_file_cache, query, defs);
         return defs;
     }
 
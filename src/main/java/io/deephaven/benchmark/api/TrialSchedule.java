@@ -0,0 +1,52 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.api;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trial counts assigned to each benchmark by a suite schedule. The schedule is a csv file with at least
+ * <code>benchmark_name</code> and <code>trial_count</code> columns, which is read once and cached.
+ */
+class TrialSchedule {
+    static final Map<Path, Map<String, Long>> schedules = new ConcurrentHashMap<>();
+
+    /**
+     * Get the trial count assigned to the given benchmark
+     *
+     * @param scheduleFile the schedule csv file
+     * @param benchmarkName the benchmark name
+     * @return the assigned trial count or 0 if the benchmark is not in the schedule
+     */
+    static long getTrialCount(Path scheduleFile, String benchmarkName) {
+        var schedule = schedules.computeIfAbsent(scheduleFile.toAbsolutePath(), f -> readSchedule(f));
+        return schedule.getOrDefault(benchmarkName, 0L);
+    }
+
+    static Map<String, Long> readSchedule(Path scheduleFile) {
+        try {
+            var trials = new HashMap<String, Long>();
+            var lines = Files.readAllLines(scheduleFile);
+            if (lines.isEmpty())
+                return trials;
+            var header = List.of(lines.get(0).split(",", -1));
+            int nameCol = header.indexOf("benchmark_name");
+            int countCol = header.indexOf("trial_count");
+            if (nameCol < 0 || countCol < 0)
+                throw new RuntimeException("Missing benchmark_name or trial_count column");
+            for (String line : lines.subList(1, lines.size())) {
+                var values = line.split(",", -1);
+                if (values.length > Math.max(nameCol, countCol))
+                    trials.put(values[nameCol].trim(), Long.parseLong(values[countCol].trim()));
+            }
+            return trials;
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to read trial schedule: " + scheduleFile, ex);
+        }
+    }
+
+}
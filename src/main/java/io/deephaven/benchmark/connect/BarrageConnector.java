@@ -170,6 +170,19 @@ class BarrageConnector implements Connector {
         return future;
     }
 
+    /**
+     * Get the current and peak memory allocated by the Arrow <code>RootAllocator</code> used for snapshots and
+     * subscriptions since the connector was created
+     * 
+     * @return metrics in the "client" category
+     */
+    public Metrics getMetrics() {
+        var metrics = new Metrics("test-runner", "client");
+        metrics.set("arrow.allocated.bytes", bufferAllocator.getAllocatedMemory());
+        metrics.set("arrow.peak.bytes", bufferAllocator.getPeakMemoryAllocation());
+        return metrics;
+    }
+
     /**
      * Make a best effort to close the connector session and all associated resources. No exception is thrown if the
      * close fails.
@@ -48,6 +48,16 @@ public interface Connector extends AutoCloseable {
      */
     public Future<Metrics> fetchTickingData(String table, Function<ResultTable, Boolean> tableHandler);
 
+    /**
+     * Get metrics for resources used by the connector itself (e.g. client-side memory for fetched data). This is
+     * optional and may return null.
+     * 
+     * @return the connector metrics or null
+     */
+    default public Metrics getMetrics() {
+        return null;
+    }
+
     /**
      * Close the connector and clean up resources
      */
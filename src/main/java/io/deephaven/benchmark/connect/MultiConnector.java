@@ -0,0 +1,293 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.connect;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import io.deephaven.benchmark.metric.Metrics;
+import io.deephaven.benchmark.metric.MetricsFuture;
+
+/**
+ * Connector that fans out the same queries and fetches to several Deephaven engines at once. Engines are supplied as a
+ * comma-separated list in the <code>deephaven.addr</code> property (ex. localhost:10000,localhost:10001), and each one
+ * gets its own <code>BarrageConnector</code>. Queries are executed on all engines in parallel, and snapshot results
+ * are merged into one table where each row is tagged by the engine that produced it in the <code>origin</code>
+ * column.
+ * <p>
+ * Origins take the form <code>deephaven-engine@host:port</code>. If a fetched table already has an <code>origin</code>
+ * column, the engine address is appended to each existing value instead. Metrics supplied by each engine's connector
+ * are kept as a separate set per engine, with the engine address appended to their origin in the same way.
+ * <p>
+ * For A/B comparisons of two engine builds, <code>connector.multi.interleave=true</code> executes queries on one engine
+ * at a time. Each time the same query is executed again, the engine order is reversed, so repeating a measured query
+ * runs A, B, B, A, A, B... The engines don't contend for the host, drift over time affects both equally, and neither
+ * engine always runs first (ex. on a warmer cache).
+ * <p>
+ * ex. connector.class=io.deephaven.benchmark.connect.MultiConnector
+ */
+class MultiConnector implements Connector {
+    static final String originColumn = "origin";
+    static final String engineOrigin = "deephaven-engine";
+    final private Map<String, Connector> engines;
+    final private ExecutorService executor;
+    final private ExecutorService waitExecutor = Executors.newCachedThreadPool();
+    final private boolean isInterleaved;
+    final private Map<String, Integer> executeCounts = new HashMap<>();
+
+    /**
+     * Construct a connector for each engine address listed in the <code>deephaven.addr</code> property
+     *
+     * @param props the profile properties that include a comma-separated list of host:port addresses
+     */
+    MultiConnector(Properties props) {
+        this(createEngines(props), Boolean.parseBoolean(props.getProperty("connector.multi.interleave", "false")));
+    }
+
+    MultiConnector(Map<String, Connector> engines) {
+        this(engines, false);
+    }
+
+    MultiConnector(Map<String, Connector> engines, boolean isInterleaved) {
+        if (engines.isEmpty())
+            throw new RuntimeException("No engine addresses supplied for Connector");
+        this.engines = engines;
+        this.executor = Executors.newFixedThreadPool(engines.size());
+        this.isInterleaved = isInterleaved;
+    }
+
+    /**
+     * Execute the query on all engines in parallel, or one at a time if interleaved. Interleaved queries run in address
+     * order the first time, and the order is reversed each time the same query is executed again. Wait until all
+     * engines are finished, and fail if any of them fail
+     *
+     * @param query a Deephaven query
+     */
+    public void executeQuery(String query) {
+        if (isInterleaved) {
+            for (String addr : getInterleaveOrder(query)) {
+                try {
+                    engines.get(addr).executeQuery(query);
+                } catch (Exception ex) {
+                    throw new RuntimeException("Failed on engine: " + addr, ex);
+                }
+            }
+            return;
+        }
+        invokeAll((addr, engine) -> {
+            engine.executeQuery(query);
+            return null;
+        });
+    }
+
+    synchronized List<String> getInterleaveOrder(String query) {
+        var order = new ArrayList<>(engines.keySet());
+        if (executeCounts.merge(query, 1, Integer::sum) % 2 == 0)
+            Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * Get the union of the variable names used on all engines
+     *
+     * @return variable names
+     */
+    public Set<String> getUsedVariableNames() {
+        var names = new LinkedHashSet<String>();
+        engines.values().forEach(e -> names.addAll(e.getUsedVariableNames()));
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Fetch a snapshot of the given table from all engines in parallel and supply the table handler a single table
+     * containing the rows from each engine tagged with the engine's origin
+     *
+     * @param table the name of the table to fetch data from
+     * @param tableHandler a consumer used to process the merged result table
+     * @return a future containing metrics collected during the fetch
+     */
+    public Future<Metrics> fetchSnapshotData(String table, Consumer<ResultTable> tableHandler) {
+        Metrics metrics = new Metrics("test-runner", "session." + table);
+        MetricsFuture future = new MetricsFuture(metrics);
+        var tables = new ConcurrentHashMap<String, ResultTable>();
+        try {
+            var results = invokeAll((addr, engine) -> {
+                return engine.fetchSnapshotData(table, t -> tables.put(addr, t)).get();
+            });
+            addEngineMetrics(metrics, results);
+            var ordered = new LinkedHashMap<String, ResultTable>();
+            engines.keySet().forEach(addr -> ordered.put(addr, tables.get(addr)));
+            tableHandler.accept(merge(ordered));
+        } finally {
+            future.done();
+        }
+        return future;
+    }
+
+    /**
+     * Fetch ticking data from the given table on all engines. The table handler is called for updates from each engine
+     * separately, where the supplied table is tagged with the engine's origin. The returned future is done when the
+     * fetches for all engines are done.
+     *
+     * @param table the name of the table to fetch data from
+     * @param tableHandler a function used to process the results of the table
+     * @return a future containing metrics collected during the fetch
+     */
+    public Future<Metrics> fetchTickingData(String table, Function<ResultTable, Boolean> tableHandler) {
+        Metrics metrics = new Metrics("test-runner", "session." + table);
+        MetricsFuture future = new MetricsFuture(metrics);
+        var futures = new LinkedHashMap<String, Future<Metrics>>();
+        engines.forEach((addr, engine) -> {
+            futures.put(addr, engine.fetchTickingData(table, t -> {
+                synchronized (tableHandler) {
+                    return tableHandler.apply(merge(Map.of(addr, t)));
+                }
+            }));
+        });
+        waitExecutor.submit(() -> {
+            try {
+                var results = new LinkedHashMap<String, Metrics>();
+                for (var f : futures.entrySet()) {
+                    results.put(f.getKey(), f.getValue().get());
+                }
+                addEngineMetrics(metrics, results);
+            } catch (Exception ex) {
+                throw new RuntimeException("Failed to fetch ticking table data: " + table, ex);
+            } finally {
+                future.done();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Get the metrics supplied by each engine's connector, attached as related metrics with the origin of each engine
+     *
+     * @return metrics with no values of their own that hold each engine's metrics, or null if no connector supplies
+     *         metrics
+     */
+    public Metrics getMetrics() {
+        var engineMetrics = new LinkedHashMap<String, Metrics>();
+        engines.forEach((addr, engine) -> {
+            var m = engine.getMetrics();
+            if (m != null)
+                engineMetrics.put(addr, m);
+        });
+        if (engineMetrics.isEmpty())
+            return null;
+        var first = engineMetrics.values().iterator().next();
+        var metrics = new Metrics(first.origin(), first.category());
+        addEngineMetrics(metrics, engineMetrics);
+        return metrics;
+    }
+
+    /**
+     * Close all engine connectors. No exception is thrown if any of the closes fail.
+     */
+    public void close() {
+        engines.values().forEach(e -> {
+            try {
+                e.close();
+            } catch (Exception ex) {
+            }
+        });
+        executor.shutdownNow();
+        waitExecutor.shutdownNow();
+    }
+
+    /**
+     * Get the origin used to tag results from the engine at the given address
+     *
+     * @param baseOrigin the origin supplied by the engine's table or the default engine origin
+     * @param addr the host:port of the engine
+     * @return a unique origin for the engine
+     */
+    static String getOrigin(String baseOrigin, String addr) {
+        return baseOrigin + '@' + addr;
+    }
+
+    /**
+     * Merge the given tables into one, tagging each row with the origin of the engine it came from. All tables are
+     * expected to have the same columns. Column formatting is not carried over to the merged table.
+     *
+     * @param tables result tables keyed by engine address
+     * @return a single table with the rows of all given tables
+     */
+    static ResultTable merge(Map<String, ResultTable> tables) {
+        List<String> columns = null;
+        var rows = new ArrayList<List<Object>>();
+        for (var entry : tables.entrySet()) {
+            var table = entry.getValue();
+            var tableColumns = table.getColumnNames();
+            if (columns == null) {
+                columns = new ArrayList<>(tableColumns);
+                if (!columns.contains(originColumn))
+                    columns.add(originColumn);
+            }
+            for (int i = 0, n = table.getRowCount(); i < n; i++) {
+                var row = new ArrayList<Object>(columns.size());
+                for (String column : columns) {
+                    row.add(tableColumns.contains(column) ? table.getValue(i, column) : null);
+                }
+                var baseOrigin = tableColumns.contains(originColumn) ? table.getValue(i, originColumn) : engineOrigin;
+                row.set(columns.indexOf(originColumn), getOrigin(baseOrigin.toString(), entry.getKey()));
+                rows.add(row);
+            }
+        }
+        return new CachedResultTable((columns == null) ? List.of() : columns, rows);
+    }
+
+    private void addEngineMetrics(Metrics metrics, Map<String, Metrics> engineMetrics) {
+        engineMetrics.forEach((addr, m) -> {
+            if (m == null)
+                return;
+            var related = new Metrics(m.timestamp(), getOrigin(m.origin(), addr), m.category());
+            m.getNames().forEach(n -> related.set(n, m.getValue(n), m.getNote(n)));
+            metrics.addRelated(related);
+        });
+    }
+
+    private Map<String, Metrics> invokeAll(EngineTask task) {
+        var futures = new LinkedHashMap<String, Future<Metrics>>();
+        engines.forEach((addr, engine) -> futures.put(addr, executor.submit(() -> task.call(addr, engine))));
+        var results = new LinkedHashMap<String, Metrics>();
+        RuntimeException failure = null;
+        for (var f : futures.entrySet()) {
+            try {
+                results.put(f.getKey(), f.getValue().get());
+            } catch (Exception ex) {
+                var cause = (ex instanceof ExecutionException) ? ex.getCause() : ex;
+                if (failure == null)
+                    failure = new RuntimeException("Failed on engine: " + f.getKey(), cause);
+            }
+        }
+        if (failure != null)
+            throw failure;
+        return results;
+    }
+
+    static private Map<String, Connector> createEngines(Properties props) {
+        var addrs = props.getProperty("deephaven.addr", "localhost:10000");
+        var engines = new LinkedHashMap<String, Connector>();
+        try {
+            for (String addr : addrs.split(",")) {
+                addr = addr.trim();
+                if (addr.isEmpty() || engines.containsKey(addr))
+                    continue;
+                var engineProps = new Properties();
+                engineProps.putAll(props);
+                engineProps.setProperty("deephaven.addr", addr);
+                engines.put(addr, new BarrageConnector(engineProps));
+            }
+        } catch (Exception ex) {
+            engines.values().forEach(e -> e.close());
+            throw new RuntimeException("Failed to connect to engines: " + addrs, ex);
+        }
+        return engines;
+    }
+
+    interface EngineTask {
+        Metrics call(String addr, Connector engine) throws Exception;
+    }
+
+}
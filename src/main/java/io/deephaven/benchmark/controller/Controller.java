@@ -1,8 +1,8 @@
 /* Copyright (c) 2022-2023 Deephaven Data Labs and Patent Pending */
 package io.deephaven.benchmark.controller;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.util.*;
+import io.deephaven.benchmark.metric.Metrics;
 
 /**
  * Represents a mechanism that can manage the external service (e.g. Deephaven Engine) the benchmarks are running
@@ -90,4 +90,45 @@ public interface Controller {
      */
     public String getLog();
 
+    /**
+     * Get a snapshot of the resources used by each running service (e.g. CPU, memory, block I/O, network). Counters are
+     * cumulative since the service started, so snapshots taken before and after a test should be compared with
+     * <code>getMetricsDelta</code>. This is optional and may return an empty list.
+     * 
+     * @return metrics for each service in the "container" category, where origin is the service name
+     */
+    default public List<Metrics> getMetrics() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Get the difference between two snapshots taken with <code>getMetrics</code>. Memory metrics (names starting with
+     * <code>memory.</code>) are levels rather than counters, so they are taken from the after snapshot as-is. Services
+     * missing from the before snapshot are skipped.
+     * 
+     * @param before the snapshot taken before a test
+     * @param after the snapshot taken after a test
+     * @param notes optional notes for every metric (e.g. how many trials the snapshots span)
+     * @return metrics for each service that has both snapshots
+     */
+    static public List<Metrics> getMetricsDelta(List<Metrics> before, List<Metrics> after, String... notes) {
+        var deltas = new ArrayList<Metrics>();
+        for (Metrics a : after) {
+            var b = before.stream().filter(m -> m.origin().equals(a.origin())).findFirst().orElse(null);
+            if (b == null)
+                continue;
+            var delta = new Metrics(a.timestamp(), a.origin(), a.category());
+            for (String name : a.getNames()) {
+                var value = a.getValue(name);
+                var prev = b.getValue(name);
+                if (name.startsWith("memory.") || prev == null)
+                    delta.set(name, value, notes);
+                else
+                    delta.set(name, value.doubleValue() - prev.doubleValue(), notes);
+            }
+            deltas.add(delta);
+        }
+        return deltas;
+    }
+
 }
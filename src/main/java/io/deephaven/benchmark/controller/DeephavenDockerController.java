@@ -6,11 +6,8 @@ import java.net.URI;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import io.deephaven.benchmark.metric.Metrics;
 import io.deephaven.benchmark.util.Exec;
 import io.deephaven.benchmark.util.Strings;
 import io.deephaven.benchmark.util.Threads;
@@ -24,12 +21,19 @@ public class DeephavenDockerController implements Controller {
     final String composePropPath;
     final String httpHostPort;
     final Path workDir;
+    static final String statsScript = """
+        for f in /sys/fs/cgroup/cpu.stat /sys/fs/cgroup/memory.current /sys/fs/cgroup/memory.peak \\
+            /sys/fs/cgroup/io.stat /proc/net/dev; do
+            echo "== $f"; cat $f 2>/dev/null || true
+        done
+        """;
 
     /**
      * Make a Deephaven <code>Controller</code> instance for starting/stopping a local instance of Deephaven.
      * 
      * @param composePath the path to the <code>docker-compose.yml</code> file or null
-     * @param httpHostPort HTTP host and port for checking availability or null (ex deephaven.addr=localhost:10000)
+     * @param httpHostPort HTTP host and port for checking availability or null (ex deephaven.addr=localhost:10000).
+     *        Several comma-separated addresses can be given for compose files that start more than one engine
      */
     public DeephavenDockerController(String composePath, String httpHostPort) {
         this.composePropPath = (composePath == null) ? "" : composePath.trim();
@@ -54,7 +58,7 @@ public class DeephavenDockerController implements Controller {
         var availableServices = listAvailableServices(composePropPath);
         var services = Strings.startsWith(availableServices, servicePrefixes);
         exec(Strings.toArray("docker", "compose", "-f", composePropPath, "up", "-d", services));
-        if (services.contains("deephaven") || (services.isEmpty() && availableServices.contains("deephaven")))
+        if (isEngineStarted(services.isEmpty() ? availableServices : services))
             waitForEngineReady();
         System.out.println("Running Services after Start: " + listRunningServices(composePropPath));
         return true;
@@ -109,14 +113,52 @@ public class DeephavenDockerController implements Controller {
         return "";
     }
 
+    /**
+     * Get the cgroup (v2) resource usage of each running service from inside its container. This includes CPU usage and
+     * throttling from <code>cpu.stat</code>, current and peak memory, block I/O from <code>io.stat</code>, and network
+     * bytes from <code>/proc/net/dev</code>. Services that can't be read (e.g. no shell in the container) are skipped.
+     * <p>
+     * The cgroup <code>memory.peak</code> is the high-water mark since the container started, and newer kernels only
+     * reset it for reads through the same open file, so it can't be scoped to one test from separate
+     * <code>docker exec</code> calls. It is reported as <code>memory.peak.lifetime.bytes</code> to make that clear.
+     * 
+     * @return metrics for each running service in the "container" category
+     */
+    @Override
+    public List<Metrics> getMetrics() {
+        if (composePropPath.isBlank())
+            return Collections.emptyList();
+        var metrics = new ArrayList<Metrics>();
+        var containers = parseComposeContainers(exec("docker", "compose", "-f", composePropPath, "ps", "--format",
+                "{{.ID}} {{.Service}}"));
+        containers.forEach((id, service) -> {
+            try {
+                metrics.add(parseContainerStats(service, exec("docker", "exec", id, "sh", "-c", statsScript)));
+            } catch (Exception ex) {
+                System.out.println("Failed to get container stats for service: " + service);
+            }
+        });
+        return metrics;
+    }
+
+    // Engine services are named deephaven or start with it (ex. deephaven-a and deephaven-b for A/B comparison)
+    static boolean isEngineStarted(Collection<String> services) {
+        return services.stream().anyMatch(s -> s.startsWith("deephaven"));
+    }
+
     void waitForEngineReady() {
         long beginTime = System.currentTimeMillis();
+        var hostPorts = getHostPorts();
         while (System.currentTimeMillis() - beginTime < 20000) {
-            if (getUrlStatus("http://" + httpHostPort + "/ide/"))
+            if (hostPorts.stream().allMatch(hostPort -> getUrlStatus("http://" + hostPort + "/ide/")))
                 return;
             Threads.sleep(100);
         }
-        throw new RuntimeException("Timed out waiting for Deephaven Engine to start");
+        throw new RuntimeException("Timed out waiting for Deephaven Engine to start: " + httpHostPort);
+    }
+
+    List<String> getHostPorts() {
+        return Arrays.stream(httpHostPort.split(",")).map(s -> s.trim()).filter(s -> !s.isEmpty()).toList();
     }
 
     boolean getUrlStatus(String uri) {
@@ -181,6 +223,59 @@ public class DeephavenDockerController implements Controller {
         return new ContainerInfo(name, composeUri);
     }
 
+    Map<String, String> parseComposeContainers(String composePsStr) {
+        var containers = new LinkedHashMap<String, String>();
+        composePsStr.lines().map(s -> s.trim().split("\\s+")).filter(s -> s.length == 2)
+                .forEach(s -> containers.put(s[0], s[1]));
+        return containers;
+    }
+
+    Metrics parseContainerStats(String service, String statsStr) {
+        var metrics = new Metrics(service, "container");
+        var section = "";
+        long rxBytes = 0, txBytes = 0, readBytes = 0, writeBytes = 0;
+        for (String line : statsStr.lines().map(s -> s.trim()).filter(s -> !s.isBlank()).toList()) {
+            if (line.startsWith("== ")) {
+                section = line.substring(3).trim();
+                continue;
+            }
+            var fields = line.split("\\s+");
+            switch (section) {
+                case "/sys/fs/cgroup/cpu.stat" -> {
+                    switch (fields[0]) {
+                        case "usage_usec" -> metrics.set("cpu.usage.secs", Long.parseLong(fields[1]) / 1.0e6);
+                        case "nr_periods" -> metrics.set("cpu.periods", Long.parseLong(fields[1]));
+                        case "nr_throttled" -> metrics.set("cpu.throttled.periods", Long.parseLong(fields[1]));
+                        case "throttled_usec" -> metrics.set("cpu.throttled.secs", Long.parseLong(fields[1]) / 1.0e6);
+                    }
+                }
+                case "/sys/fs/cgroup/memory.current" -> metrics.set("memory.current.bytes", Long.parseLong(fields[0]));
+                case "/sys/fs/cgroup/memory.peak" -> metrics.set("memory.peak.lifetime.bytes",
+                        Long.parseLong(fields[0]));
+                case "/sys/fs/cgroup/io.stat" -> {
+                    for (String f : fields) {
+                        if (f.startsWith("rbytes="))
+                            readBytes += Long.parseLong(f.substring(7));
+                        if (f.startsWith("wbytes="))
+                            writeBytes += Long.parseLong(f.substring(7));
+                    }
+                }
+                case "/proc/net/dev" -> {
+                    if (!line.contains(":") || line.startsWith("lo:"))
+                        continue;
+                    var counts = line.substring(line.indexOf(':') + 1).trim().split("\\s+");
+                    rxBytes += Long.parseLong(counts[0]);
+                    txBytes += Long.parseLong(counts[8]);
+                }
+            }
+        }
+        metrics.set("block.read.bytes", readBytes);
+        metrics.set("block.write.bytes", writeBytes);
+        metrics.set("net.rx.bytes", rxBytes);
+        metrics.set("net.tx.bytes", txBytes);
+        return metrics;
+    }
+
     Set<String> parseServicesList(String servicesStr) {
         return new LinkedHashSet<String>(servicesStr.lines().map(s -> s.trim()).filter(s -> !s.isBlank()).toList());
     }
@@ -2,37 +2,329 @@
 package io.deephaven.benchmark.jfr;
 
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
 import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedObject;
 import jdk.jfr.consumer.RecordingFile;
+import io.deephaven.benchmark.connect.ResultTable;
+import io.deephaven.benchmark.metric.Metrics;
 
-class JfrReader {
-    final private URL url;
+/**
+ * Reads a Java Flight Recorder (JFR) file and summarizes it as metrics. Summaries include the hottest methods from
+ * execution samples, the top allocation sites, lock contention, and safepoint time. Method and class names are
+ * supplied in the metric notes.
+ * <p>
+ * Note: JFR recordings are usually taken on the engine during the measured operation (see
+ * <code>bench_api_jfr_start</code>) and transferred as a table of base64 chunks. Use <code>saveRecording</code> to
+ * write the recording to a file before reading it.
+ */
+public class JfrReader {
+    final private Path file;
+
+    /**
+     * Initialize the reader with a JFR file
+     *
+     * @param file the JFR file to read
+     */
+    public JfrReader(Path file) {
+        this.file = file;
+    }
 
     JfrReader(URL url) {
-        this.url = url;
+        this(toPath(url));
     }
 
-    Set<String> getEventNames() {
+    /**
+     * Get the names of all event types in the recording
+     *
+     * @return the event names
+     */
+    public Set<String> getEventNames() {
         Set<String> names = new HashSet<>();
-        try (var jfr = new RecordingFile(Path.of(url.toURI()))) {
+        try (var jfr = new RecordingFile(file)) {
             while (jfr.hasMoreEvents()) {
                 RecordedEvent event = jfr.readEvent();
                 names.add(event.getEventType().getName());
             }
             return names;
         } catch (Exception ex) {
-            throw new RuntimeException("Error reading Recording File: " + url, ex);
+            throw new RuntimeException("Error reading Recording File: " + file, ex);
         }
     }
 
-    // FlightRecorderMXBean flightRecorder = ManagementFactory.getPlatformMXBean(FlightRecorderMXBean.class);
-    // long recordingId = flightRecorder.newRecording();
-    // flightRecorder.startRecording(recordingId);
-    // // Perform some operations
-    // flightRecorder.stopRecording(recordingId);
+    /**
+     * Summarize the recording as metrics in the "jfr" category. Hot methods are given as percent of all execution
+     * samples, allocation sites in bytes, and lock and safepoint times in seconds.
+     * <p>
+     * ex. jfr.hot.method.01=12.5;io.deephaven.engine.table.impl.sort.LongSortKernel.sort
+     *
+     * @param origin the origin of the recording (ex. deephaven-engine)
+     * @param topCount the maximum number of hot methods, allocation sites and contended monitors to include
+     * @return the summarized metrics
+     */
+    public Metrics getMetrics(String origin, int topCount) {
+        var summary = new Summary();
+        try (var jfr = new RecordingFile(file)) {
+            while (jfr.hasMoreEvents()) {
+                summary.add(jfr.readEvent());
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException("Error reading Recording File: " + file, ex);
+        }
+        return summary.toMetrics(origin, topCount);
+    }
 
-}
+    /**
+     * Get the garbage collections in the recording in the order they started. Promoted bytes are only available for the
+     * G1 collector (from <code>jdk.G1EvacuationOldStatistics</code>) and are zero otherwise.
+     *
+     * @return the garbage collections
+     */
+    public List<GcEvent> getGcEvents() {
+        var collections = new TreeMap<Long, RecordedEvent>();
+        var promoted = new HashMap<Long, Long>();
+        try (var jfr = new RecordingFile(file)) {
+            while (jfr.hasMoreEvents()) {
+                var event = jfr.readEvent();
+                switch (event.getEventType().getName()) {
+                    case "jdk.GarbageCollection" -> collections.put(event.getLong("gcId"), event);
+                    case "jdk.G1EvacuationOldStatistics" -> {
+                        RecordedObject stats = event.getValue("statistics");
+                        promoted.merge(stats.getLong("gcId"), stats.getLong("used") + stats.getLong("directAllocated"),
+                                Long::sum);
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException("Error reading Recording File: " + file, ex);
+        }
+        return collections.entrySet().stream().map(e -> {
+            var event = e.getValue();
+            return new GcEvent(e.getKey(), event.getStartTime().toEpochMilli(), event.getString("name"),
+                    event.getString("cause"), event.getDuration("sumOfPauses"), event.getDuration("longestPause"),
+                    promoted.getOrDefault(e.getKey(), 0L));
+        }).toList();
+    }
+
+    /**
+     * Summarize the given garbage collections as metrics in the "gc" category. Pauses are counted in a histogram for
+     * each collector and cause with buckets <code>lt.1ms, lt.10ms, lt.100ms, lt.1s, ge.1s</code>. Only non-empty
+     * buckets are included.
+     * <p>
+     * ex. gc.g1new.g1.evacuation.pause.lt.10ms=12
+     *
+     * @param origin the origin of the recording (ex. deephaven-engine)
+     * @param events the garbage collections
+     * @return the summarized metrics
+     */
+    static public Metrics getGcMetrics(String origin, List<GcEvent> events) {
+        var metrics = new Metrics(origin, "gc");
+        var histogram = new TreeMap<String, Long>();
+        long maxPause = 0;
+        long totalPause = 0;
+        long promoted = 0;
+        for (GcEvent e : events) {
+            long pause = e.sumOfPauses().toNanos();
+            maxPause = Math.max(maxPause, e.longestPause().toNanos());
+            totalPause += pause;
+            promoted += e.promotedBytes();
+            histogram.merge(toName(e.collector()) + '.' + toName(e.cause()) + '.' + toBucket(pause), 1L, Long::sum);
+        }
+        metrics.set("pause.count", events.size());
+        metrics.set("pause.max.millis", maxPause / 1_000_000.0);
+        metrics.set("pause.total.millis", totalPause / 1_000_000.0);
+        metrics.set("promoted.bytes", promoted);
+        histogram.forEach((name, count) -> metrics.set(name, count));
+        return metrics;
+    }
+
+    static private String toName(String value) {
+        return value.toLowerCase().replaceAll("[^a-z0-9]+", ".").replaceAll("^[.]|[.]$", "");
+    }
+
+    static private String toBucket(long pauseNanos) {
+        if (pauseNanos < 1_000_000L)
+            return "lt.1ms";
+        if (pauseNanos < 10_000_000L)
+            return "lt.10ms";
+        if (pauseNanos < 100_000_000L)
+            return "lt.100ms";
+        if (pauseNanos < 1_000_000_000L)
+            return "lt.1s";
+        return "ge.1s";
+    }
+
+    /**
+     * Save a recording transferred as a table of base64-encoded chunks to the given file. The chunks are expected in
+     * row order in the <code>chunk</code> column.
+     *
+     * @param chunks the table of recording chunks
+     * @param file the file to write the recording to
+     * @return the given file
+     */
+    static public Path saveRecording(ResultTable chunks, Path file) {
+        var decoder = Base64.getDecoder();
+        try {
+            Files.createDirectories(file.getParent());
+            try (var out = Files.newOutputStream(file)) {
+                for (int i = 0, n = chunks.getRowCount(); i < n; i++) {
+                    out.write(decoder.decode(chunks.getValue(i, "chunk").toString()));
+                }
+            }
+            return file;
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to save recording: " + file, ex);
+        }
+    }
+
+    static private Path toPath(URL url) {
+        try {
+            return Path.of(url.toURI());
+        } catch (Exception ex) {
+            throw new RuntimeException("Bad Recording File URL: " + url, ex);
+        }
+    }
+
+    /**
+     * A single garbage collection taken from a recording
+     *
+     * @param gcId the id of the collection
+     * @param timestamp millis since epoch when the collection started
+     * @param collector the name of the collector (ex. G1New)
+     * @param cause the cause of the collection (ex. G1 Evacuation Pause)
+     * @param sumOfPauses the total time the application was paused
+     * @param longestPause the longest single pause
+     * @param promotedBytes bytes copied to the old generation
+     */
+    public record GcEvent(long gcId, long timestamp, String collector, String cause, Duration sumOfPauses,
+            Duration longestPause, long promotedBytes) {
+    }
+
+    static class Summary {
+        final Map<String, Long> methodSamples = new HashMap<>();
+        final Map<String, Long> allocSamples = new HashMap<>();
+        final Map<String, Long> tlabAllocs = new HashMap<>();
+        final Map<String, Duration> monitorWaits = new HashMap<>();
+        long executionSampleCount = 0;
+        long monitorEnterCount = 0;
+        Duration monitorEnterTime = Duration.ZERO;
+        long parkCount = 0;
+        Duration parkTime = Duration.ZERO;
+        long safepointCount = 0;
+        Duration safepointTime = Duration.ZERO;
+
+        void add(RecordedEvent event) {
+            switch (event.getEventType().getName()) {
+                case "jdk.ExecutionSample" -> {
+                    executionSampleCount++;
+                    var method = getTopMethod(event);
+                    if (method != null)
+                        methodSamples.merge(method, 1L, Long::sum);
+                }
+                case "jdk.ObjectAllocationSample" -> {
+                    allocSamples.merge(getAllocSite(event), event.getLong("weight"), Long::sum);
+                }
+                case "jdk.ObjectAllocationInNewTLAB" -> {
+                    tlabAllocs.merge(getAllocSite(event), event.getLong("tlabSize"), Long::sum);
+                }
+                case "jdk.ObjectAllocationOutsideTLAB" -> {
+                    tlabAllocs.merge(getAllocSite(event), event.getLong("allocationSize"), Long::sum);
+                }
+                case "jdk.JavaMonitorEnter" -> {
+                    monitorEnterCount++;
+                    monitorEnterTime = monitorEnterTime.plus(event.getDuration());
+                    var monitor = getClassName(event, "monitorClass");
+                    monitorWaits.merge(monitor, event.getDuration(), Duration::plus);
+                }
+                case "jdk.ThreadPark" -> {
+                    parkCount++;
+                    parkTime = parkTime.plus(event.getDuration());
+                }
+                case "jdk.SafepointBegin" -> {
+                    safepointCount++;
+                    safepointTime = safepointTime.plus(event.getDuration());
+                }
+            }
+        }
+
+        Metrics toMetrics(String origin, int topCount) {
+            var metrics = new Metrics(origin, "jfr");
+            metrics.set("execution.samples", executionSampleCount);
+            var hot = top(methodSamples, topCount, v -> v.doubleValue());
+            for (int i = 0; i < hot.size(); i++) {
+                var e = hot.get(i);
+                var percent = round(e.getValue() * 100.0 / Math.max(executionSampleCount, 1));
+                metrics.set("hot.method." + rank(i), percent, e.getKey());
+            }
+
+            var allocs = allocSamples.isEmpty() ? tlabAllocs : allocSamples;
+            metrics.set("alloc.bytes", allocs.values().stream().mapToLong(v -> v).sum());
+            var sites = top(allocs, topCount, v -> v.doubleValue());
+            for (int i = 0; i < sites.size(); i++) {
+                var e = sites.get(i);
+                metrics.set("alloc.site." + rank(i), e.getValue(), e.getKey().split(" ", 2));
+            }
+
+            metrics.set("lock.enter.count", monitorEnterCount);
+            metrics.set("lock.enter.secs", toSecs(monitorEnterTime));
+            var monitors = top(monitorWaits, topCount, v -> (double) v.toNanos());
+            for (int i = 0; i < monitors.size(); i++) {
+                var e = monitors.get(i);
+                metrics.set("lock.monitor." + rank(i), toSecs(e.getValue()), e.getKey());
+            }
+            metrics.set("lock.park.count", parkCount);
+            metrics.set("lock.park.secs", toSecs(parkTime));
+            metrics.set("safepoint.count", safepointCount);
+            metrics.set("safepoint.secs", toSecs(safepointTime));
+            return metrics;
+        }
+
+        private <T> List<Map.Entry<String, T>> top(Map<String, T> values, int count, Function<T, Double> toNum) {
+            return values.entrySet().stream()
+                    .sorted(Comparator.comparing((Map.Entry<String, T> e) -> toNum.apply(e.getValue())).reversed()
+                            .thenComparing(e -> e.getKey()))
+                    .limit(count).toList();
+        }
+
+        private String getTopMethod(RecordedEvent event) {
+            var stack = event.getStackTrace();
+            if (stack == null)
+                return null;
+            return stack.getFrames().stream().filter(f -> f.isJavaFrame()).findFirst().map(f -> toMethod(f))
+                    .orElse(null);
+        }
+
+        private String getAllocSite(RecordedEvent event) {
+            var method = getTopMethod(event);
+            return ((method == null) ? "unknown" : method) + ' ' + getClassName(event, "objectClass");
+        }
+
+        private String getClassName(RecordedEvent event, String field) {
+            var recordedClass = event.getClass(field);
+            return (recordedClass == null) ? "unknown" : recordedClass.getName();
+        }
+
+        private String toMethod(RecordedFrame frame) {
+            var method = frame.getMethod();
+            return method.getType().getName() + '.' + method.getName();
+        }
 
+        private String rank(int index) {
+            return String.format("%02d", index + 1);
+        }
+
+        private double toSecs(Duration duration) {
+            return duration.toNanos() / 1_000_000_000.0;
+        }
+
+        private double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+
+}
@@ -10,6 +10,7 @@ import java.util.*;
  */
 public class Metrics {
     final Map<String, Metric> metrics = new TreeMap<>();
+    final List<Metrics> related = new ArrayList<>();
     final long timestamp;
     final String origin;
     final String category;
@@ -98,6 +99,46 @@ public class Metrics {
         return timestamp;
     }
 
+    /**
+     * Get the origin for this set of metrics
+     * 
+     * @return the origin
+     */
+    public String origin() {
+        return origin;
+    }
+
+    /**
+     * Get the category for this set of metrics
+     * 
+     * @return the category
+     */
+    public String category() {
+        return category;
+    }
+
+    /**
+     * Attach metrics from another origin that were collected by the same task (ex. one set for each engine in a fan-out
+     * fetch). Related metrics are kept separate, so metrics with the same name from different origins don't overwrite
+     * each other.
+     * 
+     * @param m the metrics to attach
+     * @return this instance
+     */
+    public Metrics addRelated(Metrics m) {
+        related.add(m);
+        return this;
+    }
+
+    /**
+     * Get the metrics attached with <code>addRelated</code>
+     * 
+     * @return the related metrics
+     */
+    public List<Metrics> getRelated() {
+        return Collections.unmodifiableList(related);
+    }
+
     /**
      * Get the metric names contained in this set
      * 
@@ -3,6 +3,8 @@ package io.deephaven.benchmark.run;
 
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.platform.console.ConsoleLauncher;
 import io.deephaven.benchmark.api.Bench;
 
@@ -15,7 +17,11 @@ import io.deephaven.benchmark.api.Bench;
  * <p>
  * In addition to running benchmark tests using the console launcher, this class creates a
  * <code>benchmark-summary-results.csv</code> that is a merge of any per-run results files that match
- * <code>results/run-[A-za-z0-9]+/benchmark-results.csv</code> relative to the working directory
+ * <code>results/run-[A-za-z0-9]+/benchmark-results.csv</code> relative to the working directory. Only runs not yet
+ * listed in the summary's manifest are merged on each launch.
+ * <p>
+ * When <code>schedule.time.budget</code> is set, the trial count of each benchmark is assigned from the local result
+ * history before the tests run (See {@link SuiteScheduler}).
  */
 public class BenchmarkMain {
     /**
@@ -32,13 +38,24 @@ public class BenchmarkMain {
         setSystemProperties();
         if (args.length > 0 && args[0].equals("publish"))
             return publish(Bench.rootOutputDir);
+        if (args.length > 0 && args[0].equals("mirror"))
+            return mirror(Arrays.asList(args).subList(1, args.length));
+        if (args.length > 0 && args[0].equals("analyze"))
+            return analyze((args.length > 1) ? Path.of(args[1]) : Bench.rootOutputDir, Bench.rootOutputDir);
+        if (args.length > 0 && args[0].equals("bisect"))
+            return bisect(Arrays.asList(args).subList(1, args.length));
 
+        schedule(Bench.rootOutputDir);
         args = ConsoleLauncherUtil.formatConsoleWildcards(args);
         int exitCode = ConsoleLauncher.execute(System.out, System.err, args).getExitCode();
         if (exitCode == 0) {
             Path d = Bench.rootOutputDir;
-            URL platformCsv = new ResultSummary(d, "platform-summary-results.csv", Bench.platformFileName).summarize();
-            URL benchmarkCsv = new ResultSummary(d, "benchmark-summary-results.csv", Bench.resultFileName).summarize();
+            var columnarFormat = Bench.profileProperty("result.columnar.format", "none").trim();
+            boolean isColumnar = columnarFormat.equalsIgnoreCase("arrow");
+            URL platformCsv = new ResultSummary(d, "platform-summary-results.csv", Bench.platformFileName, isColumnar)
+                    .summarize();
+            URL benchmarkCsv = new ResultSummary(d, "benchmark-summary-results.csv", Bench.resultFileName, isColumnar)
+                    .summarize();
             toSummarySvg(platformCsv, benchmarkCsv, "standard", d, "nightly");
             toSummarySvg(platformCsv, benchmarkCsv, "standard", d, "release");
             toSummarySvg(platformCsv, benchmarkCsv, "standard", d, "adhoc");
@@ -60,6 +77,43 @@ public class BenchmarkMain {
         return 0;
     }
 
+    static int mirror(List<String> categories) {
+        URL functions = resource("profile/queries/dashboards/benchmark_functions.dh.py");
+        URL query = resource("profile/queries/mirror.py");
+        return (new StorageMirror(functions, query).sync(categories) > 0) ? 1 : 0;
+    }
+
+    static int analyze(Path historyDir, Path outputDir) {
+        URL svgTemplate = resource("profile/regression-report.template.svg");
+        new RegressionAnalysis(historyDir, svgTemplate, outputDir).analyze();
+        return 0;
+    }
+
+    // bisect <selector> <good-tag> <bad-tag> [intermediate-tags...] [-- console-launcher-args...]
+    static int bisect(List<String> args) {
+        int split = args.indexOf("--");
+        var tagArgs = (split < 0) ? args : args.subList(0, split);
+        var launcherArgs = (split < 0) ? List.<String>of() : args.subList(split + 1, args.size());
+        if (tagArgs.size() < 3)
+            throw new RuntimeException("Usage: bisect <selector> <good-tag> <bad-tag> [other-tags...] [-- args]");
+        var intermediateTags = tagArgs.subList(3, tagArgs.size());
+        var bisect = new VersionBisect(tagArgs.get(0), tagArgs.get(1), tagArgs.get(2), intermediateTags, launcherArgs,
+                Bench.rootOutputDir);
+        return (bisect.bisect().benchmark() == null) ? 1 : 0;
+    }
+
+    // Assign trial counts from the local history when a suite time budget is given
+    static void schedule(Path outputDir) {
+        if (Bench.profileProperty("schedule.time.budget", "").isBlank())
+            return;
+        var budget = Bench.profilePropertyAsDuration("schedule.time.budget", "0 minutes");
+        long maxTrials = Long.parseLong(Bench.profileProperty("schedule.max.trials", "20"));
+        int historyCount = Integer.parseInt(Bench.profileProperty("schedule.history.count", "10"));
+        var scheduleFile = outputDir.resolve("benchmark-schedule.csv");
+        new SuiteScheduler(outputDir, budget, maxTrials, historyCount).schedule(scheduleFile);
+        System.setProperty("schedule.file", scheduleFile.toAbsolutePath().toString());
+    }
+
     static URL resource(String name) {
         return BenchmarkMain.class.getResource(name);
     }
@@ -0,0 +1,286 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.run;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+import io.deephaven.benchmark.api.Bench;
+import io.deephaven.benchmark.util.Filer;
+import io.deephaven.benchmark.util.Ids;
+import io.deephaven.benchmark.util.Numbers;
+import io.deephaven.benchmark.util.RunHistory;
+import io.deephaven.benchmark.util.Statistics;
+
+/**
+ * Find the benchmarks whose rates truly moved in the run history and write them to a ranked regression report
+ * (<code>regression-report.csv</code> and <code>regression-report.svg</code>). The history is any directory containing
+ * run directories with a <code>benchmark-results.csv</code>. Runs laid out like the published storage (ex.
+ * <code>release/deephaven/v0.36.1/run-1856590b0c0</code>) get their category and set label from the path. Runs directly
+ * under the directory (ex. <code>results/run-1856590b0c0</code>) are in the "local" category.
+ * <p>
+ * Two analyses are made for each benchmark and origin:
+ * <ul>
+ * <li>release: The <code>op_rate</code> of the runs in the newest release set are compared to those of the previous
+ * release set with a Mann-Whitney test</li>
+ * <li>nightly (or local): The most likely point where the series of run rates shifts is found, and the runs before are
+ * compared to the runs after. Since the point is chosen to fit the series, its p-value comes from a permutation test of
+ * the best split over shuffled series rather than a test of the two sides.</li>
+ * </ul>
+ * The p-values of all analyzed benchmarks are adjusted together for the false discovery rate (Benjamini-Hochberg). A
+ * benchmark has moved when its adjusted p-value (<code>q_value</code>) is at most <code>analyze.alpha</code>, the
+ * change in median rate is at least <code>analyze.min.change</code>, and the bootstrap 95% confidence interval of the
+ * change excludes zero. Each run contributes one rate, so a set or series segment needs about six runs before any
+ * change can be significant.
+ */
+class RegressionAnalysis {
+    static final List<String> reportHeader = List.of("rank", "analysis", "benchmark_name", "origin", "baseline",
+            "candidate", "baseline_rate", "candidate_rate", "change", "change_ci_low", "change_ci_high", "p_value",
+            "q_value", "direction");
+    static final List<String> seriesCategories = List.of("nightly", "local");
+    static final String rowIndent = " ".repeat(10);
+    static final int svgRowLimit = 20;
+    final Path historyDir;
+    final URL svgTemplate;
+    final Path outputDir;
+    double alpha = Double.parseDouble(Bench.profileProperty("analyze.alpha", "0.05"));
+    double minChange = Double.parseDouble(Bench.profileProperty("analyze.min.change", "0.05"));
+    int resamples = Integer.parseInt(Bench.profileProperty("analyze.bootstrap.count", "1000"));
+    int minSegment = Integer.parseInt(Bench.profileProperty("analyze.min.segment", "4"));
+
+    /**
+     * Configure the analysis of the given run history
+     *
+     * @param historyDir the directory containing the runs to analyze
+     * @param svgTemplate the template for the SVG report
+     * @param outputDir the directory where the reports are written
+     */
+    RegressionAnalysis(Path historyDir, URL svgTemplate, Path outputDir) {
+        this.historyDir = historyDir;
+        this.svgTemplate = svgTemplate;
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * Analyze the run history and write the CSV and SVG reports of the benchmarks that moved
+     *
+     * @return the benchmarks that moved ranked with the worst regressions first
+     */
+    List<Regression> analyze() {
+        if (!Files.exists(historyDir)) {
+            System.out.println("Skipping analysis because of missing history directory: " + historyDir);
+            return List.of();
+        }
+        var runs = readRuns(historyDir);
+        var analyzed = new ArrayList<Regression>();
+        analyzed.addAll(analyzeRelease(runs));
+        for (String category : seriesCategories) {
+            analyzed.addAll(analyzeSeries(category, runs));
+        }
+        var moved = rank(adjust(analyzed).stream().filter(r -> isMoved(r)).toList());
+        try {
+            Files.createDirectories(outputDir);
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to create report directory: " + outputDir, ex);
+        }
+        Filer.putFileText(outputDir.resolve("regression-report.csv"), toCsv(moved));
+        var note = "history=" + historyDir.getFileName() + " runs=" + runs.size() + " analyzed=" + analyzed.size()
+                + " moved=" + moved.size() + " alpha=" + alpha + " min-change=" + formatPercent(minChange);
+        Filer.putFileText(outputDir.resolve("regression-report.svg"), toSvg(moved, note));
+        System.out.println("-- Analyzed " + analyzed.size() + " benchmarks and found " + moved.size() + " moved --");
+        return moved;
+    }
+
+    List<Regression> analyzeRelease(List<Run> runs) {
+        var sets = new LinkedHashMap<String, List<Run>>();
+        runs.stream().filter(r -> r.category().equals("release"))
+                .forEach(r -> sets.computeIfAbsent(r.setLabel(), s -> new ArrayList<>()).add(r));
+        if (sets.size() < 2)
+            return List.of();
+        var labels = new ArrayList<>(sets.keySet());
+        var baselineLabel = labels.get(labels.size() - 2);
+        var candidateLabel = labels.get(labels.size() - 1);
+        var baseline = sets.get(baselineLabel);
+        var candidate = sets.get(candidateLabel);
+        var regressions = new ArrayList<Regression>();
+        for (Key key : getKeys(candidate)) {
+            var base = getRates(baseline, key);
+            var cand = getRates(candidate, key);
+            var pValue = Statistics.mannWhitneyPValue(base, cand);
+            var r = compare("release", key, baselineLabel, candidateLabel, base, cand, pValue);
+            if (r != null)
+                regressions.add(r);
+        }
+        return regressions;
+    }
+
+    List<Regression> analyzeSeries(String category, List<Run> runs) {
+        var categoryRuns = runs.stream().filter(r -> r.category().equals(category)).toList();
+        var regressions = new ArrayList<Regression>();
+        for (Key key : getKeys(categoryRuns)) {
+            var keyRuns = categoryRuns.stream().filter(r -> r.rates().containsKey(key)).toList();
+            var series = keyRuns.stream().mapToDouble(r -> Statistics.median(getRates(List.of(r), key))).toArray();
+            int k = Statistics.changePoint(series, minSegment);
+            if (k < 0)
+                continue;
+            var base = Arrays.copyOfRange(series, 0, k);
+            var cand = Arrays.copyOfRange(series, k, series.length);
+            var pValue = Statistics.changePointPValue(series, minSegment, resamples, Ids.hash64(key.toString()));
+            var r = compare(category, key, keyRuns.get(k - 1).runId(), keyRuns.get(k).runId(), base, cand, pValue);
+            if (r != null)
+                regressions.add(r);
+        }
+        return regressions;
+    }
+
+    Regression compare(String analysis, Key key, String baseline, String candidate, double[] base, double[] cand,
+            double pValue) {
+        if (base.length == 0 || cand.length == 0)
+            return null;
+        double baseRate = Statistics.median(base);
+        double candRate = Statistics.median(cand);
+        if (baseRate == 0)
+            return null;
+        double change = (candRate - baseRate) / baseRate;
+        var ci = Statistics.bootstrapChangeInterval(base, cand, resamples, Ids.hash64(key.toString()));
+        return new Regression(analysis, key, baseline, candidate, baseRate, candRate, change, ci[0], ci[1], pValue,
+                pValue);
+    }
+
+    List<Regression> adjust(List<Regression> regressions) {
+        var qValues = Statistics.benjaminiHochberg(regressions.stream().mapToDouble(r -> r.pValue()).toArray());
+        var adjusted = new ArrayList<Regression>(regressions.size());
+        for (int i = 0, n = regressions.size(); i < n; i++) {
+            var r = regressions.get(i);
+            adjusted.add(new Regression(r.analysis(), r.key(), r.baseline(), r.candidate(), r.baselineRate(),
+                    r.candidateRate(), r.change(), r.changeCiLow(), r.changeCiHigh(), r.pValue(), qValues[i]));
+        }
+        return adjusted;
+    }
+
+    boolean isMoved(Regression r) {
+        boolean isCiClear = r.changeCiLow() > 0 || r.changeCiHigh() < 0;
+        return r.qValue() <= alpha && Math.abs(r.change()) >= minChange && isCiClear;
+    }
+
+    List<Regression> rank(List<Regression> regressions) {
+        var ranked = new ArrayList<>(regressions);
+        ranked.sort(Comparator.comparing((Regression r) -> r.change() >= 0)
+                .thenComparing(r -> -Math.abs(r.change())));
+        return ranked;
+    }
+
+    List<Run> readRuns(Path historyDir) {
+        try (var files = Files.walk(historyDir, 5)) {
+            var resultFiles = files.filter(f -> f.getFileName().toString().equals(Bench.resultFileName))
+                    .filter(f -> Ids.isRunId(f.getParent().getFileName())).toList();
+            var runs = new ArrayList<Run>();
+            for (Path resultFile : resultFiles) {
+                runs.add(readRun(historyDir, resultFile));
+            }
+            runs.sort(Comparator.comparing(r -> r.runId()));
+            return runs;
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to read run history: " + historyDir, ex);
+        }
+    }
+
+    Run readRun(Path historyDir, Path resultFile) throws Exception {
+        var runDir = historyDir.relativize(resultFile.getParent());
+        int n = runDir.getNameCount();
+        var runId = runDir.getName(n - 1).toString();
+        var category = (n >= 4) ? runDir.getName(n - 4).toString() : "local";
+        var setLabel = (n >= 4) ? runDir.getName(n - 2).toString() : runId;
+        var rates = new LinkedHashMap<Key, List<Double>>();
+        for (var row : RunHistory.readRows(resultFile, "benchmark_name", "origin", "op_rate")) {
+            var rate = row.getOrDefault("op_rate", "");
+            if (rate.isBlank())
+                continue;
+            var key = new Key(row.get("benchmark_name"), row.get("origin"));
+            rates.computeIfAbsent(key, k -> new ArrayList<>()).add(Numbers.parseNumber(rate).doubleValue());
+        }
+        return new Run(category, setLabel, runId, rates);
+    }
+
+    Set<Key> getKeys(List<Run> runs) {
+        var keys = new LinkedHashSet<Key>();
+        runs.forEach(r -> keys.addAll(r.rates().keySet()));
+        return keys;
+    }
+
+    double[] getRates(List<Run> runs, Key key) {
+        return runs.stream().flatMap(r -> r.rates().getOrDefault(key, List.of()).stream())
+                .mapToDouble(d -> d).toArray();
+    }
+
+    String toCsv(List<Regression> regressions) {
+        var csv = new StringBuilder(String.join(",", reportHeader)).append('\n');
+        for (int i = 0, n = regressions.size(); i < n; i++) {
+            var r = regressions.get(i);
+            var values = List.<Object>of(i + 1, r.analysis(), r.key().benchmark(), r.key().origin(), r.baseline(),
+                    r.candidate(), format(r.baselineRate()), format(r.candidateRate()), format(r.change()),
+                    format(r.changeCiLow()), format(r.changeCiHigh()), format(r.pValue()), format(r.qValue()),
+                    r.direction());
+            csv.append(values.stream().map(v -> v.toString()).collect(Collectors.joining(","))).append('\n');
+        }
+        return csv.toString();
+    }
+
+    String toSvg(List<Regression> regressions, String note) {
+        var rows = new ArrayList<String>();
+        for (Regression r : regressions.subList(0, Math.min(regressions.size(), svgRowLimit))) {
+            var ci = formatPercent(r.changeCiLow()) + " to " + formatPercent(r.changeCiHigh());
+            var baseRate = Numbers.formatNumber(r.baselineRate());
+            var candRate = Numbers.formatNumber(r.candidateRate());
+            rows.add(getRow("td", r.key().benchmark(), r.analysis(), formatPercent(r.change()), ci,
+                    format(r.qValue()), baseRate, candRate));
+        }
+        if (regressions.size() > svgRowLimit)
+            note += " (top " + svgRowLimit + " shown)";
+        var s = Filer.getURLText(svgTemplate);
+        s = s.replace("${svg_height}", "" + (80 + 16 * rows.size()));
+        s = s.replace("${run_date}", DateTimeFormatter.ofPattern("yyyy-MM-dd").format(LocalDateTime.now()));
+        s = s.replace("${HEADER}", getRow("th", "Benchmark", "Analysis", "Change", "Change CI", "Q-Value",
+                "Baseline Rate", "Candidate Rate"));
+        s = s.replace("${ROWS}", String.join("\n" + rowIndent, rows));
+        return s.replace("${report_note}", escape(note));
+    }
+
+    String getRow(String colMarkupElem, Object... values) {
+        var str = "<tr>";
+        for (Object value : values) {
+            str += "<" + colMarkupElem + '>' + escape(value.toString()) + "</" + colMarkupElem + '>';
+        }
+        return str += "</tr>";
+    }
+
+    static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    static String format(double value) {
+        return String.format("%.4f", value);
+    }
+
+    static String formatPercent(double value) {
+        return String.format("%+.1f%%", value * 100);
+    }
+
+    record Key(String benchmark, String origin) {
+    }
+
+    record Run(String category, String setLabel, String runId, Map<Key, List<Double>> rates) {
+    }
+
+    record Regression(String analysis, Key key, String baseline, String candidate, double baselineRate,
+            double candidateRate, double change, double changeCiLow, double changeCiHigh, double pValue,
+            double qValue) {
+        String direction() {
+            return (change < 0) ? "regression" : "improvement";
+        }
+    }
+
+}
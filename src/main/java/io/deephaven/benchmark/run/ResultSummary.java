@@ -1,27 +1,55 @@
 /* Copyright (c) 2022-2023 Deephaven Data Labs and Patent Pending */
 package io.deephaven.benchmark.run;
 
+import static java.nio.file.StandardCopyOption.*;
 import static java.nio.file.StandardOpenOption.*;
 import java.io.BufferedWriter;
 import java.net.URL;
 import java.nio.file.Files;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
-import io.deephaven.benchmark.util.Ids;
+import java.util.*;
+import io.deephaven.benchmark.api.ArrowTableWriter;
+import io.deephaven.benchmark.api.Bench;
+import io.deephaven.benchmark.util.RunHistory;
 
+/**
+ * Merges the result files of each run (e.g. <code>results/run-1856590b0c0/benchmark-results.csv</code>) into one
+ * summary csv where each row is prefixed with the run id. The summary is append-only. A manifest file next to the
+ * summary (e.g. <code>benchmark-summary-results.csv.manifest</code>) lists the run ids already merged, so only new runs
+ * are read and appended on each launch. If the summary or manifest is missing, the summary is rebuilt from all runs.
+ * <p>
+ * The manifest vouches for the summary, so it is removed while the summary is written and replaced only after the
+ * summary is closed. A launch that fails part way leaves no manifest, and the next launch rebuilds the summary rather
+ * than appending runs twice. A rebuilt summary is written to a temporary file and moved into place.
+ * <p>
+ * Runs may have different result columns as columns are added over time. Each row is written under the summary's
+ * columns by name, leaving blanks for columns a run does not have. When a new run has columns the summary lacks, the
+ * summary is rebuilt from all runs with the combined columns.
+ * <p>
+ * Optionally, a compacted columnar form of the summary is written as an Arrow IPC stream (e.g.
+ * <code>benchmark-summary-results.arrows</code>) for dashboards to load directly. Rows of new runs are appended to it
+ * as record batches. It is rewritten only when the summary is rebuilt or the existing stream cannot be appended to.
+ */
 class ResultSummary {
     static final String headerPrefix = "run-id";
+    static final int columnarBatchSize = 100000;
     final Path rootDir;
     final Path summaryFile;
+    final Path manifestFile;
     final String runResultFileName;
+    final boolean isColumnar;
 
     ResultSummary(Path rootDir, String summaryFileName, String runResultFileName) {
+        this(rootDir, summaryFileName, runResultFileName, false);
+    }
+
+    ResultSummary(Path rootDir, String summaryFileName, String runResultFileName, boolean isColumnar) {
         this.rootDir = rootDir;
         this.summaryFile = getSummaryFile(rootDir, summaryFileName);
+        this.manifestFile = summaryFile.resolveSibling(summaryFileName + ".manifest");
         this.runResultFileName = runResultFileName;
+        this.isColumnar = isColumnar;
     }
 
     URL summarize() {
@@ -29,24 +57,57 @@ class ResultSummary {
             System.out.println("Skipping summary because of missing output directory: " + rootDir);
             return null;
         }
-        try (BufferedWriter out = Files.newBufferedWriter(summaryFile, CREATE, WRITE, TRUNCATE_EXISTING)) {
-            boolean isHeaderWritten = false;
-            for (Path resultFile : getResultFiles(rootDir)) {
-                String runId = resultFile.getParent().getFileName().toString();
-                List<String> lines = Files.lines(resultFile).toList();
-                for (int i = 0, n = lines.size(); i < n; i++) {
-                    if (!isHeaderWritten)
-                        isHeaderWritten = writeSummaryHeader(lines.get(i), out);
-                    else if (i == 0)
-                        continue;
-                    else
-                        writeSummaryLine(runId, lines.get(i), out);
-                } ;
+        boolean isRebuild = !Files.exists(summaryFile) || !Files.exists(manifestFile);
+        var mergedRunIds = isRebuild ? Set.<String>of() : readManifest();
+        var columns = isRebuild ? List.<String>of() : readColumns(summaryFile, true);
+        var resultFiles = getResultFiles(rootDir).stream().filter(f -> !mergedRunIds.contains(getRunId(f))).toList();
+        if (!isRebuild && !resultFiles.stream().allMatch(f -> columns.containsAll(readColumns(f, false)))) {
+            System.out.println("Rebuilding summary for new result columns: " + summaryFile);
+            isRebuild = true;
+            resultFiles = getResultFiles(rootDir);
+        }
+        var summaryColumns = isRebuild ? getCombinedColumns(resultFiles) : columns;
+        var newRows = new ArrayList<List<Object>>();
+        var runIds = new LinkedHashSet<String>(mergedRunIds);
+        var outFile = isRebuild ? getTempFile(summaryFile) : summaryFile;
+        OpenOption[] options = isRebuild ? new OpenOption[] {CREATE, WRITE, TRUNCATE_EXISTING}
+                : new OpenOption[] {CREATE, APPEND};
+        try {
+            Files.deleteIfExists(manifestFile);
+            try (BufferedWriter out = Files.newBufferedWriter(outFile, options)) {
+                if (isRebuild && !summaryColumns.isEmpty())
+                    writeSummaryHeader(String.join(",", summaryColumns), out);
+                for (Path resultFile : resultFiles) {
+                    String runId = getRunId(resultFile);
+                    List<String> lines = Files.lines(resultFile).toList();
+                    var fileColumns = lines.isEmpty() ? List.<String>of() : List.of(lines.get(0).split(",", -1));
+                    for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+                        if (line.isBlank())
+                            continue;
+                        var values = getSummaryValues(summaryColumns, fileColumns, line.split(",", -1));
+                        writeSummaryLine(runId, String.join(",", values), out);
+                        if (!isRebuild)
+                            newRows.add(getColumnarRow(runId, values));
+                    }
+                    runIds.add(runId);
+                }
             }
-            return summaryFile.toUri().toURL();
+            if (isRebuild)
+                Files.move(outFile, summaryFile, REPLACE_EXISTING, ATOMIC_MOVE);
+            writeManifest(runIds);
         } catch (Exception ex) {
             throw new RuntimeException("Failed to write summary results: " + summaryFile, ex);
         }
+        Path columnarFile = getColumnarFile(summaryFile);
+        if (isColumnar && (isRebuild || !Files.exists(columnarFile)))
+            writeColumnar(summaryFile, columnarFile);
+        else if (isColumnar && !newRows.isEmpty())
+            appendColumnar(summaryColumns, newRows, columnarFile);
+        try {
+            return summaryFile.toUri().toURL();
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to get summary results URL: " + summaryFile, ex);
+        }
     }
 
     boolean writeSummaryHeader(String header, BufferedWriter out) throws Exception {
@@ -61,25 +122,128 @@ class ResultSummary {
         out.newLine();
     }
 
+    /**
+     * Get the values of a result row in the order of the summary columns. Summary columns missing from the result file
+     * or the row are blank.
+     *
+     * @param summaryColumns the result columns of the summary (without the run id)
+     * @param fileColumns the columns of the result file header
+     * @param values the values of a result file row
+     * @return the values for the summary columns
+     */
+    static List<String> getSummaryValues(List<String> summaryColumns, List<String> fileColumns, String[] values) {
+        if (summaryColumns.equals(fileColumns) && values.length == fileColumns.size())
+            return List.of(values);
+        return summaryColumns.stream().map(c -> {
+            int i = fileColumns.indexOf(c);
+            return (i >= 0 && i < values.length) ? values[i] : "";
+        }).toList();
+    }
+
+    /**
+     * Combine the header columns of the given result files in order of first appearance
+     *
+     * @param resultFiles the result files to read headers from
+     * @return the combined result columns
+     */
+    List<String> getCombinedColumns(List<Path> resultFiles) {
+        var columns = new LinkedHashSet<String>();
+        resultFiles.forEach(f -> columns.addAll(readColumns(f, false)));
+        return new ArrayList<>(columns);
+    }
+
+    static List<String> readColumns(Path csvFile, boolean isSummary) {
+        try (var lines = Files.lines(csvFile)) {
+            var header = lines.findFirst().orElse("");
+            if (header.isBlank())
+                return List.of();
+            var columns = List.of(header.split(",", -1));
+            return isSummary ? columns.subList(1, columns.size()) : columns;
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to read header: " + csvFile, ex);
+        }
+    }
+
     List<Path> getResultFiles(Path rootDir) {
+        return RunHistory.getResultFiles(rootDir, runResultFileName);
+    }
+
+    Set<String> readManifest() {
         try {
-            List<Path> resultFiles = new ArrayList<>();
-            Files.newDirectoryStream(rootDir).forEach(d -> {
-                if (!Ids.isRunId(d.getFileName()))
-                    return;
-                if (!Files.isDirectory(d))
-                    return;
-                Path resultFile = d.resolve(runResultFileName);
-                if (Files.exists(resultFile))
-                    resultFiles.add(resultFile);
-            });
-            Collections.sort(resultFiles, new FileNameComparator());
-            return resultFiles;
+            return new LinkedHashSet<>(Files.readAllLines(manifestFile).stream().map(l -> l.trim()).toList());
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to read summary manifest: " + manifestFile, ex);
+        }
+    }
+
+    /**
+     * Write the manifest to a temporary file and move it into place, so the manifest is either whole or missing
+     * 
+     * @param runIds the run ids that are in the summary
+     */
+    void writeManifest(Collection<String> runIds) throws Exception {
+        var tempFile = getTempFile(manifestFile);
+        Files.write(tempFile, runIds);
+        Files.move(tempFile, manifestFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    void writeColumnar(Path csvFile, Path columnarFile) {
+        try (var lines = Files.lines(csvFile)) {
+            var it = lines.iterator();
+            if (!it.hasNext())
+                return;
+            var columns = List.of(it.next().split(",", -1));
+            var types = Bench.getColumnTypes(runResultFileName, columns);
+            try (var writer = new ArrowTableWriter(columnarFile, columns, types)) {
+                var batch = new ArrayList<List<Object>>();
+                while (it.hasNext()) {
+                    batch.add(List.of((Object[]) it.next().split(",", -1)));
+                    if (batch.size() >= columnarBatchSize || !it.hasNext()) {
+                        writer.write(batch);
+                        batch.clear();
+                    }
+                }
+            }
         } catch (Exception ex) {
-            throw new RuntimeException("Failed to get result files from root directory: " + rootDir);
+            throw new RuntimeException("Failed to write columnar summary: " + columnarFile, ex);
         }
     }
 
+    void appendColumnar(List<String> summaryColumns, List<List<Object>> rows, Path columnarFile) {
+        var columns = new ArrayList<String>();
+        columns.add(headerPrefix);
+        columns.addAll(summaryColumns);
+        var types = Bench.getColumnTypes(runResultFileName, columns);
+        try (var writer = new ArrowTableWriter(columnarFile, columns, types, true)) {
+            for (int i = 0, n = rows.size(); i < n; i += columnarBatchSize) {
+                writer.write(rows.subList(i, Math.min(n, i + columnarBatchSize)));
+            }
+        } catch (Exception ex) {
+            System.out.println("Rewriting columnar summary that could not be appended: " + ex.getMessage());
+            writeColumnar(summaryFile, columnarFile);
+        }
+    }
+
+    static List<Object> getColumnarRow(String runId, List<String> values) {
+        var row = new ArrayList<Object>(values.size() + 1);
+        row.add(runId.replace("run-", ""));
+        row.addAll(values);
+        return row;
+    }
+
+    static Path getColumnarFile(Path summaryFile) {
+        var name = summaryFile.getFileName().toString().replaceAll("[.]csv$", "");
+        return summaryFile.resolveSibling(name + ".arrows");
+    }
+
+    static String getRunId(Path resultFile) {
+        return resultFile.getParent().getFileName().toString();
+    }
+
+    static Path getTempFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
     static Path getSummaryFile(Path parent, String name) {
         Path summaryFile = parent.resolve(name);
         try {
@@ -90,15 +254,4 @@ class ResultSummary {
         }
     }
 
-    static class FileNameComparator implements Comparator<Path> {
-        @Override
-        public int compare(Path o1, Path o2) {
-            return getRunId(o1).compareTo(getRunId(o2));
-        }
-
-        String getRunId(Path p) {
-            return p.getParent().getFileName().toString();
-        }
-    }
-
 }
@@ -0,0 +1,78 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.run;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import io.deephaven.benchmark.api.Bench;
+import io.deephaven.benchmark.connect.ResultTable;
+import io.deephaven.benchmark.util.Filer;
+
+/**
+ * Sync the published benchmark history (results, metrics, platform csv files) from a storage root into a local Parquet
+ * mirror that the dashboard queries read instead of downloading each csv. The mirror is partitioned by
+ * <code>category/actor/set_label/run_id</code> under a directory for each table (ex.
+ * <code>benchmark-results/category=nightly/actor=deephaven/set_label=2024-01-01/run_id=run-1856590b0c0</code>).
+ * <p>
+ * The sync runs as a query on the Deephaven engine given by the <code>deephaven.addr</code> property, so the storage
+ * root (<code>mirror.storage.uri</code>) and mirror directory (<code>mirror.dir</code>) are relative to the engine.
+ * Runs already in the mirror are skipped, so each sync only reads runs added to storage since the last one.
+ */
+public class StorageMirror {
+    static final List<String> defaultCategories = List.of("adhoc", "nightly", "release", "compare");
+    final URL functionsFile;
+    final URL queryFile;
+
+    /**
+     * Create an instance to sync the storage to the mirror
+     *
+     * @param functionsFile the dashboard functions used to list and read the storage
+     * @param queryFile the query that syncs the mirror
+     */
+    public StorageMirror(URL functionsFile, URL queryFile) {
+        this.functionsFile = functionsFile;
+        this.queryFile = queryFile;
+    }
+
+    /**
+     * Sync the runs for the given categories into the mirror
+     *
+     * @param categories the benchmark categories (ex. nightly) or empty for all categories
+     * @return the number of runs that failed to sync
+     */
+    public int sync(List<String> categories) {
+        categories = categories.isEmpty() ? defaultCategories : categories;
+        Bench api = Bench.create("# Storage Mirror");
+        try {
+            api.setName("# Mirror");
+            var storageUri = api.property("mirror.storage.uri", "https://storage.googleapis.com/deephaven-benchmark");
+            var mirrorDir = api.property("mirror.dir", "/data/deephaven-benchmark-mirror");
+            System.out.println("-- Syncing " + categories + " from " + storageUri + " to " + mirrorDir + " --");
+            var query = getQuery(Filer.getURLText(functionsFile), Filer.getURLText(queryFile), storageUri, mirrorDir,
+                    categories);
+            var failed = new AtomicInteger(0);
+            api.query(query).fetchAfter("mirror_sync_status", table -> {
+                System.out.println(table.toCsv("  ", "LRRR"));
+                failed.set(getFailedCount(table));
+            }).execute();
+            return failed.get();
+        } finally {
+            api.close();
+        }
+    }
+
+    static int getFailedCount(ResultTable status) {
+        return (status.getRowCount() == 0) ? 0 : status.getSum("failed").intValue();
+    }
+
+    static String getQuery(String functions, String query, String storageUri, String mirrorDir,
+            List<String> categories) {
+        var categoryList = categories.stream().map(c -> "'" + c.trim() + "'").collect(Collectors.joining(","));
+        query = query.replace("${storageUri}", storageUri.replaceAll("/$", ""));
+        query = query.replace("${mirrorDir}", mirrorDir);
+        query = query.replace("${categories}", categoryList);
+        return functions + '\n' + query;
+    }
+
+}
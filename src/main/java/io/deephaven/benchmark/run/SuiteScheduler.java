@@ -0,0 +1,236 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.run;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import io.deephaven.benchmark.api.Bench;
+import io.deephaven.benchmark.util.Filer;
+import io.deephaven.benchmark.util.RunHistory;
+import io.deephaven.benchmark.util.Statistics;
+
+/**
+ * Divide a total time budget for a suite run into trial counts for each benchmark, using the rates of the most recent
+ * runs in the local result history (ex. <code>results/run-*</code>). Every benchmark gets at least one trial. The rest
+ * of the budget is given out one extra trial at a time to the benchmark where it most reduces the variance of the
+ * mean rate per second spent, so noisy benchmarks and benchmarks whose last rate moved away from the earlier ones get
+ * more trials, and stable benchmarks get fewer.
+ * <p>
+ * The weight of a benchmark is the coefficient of variation of its rates plus the relative distance of the last rate
+ * from the median of the earlier rates. A benchmark with only one run gets the highest weight of the others, since
+ * nothing is known about its noise.
+ * <p>
+ * Since each trial reruns the whole query, the time of one trial is the measured wall time of the extra trials in the
+ * run's trial metrics (<code>trial.duration.secs</code> over <code>trial.count</code> less the first trial). For a
+ * benchmark that ran no extra trials, the whole <code>test_duration</code> is used as the trial time.
+ * <p>
+ * The schedule is written as a csv of <code>benchmark_name</code> and <code>trial_count</code>, along with the
+ * weight and estimated time that explain each count.
+ */
+class SuiteScheduler {
+    static final List<String> scheduleHeader = List.of("benchmark_name", "trial_count", "weight", "rate_cv",
+            "rate_movement", "est_secs");
+    static final double minWeight = 0.001;
+    static final double defaultWeight = 0.1;
+    final Path historyDir;
+    final Duration budget;
+    final long maxTrials;
+    final int historyCount;
+
+    /**
+     * Configure a schedule for the given budget
+     *
+     * @param historyDir the directory containing run directories (ex. results)
+     * @param budget the total time to spend running the suite
+     * @param maxTrials the most trials to give any one benchmark
+     * @param historyCount the number of most recent runs to read from the history
+     */
+    SuiteScheduler(Path historyDir, Duration budget, long maxTrials, int historyCount) {
+        this.historyDir = historyDir;
+        this.budget = budget;
+        this.maxTrials = Math.max(maxTrials, 1);
+        this.historyCount = Math.max(historyCount, 1);
+    }
+
+    /**
+     * Schedule the benchmarks in the history and write the schedule to the given file
+     *
+     * @param scheduleFile the csv file to write
+     * @return the effort given to each benchmark
+     */
+    List<Effort> schedule(Path scheduleFile) {
+        var efforts = allocate(readHistory());
+        Filer.putFileText(scheduleFile, toCsv(efforts));
+        double estSecs = efforts.stream().mapToDouble(e -> e.estSecs()).sum();
+        System.out.printf("-- Scheduled %d benchmarks for an estimated %.0f of %d seconds --%n", efforts.size(),
+                estSecs, budget.toSeconds());
+        return efforts;
+    }
+
+    /**
+     * Give each benchmark one trial, then give out extra trials while they fit in the budget
+     *
+     * @param histories the history of each benchmark
+     * @return the effort given to each benchmark in benchmark name order
+     */
+    List<Effort> allocate(Collection<History> histories) {
+        double knownMax = histories.stream().filter(h -> h.rates().length > 1).mapToDouble(h -> getWeight(h))
+                .max().orElse(defaultWeight);
+        var weights = new HashMap<String, Double>();
+        var counts = new HashMap<String, Long>();
+        double remaining = budget.toMillis() / 1000.0;
+        for (History h : histories) {
+            weights.put(h.benchmark(), (h.rates().length > 1) ? getWeight(h) : knownMax);
+            counts.put(h.benchmark(), 1L);
+            remaining -= h.baseSecs();
+        }
+        var queue = new PriorityQueue<History>(Comparator.comparingDouble(
+                h -> -getBenefit(weights.get(h.benchmark()), counts.get(h.benchmark()), h.trialSecs())));
+        queue.addAll(histories);
+        while (!queue.isEmpty()) {
+            var h = queue.poll();
+            long count = counts.get(h.benchmark());
+            if (count >= maxTrials || h.trialSecs() > remaining)
+                continue;
+            counts.put(h.benchmark(), count + 1);
+            remaining -= h.trialSecs();
+            queue.add(h);
+        }
+        return histories.stream().sorted(Comparator.comparing(h -> h.benchmark())).map(h -> {
+            long count = counts.get(h.benchmark());
+            return new Effort(h.benchmark(), count, weights.get(h.benchmark()), getVariation(h.rates()),
+                    getMovement(h.rates()), h.baseSecs() + (count - 1) * h.trialSecs());
+        }).toList();
+    }
+
+    // Variance of the mean is weight^2/n, so one more trial removes weight^2/(n(n+1)) of it
+    static double getBenefit(double weight, long count, double trialSecs) {
+        return weight * weight / (count * (count + 1)) / Math.max(trialSecs, 0.001);
+    }
+
+    static double getWeight(History history) {
+        return Math.max(getVariation(history.rates()) + getMovement(history.rates()), minWeight);
+    }
+
+    static double getVariation(double[] rates) {
+        double mean = Statistics.mean(rates);
+        return (rates.length < 2 || mean <= 0) ? 0 : Statistics.stddev(rates) / mean;
+    }
+
+    static double getMovement(double[] rates) {
+        if (rates.length < 3)
+            return 0;
+        double prior = Statistics.median(Arrays.copyOf(rates, rates.length - 1));
+        return (prior <= 0) ? 0 : Math.abs(rates[rates.length - 1] - prior) / prior;
+    }
+
+    /**
+     * Read the rates and durations of each benchmark from the most recent runs in the history
+     *
+     * @return the history of each benchmark in the order first seen
+     */
+    Collection<History> readHistory() {
+        var runDirs = RunHistory.getResultFiles(historyDir, Bench.resultFileName).stream().map(f -> f.getParent())
+                .toList();
+        var recent = runDirs.subList(Math.max(runDirs.size() - historyCount, 0), runDirs.size());
+        var samples = new LinkedHashMap<String, Samples>();
+        for (Path runDir : recent) {
+            readRun(runDir).forEach((name, run) -> {
+                var s = samples.computeIfAbsent(name, n -> new Samples());
+                s.rates.add(Statistics.median(run.rates.stream().mapToDouble(v -> v).toArray()));
+                s.trialSecs.addAll(run.trialSecs);
+                s.baseSecs.addAll(run.baseSecs);
+            });
+        }
+        var histories = new ArrayList<History>();
+        samples.forEach((name, s) -> {
+            histories.add(new History(name, s.rates.stream().mapToDouble(v -> v).toArray(), median(s.baseSecs),
+                    median(s.trialSecs)));
+        });
+        return histories;
+    }
+
+    /**
+     * Read the rate and time of each benchmark in the given run directory
+     *
+     * @param runDir the run directory containing the result and metric files
+     * @return the samples of each benchmark in the order first seen
+     */
+    static Map<String, Samples> readRun(Path runDir) {
+        var measuredTrialSecs = readTrialSecs(runDir.resolve(Bench.metricsFileName));
+        var runs = new LinkedHashMap<String, Samples>();
+        for (var row : RunHistory.readRows(runDir.resolve(Bench.resultFileName), "benchmark_name", "op_rate")) {
+            Function<String, String> value = name -> row.getOrDefault(name, "");
+            var rate = value.apply("op_rate");
+            if (rate.isBlank())
+                continue;
+            var name = value.apply("benchmark_name");
+            var testSecs = value.apply("test_duration");
+            var count = value.apply("trial_count");
+            double baseSecs = testSecs.isBlank() ? 0 : Double.parseDouble(testSecs);
+            long trialCount = count.isBlank() ? 1 : Long.parseLong(count);
+            double trialSecs = measuredTrialSecs.getOrDefault(name, baseSecs);
+            var s = runs.computeIfAbsent(name, n -> new Samples());
+            s.rates.add(Double.parseDouble(rate));
+            s.trialSecs.add(trialSecs);
+            s.baseSecs.add(Math.max(baseSecs - (trialCount - 1) * trialSecs, trialSecs));
+        }
+        return runs;
+    }
+
+    /**
+     * Read the measured wall time of one trial for each benchmark from the trial metrics of a run. The first trial is
+     * the main query and is not part of <code>trial.duration.secs</code>.
+     *
+     * @param metricsFile the metrics file of a run
+     * @return the seconds of one trial for each benchmark that ran extra trials
+     */
+    static Map<String, Double> readTrialSecs(Path metricsFile) {
+        var durations = new HashMap<String, Double>();
+        var counts = new HashMap<String, Long>();
+        for (var row : RunHistory.readRows(metricsFile, "benchmark_name", "name", "value")) {
+            var value = row.getOrDefault("value", "");
+            if (value.isBlank())
+                continue;
+            switch (row.get("name")) {
+                case "trial.duration.secs" -> durations.put(row.get("benchmark_name"), Double.parseDouble(value));
+                case "trial.count" -> counts.put(row.get("benchmark_name"), (long) Double.parseDouble(value));
+            }
+        }
+        var trialSecs = new HashMap<String, Double>();
+        durations.forEach((name, secs) -> {
+            long extraTrials = counts.getOrDefault(name, 1L) - 1;
+            if (extraTrials > 0)
+                trialSecs.put(name, secs / extraTrials);
+        });
+        return trialSecs;
+    }
+
+    static double median(List<Double> values) {
+        return values.isEmpty() ? 0 : Statistics.median(values.stream().mapToDouble(v -> v).toArray());
+    }
+
+    String toCsv(List<Effort> efforts) {
+        var csv = new StringBuilder(String.join(",", scheduleHeader)).append('\n');
+        for (Effort e : efforts) {
+            csv.append(String.join(",", e.benchmark(), "" + e.trialCount(), String.format("%.4f", e.weight()),
+                    String.format("%.4f", e.cv()), String.format("%.4f", e.movement()),
+                    String.format("%.1f", e.estSecs()))).append('\n');
+        }
+        return csv.toString();
+    }
+
+    static class Samples {
+        final List<Double> rates = new ArrayList<>();
+        final List<Double> trialSecs = new ArrayList<>();
+        final List<Double> baseSecs = new ArrayList<>();
+    }
+
+    record History(String benchmark, double[] rates, double baseSecs, double trialSecs) {
+    }
+
+    record Effort(String benchmark, long trialCount, double weight, double cv, double movement, double estSecs) {
+    }
+
+}
@@ -0,0 +1,285 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.run;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import io.deephaven.benchmark.api.Bench;
+import io.deephaven.benchmark.util.Filer;
+import io.deephaven.benchmark.util.Ids;
+import io.deephaven.benchmark.util.RunHistory;
+import io.deephaven.benchmark.util.Statistics;
+
+/**
+ * Find the first engine version where a benchmark regressed by binary search over a list of engine image tags that are
+ * already available locally. The tags are given in version order from a known good tag, through any intermediate tags,
+ * to a known bad tag.
+ * <p>
+ * Each tag is measured by running the selected benchmark in a separate JVM with a copy of the profile where
+ * <code>docker.compose.file</code> points to a copy of the compose file that uses the tag for the
+ * <code>deephaven/server</code> image, and every test runs exactly <code>bisect.trial.count</code> trials with no trial
+ * time budget or suite schedule. The tag's compose file is written next to the original, so relative paths in it still
+ * resolve, and both copies are removed after the tag is measured. The good and bad tags are measured first. Only a
+ * benchmark whose mean rate dropped significantly between them by Welch's t-test can be followed, and if the selector
+ * runs more than one, the one that dropped the most is followed. A tag is bad if its mean rate is below the midpoint
+ * of the good and bad rates, and the confidence of each verdict is how far the mean is from the midpoint in standard
+ * errors.
+ * <p>
+ * Each measured tag is written to <code>bisect-report.csv</code> in the results directory.
+ */
+class VersionBisect {
+    static final List<String> reportHeader = List.of("tag", "benchmark_name", "op_rate", "op_rate_mean",
+            "op_rate_stddev", "trial_count", "verdict", "confidence");
+    static final List<String> scheduleProperties = List.of("schedule.time.budget", "schedule.file");
+    final String selector;
+    final List<String> tags;
+    final List<String> launcherArgs;
+    final Path outputDir;
+
+    /**
+     * Configure a bisection of the given tags
+     *
+     * @param selector a test class or class#method that runs the benchmark
+     * @param goodTag the engine image tag known to be good
+     * @param badTag the engine image tag known to be bad
+     * @param intermediateTags the tags between good and bad in version order
+     * @param launcherArgs extra console launcher arguments for running the tests (ex. -cp my-tests.jar)
+     * @param outputDir the results directory where the benchmark runs are written
+     */
+    VersionBisect(String selector, String goodTag, String badTag, List<String> intermediateTags,
+            List<String> launcherArgs, Path outputDir) {
+        this.selector = selector;
+        var tags = new ArrayList<String>();
+        tags.add(goodTag);
+        tags.addAll(intermediateTags);
+        tags.add(badTag);
+        this.tags = List.copyOf(tags);
+        this.launcherArgs = List.copyOf(launcherArgs);
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * Measure the tags needed to find the first bad tag, and write the report
+     *
+     * @return the result of the bisection
+     */
+    Result bisect() {
+        var result = search(tags, tag -> runTag(tag));
+        Filer.putFileText(outputDir.resolve("bisect-report.csv"), toCsv(result));
+        System.out.println("-- " + result.summary() + " --");
+        return result;
+    }
+
+    /**
+     * Binary search the tags for the first bad tag using the given measurement of each tag
+     *
+     * @param tags the tags in version order from good to bad
+     * @param measurer the measured rates of each benchmark for a tag
+     * @return the result of the search
+     */
+    Result search(List<String> tags, Function<String, Map<String, Measure>> measurer) {
+        var good = measurer.apply(tags.get(0));
+        var bad = measurer.apply(tags.get(tags.size() - 1));
+        var benchmark = getRegressedBenchmark(good, bad);
+        if (benchmark == null)
+            return new Result(null, null, null, 0, 0, List.of());
+        double goodRate = good.get(benchmark).mean();
+        double badRate = bad.get(benchmark).mean();
+        double threshold = (goodRate + badRate) / 2;
+        var verdicts = new TreeMap<Integer, Verdict>();
+        verdicts.put(0, getVerdict(tags.get(0), good.get(benchmark), threshold));
+        verdicts.put(tags.size() - 1, getVerdict(tags.get(tags.size() - 1), bad.get(benchmark), threshold));
+        int lo = 0, hi = tags.size() - 1;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) / 2;
+            var measure = measurer.apply(tags.get(mid)).get(benchmark);
+            if (measure == null)
+                throw new RuntimeException("Benchmark '" + benchmark + "' was not run for tag: " + tags.get(mid));
+            var verdict = getVerdict(tags.get(mid), measure, threshold);
+            verdicts.put(mid, verdict);
+            if (verdict.isBad())
+                hi = mid;
+            else
+                lo = mid;
+        }
+        double confidence = verdicts.get(lo).confidence() * verdicts.get(hi).confidence();
+        double change = (badRate - goodRate) / goodRate;
+        return new Result(benchmark, tags.get(lo), tags.get(hi), change, confidence, List.copyOf(verdicts.values()));
+    }
+
+    String getRegressedBenchmark(Map<String, Measure> good, Map<String, Measure> bad) {
+        String benchmark = null;
+        double worstChange = 0;
+        for (var entry : good.entrySet()) {
+            var g = entry.getValue();
+            var b = bad.get(entry.getKey());
+            if (b == null || g.mean() <= 0)
+                continue;
+            if (!Statistics.isWelchSignificant95(g.mean(), g.stddev(), g.count(), b.mean(), b.stddev(), b.count()))
+                continue;
+            double change = (b.mean() - g.mean()) / g.mean();
+            if (change < worstChange) {
+                worstChange = change;
+                benchmark = entry.getKey();
+            }
+        }
+        return benchmark;
+    }
+
+    Verdict getVerdict(String tag, Measure measure, double threshold) {
+        boolean isBad = measure.mean() < threshold;
+        double stdErr = measure.stddev() / Math.sqrt(Math.max(measure.count(), 1));
+        double confidence = (stdErr == 0) ? 1 : Statistics.normalCdf(Math.abs(measure.mean() - threshold) / stdErr);
+        return new Verdict(tag, measure, isBad, confidence);
+    }
+
+    Map<String, Measure> runTag(String tag) {
+        var composeFile = Path.of(Bench.profileProperty("docker.compose.file", ""));
+        if (composeFile.toString().isBlank() || !Files.exists(composeFile))
+            throw new RuntimeException("Bisect requires an existing docker.compose.file: " + composeFile);
+        var safeTag = Ids.getFileSafeName(tag);
+        var tagComposeFile = composeFile.resolveSibling("bisect-" + safeTag + "-" + composeFile.getFileName());
+        Filer.putFileText(tagComposeFile, setComposeImage(Filer.getFileText(composeFile), tag));
+        Path profileFile = null;
+        try {
+            profileFile = writeTagProfile(tag, tagComposeFile);
+            return measureTag(tag, profileFile);
+        } finally {
+            Filer.delete(tagComposeFile);
+            if (profileFile != null)
+                Filer.delete(profileFile);
+        }
+    }
+
+    Path writeTagProfile(String tag, Path tagComposeFile) {
+        try {
+            var profileFile = Files.createTempFile("bisect-" + Ids.getFileSafeName(tag) + "-", ".properties");
+            try (OutputStream out = Files.newOutputStream(profileFile)) {
+                getTagProfile(tagComposeFile).store(out, "Benchmark profile for bisecting tag " + tag);
+            }
+            return profileFile;
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to write bisect profile for tag: " + tag, ex);
+        }
+    }
+
+    /**
+     * Get a copy of the profile that runs exactly <code>bisect.trial.count</code> trials of each test against the
+     * given compose file, with no trial time budget or suite schedule to cut the trials short
+     *
+     * @param tagComposeFile the compose file that uses the tag's image
+     * @return the profile properties for the tag
+     */
+    static Properties getTagProfile(Path tagComposeFile) {
+        var trialCount = Bench.profileProperty("bisect.trial.count", "10");
+        var props = Bench.profileProperties();
+        props.setProperty("docker.compose.file", tagComposeFile.toAbsolutePath().toString());
+        props.setProperty("trial.max.count", trialCount);
+        props.setProperty("trial.min.count", trialCount);
+        props.setProperty("trial.ci.target", "0");
+        props.setProperty("trial.time.budget", Integer.MAX_VALUE + " minutes");
+        props.setProperty("schedule.time.budget", "");
+        props.setProperty("schedule.file", "");
+        props.setProperty("result.budget.action", "mark");
+        return props;
+    }
+
+    Map<String, Measure> measureTag(String tag, Path profileFile) {
+        System.out.println("-- Measuring tag " + tag + " --");
+        var runDirsBefore = RunHistory.getRunDirs(outputDir);
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Dbenchmark.profile=" + profileFile.toAbsolutePath());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), BenchmarkMain.class.getName()));
+        command.addAll(launcherArgs);
+        command.addAll(getSelectorArgs(selector));
+        int exitCode = runCommand(command, tag);
+        if (exitCode != 0)
+            throw new RuntimeException("Bad exit code " + exitCode + " running benchmark for tag: " + tag);
+        var measures = new LinkedHashMap<String, Measure>();
+        for (Path runDir : RunHistory.getRunDirs(outputDir)) {
+            if (!runDirsBefore.contains(runDir))
+                measures.putAll(readMeasures(tag, runDir.resolve(Bench.resultFileName)));
+        }
+        if (measures.isEmpty())
+            throw new RuntimeException("No benchmark results were produced for tag: " + tag);
+        return measures;
+    }
+
+    int runCommand(List<String> command, String tag) {
+        try {
+            var builder = new ProcessBuilder(command).inheritIO();
+            builder.environment().keySet().removeAll(scheduleProperties);
+            return builder.start().waitFor();
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to run benchmark for tag: " + tag, ex);
+        }
+    }
+
+    static List<String> getSelectorArgs(String selector) {
+        return selector.contains("#") ? List.of("--select-method", selector) : List.of("--select-class", selector);
+    }
+
+    static String setComposeImage(String composeText, String tag) {
+        var pattern = Pattern.compile("^(\\s*image:\\s*)(\\S*deephaven/server)(:\\S+)?\\s*$");
+        var isReplaced = new boolean[] {false};
+        var text = composeText.lines().map(line -> {
+            var m = pattern.matcher(line);
+            if (!m.matches())
+                return line;
+            isReplaced[0] = true;
+            var image = (tag.contains("/") || tag.contains(":")) ? tag : m.group(2) + ':' + tag;
+            return m.group(1) + image;
+        }).collect(Collectors.joining("\n"));
+        if (!isReplaced[0])
+            throw new RuntimeException("No deephaven/server image found in docker compose file");
+        return text + '\n';
+    }
+
+    static Map<String, Measure> readMeasures(String tag, Path resultFile) {
+        var measures = new LinkedHashMap<String, Measure>();
+        for (var row : RunHistory.readRows(resultFile, "benchmark_name", "op_rate")) {
+            Function<String, String> value = name -> row.getOrDefault(name, "");
+            double rate = Double.parseDouble(value.apply("op_rate"));
+            var mean = value.apply("op_rate_mean");
+            var stddev = value.apply("op_rate_stddev");
+            var count = value.apply("trial_count");
+            var name = value.apply("benchmark_name");
+            measures.put(name, new Measure(tag, name, rate, mean.isBlank() ? rate : Double.parseDouble(mean),
+                    stddev.isBlank() ? 0 : Double.parseDouble(stddev), count.isBlank() ? 1 : Long.parseLong(count)));
+        }
+        return measures;
+    }
+
+    String toCsv(Result result) {
+        var csv = new StringBuilder(String.join(",", reportHeader)).append('\n');
+        for (Verdict v : result.verdicts()) {
+            var m = v.measure();
+            csv.append(String.join(",", v.tag(), m.benchmark(), "" + (long) m.rate(), "" + (long) m.mean(),
+                    "" + (long) m.stddev(), "" + m.count(), v.isBad() ? "bad" : "good",
+                    String.format("%.4f", v.confidence()))).append('\n');
+        }
+        return csv.toString();
+    }
+
+    record Measure(String tag, String benchmark, double rate, double mean, double stddev, long count) {
+    }
+
+    record Verdict(String tag, Measure measure, boolean isBad, double confidence) {
+    }
+
+    record Result(String benchmark, String lastGoodTag, String firstBadTag, double change, double confidence,
+            List<Verdict> verdicts) {
+        String summary() {
+            if (benchmark == null)
+                return "No benchmark regressed between the good and bad tags";
+            return String.format("First bad tag for '%s' is %s after %s (rate change %+.1f%% confidence %.1f%%)",
+                    benchmark, firstBadTag, lastGoodTag, change * 100, confidence * 100);
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Provide help reading the local run history, which is a directory of run directories named by run id (ex.
+ * <code>results/run-1856590b0c0</code>), each containing the csv files written by a benchmark run
+ */
+public class RunHistory {
+
+    /**
+     * Get the run directories directly under the given directory in run id order
+     *
+     * @param parentDir the directory containing run directories (ex. results)
+     * @return the run directories or an empty set if the parent does not exist
+     */
+    static public SortedSet<Path> getRunDirs(Path parentDir) {
+        if (!Files.isDirectory(parentDir))
+            return new TreeSet<>();
+        try (var dirs = Files.list(parentDir)) {
+            return dirs.filter(d -> Files.isDirectory(d) && Ids.isRunId(d.getFileName()))
+                    .collect(Collectors.toCollection(TreeSet::new));
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to list run directories: " + parentDir, ex);
+        }
+    }
+
+    /**
+     * Get the existing result files with the given name in the run directories under the given directory in run id
+     * order
+     *
+     * @param parentDir the directory containing run directories (ex. results)
+     * @param resultFileName the result file name (ex. benchmark-results.csv)
+     * @return the existing result files
+     */
+    static public List<Path> getResultFiles(Path parentDir, String resultFileName) {
+        return getRunDirs(parentDir).stream().map(d -> d.resolve(resultFileName)).filter(f -> Files.exists(f))
+                .toList();
+    }
+
+    /**
+     * Read the rows of a csv result file, where each row maps the header column names to trimmed values. Columns
+     * missing from a short row are left out of its map.
+     *
+     * @param csvFile the csv file with a header line
+     * @param requiredColumns columns that must be in the header
+     * @return the rows or an empty list if the file is missing or empty
+     */
+    static public List<Map<String, String>> readRows(Path csvFile, String... requiredColumns) {
+        if (!Files.exists(csvFile))
+            return List.of();
+        try {
+            var lines = Files.readAllLines(csvFile);
+            if (lines.isEmpty())
+                return List.of();
+            var header = List.of(lines.get(0).split(",", -1));
+            var missing = Arrays.stream(requiredColumns).filter(c -> !header.contains(c)).toList();
+            if (!missing.isEmpty())
+                throw new RuntimeException("Missing columns " + missing + " in header: " + header);
+            var rows = new ArrayList<Map<String, String>>();
+            for (String line : lines.subList(1, lines.size())) {
+                if (line.isBlank())
+                    continue;
+                var values = line.split(",", -1);
+                var row = new LinkedHashMap<String, String>();
+                for (int i = 0, n = Math.min(header.size(), values.length); i < n; i++) {
+                    row.put(header.get(i).trim(), values[i].trim());
+                }
+                rows.add(row);
+            }
+            return rows;
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to read result file: " + csvFile, ex);
+        }
+    }
+
+}
@@ -0,0 +1,317 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Provide descriptive statistics for small samples like the rates from repeated benchmark trials, along with the
+ * non-parametric tests used to decide if benchmark rates have changed between runs
+ */
+public class Statistics {
+    // Two-sided 95% Student's t critical values for 1 to 30 degrees of freedom
+    static final double[] tValues95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228, 2.201,
+            2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064, 2.060, 2.056,
+            2.052, 2.048, 2.045, 2.042};
+
+    /**
+     * Get the arithmetic mean of the given values
+     *
+     * @param values the sample values
+     * @return the mean or 0 if there are no values
+     */
+    static public double mean(double[] values) {
+        return Arrays.stream(values).average().orElse(0);
+    }
+
+    /**
+     * Get the median of the given values. For an even number of values, the mean of the middle two is used.
+     *
+     * @param values the sample values
+     * @return the median or 0 if there are no values
+     */
+    static public double median(double[] values) {
+        if (values.length == 0)
+            return 0;
+        var sorted = values.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return (sorted.length % 2 == 1) ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+
+    /**
+     * Get the sample standard deviation (n - 1 denominator) of the given values
+     *
+     * @param values the sample values
+     * @return the standard deviation or 0 if there are fewer than two values
+     */
+    static public double stddev(double[] values) {
+        if (values.length < 2)
+            return 0;
+        double mean = mean(values);
+        double sumSq = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum();
+        return Math.sqrt(sumSq / (values.length - 1));
+    }
+
+    /**
+     * Get the half-width of the 95% confidence interval of the mean of the given values using Student's t
+     * distribution
+     *
+     * @param values the sample values
+     * @return the half-width of the interval or 0 if there are fewer than two values
+     */
+    static public double confidenceInterval(double[] values) {
+        if (values.length < 2)
+            return 0;
+        return tValue95(values.length - 1) * stddev(values) / Math.sqrt(values.length);
+    }
+
+    /**
+     * Get the half-width of the 95% confidence interval relative to the mean (ex. 0.05 is +/- 5%)
+     *
+     * @param values the sample values
+     * @return the relative half-width, or positive infinity if there are too few values or the mean is 0
+     */
+    static public double relativeConfidenceInterval(double[] values) {
+        double mean = mean(values);
+        if (values.length < 2 || mean == 0)
+            return Double.POSITIVE_INFINITY;
+        return confidenceInterval(values) / Math.abs(mean);
+    }
+
+    /**
+     * Get the two-sided 95% critical value of Student's t distribution for the given degrees of freedom. Above 30
+     * degrees of freedom, the normal approximation is used.
+     *
+     * @param degreesOfFreedom the degrees of freedom (sample count - 1)
+     * @return the critical value
+     */
+    static public double tValue95(int degreesOfFreedom) {
+        if (degreesOfFreedom < 1)
+            throw new RuntimeException("Degrees of freedom must be positive: " + degreesOfFreedom);
+        return (degreesOfFreedom <= tValues95.length) ? tValues95[degreesOfFreedom - 1] : 1.960;
+    }
+
+    /**
+     * Get the two-sided p-value of the Mann-Whitney U test that the given samples come from the same distribution.
+     * The normal approximation with tie and continuity correction is used, so the p-value is rough for samples with
+     * fewer than about 8 values each.
+     *
+     * @param a the first sample
+     * @param b the second sample
+     * @return the p-value or 1 if either sample is empty or all values are tied
+     */
+    static public double mannWhitneyPValue(double[] a, double[] b) {
+        int n1 = a.length, n2 = b.length, n = n1 + n2;
+        if (n1 == 0 || n2 == 0)
+            return 1;
+        var all = new double[n];
+        System.arraycopy(a, 0, all, 0, n1);
+        System.arraycopy(b, 0, all, n1, n2);
+        Arrays.sort(all);
+        double rankSumA = 0;
+        for (double v : a) {
+            int lo = lowerBound(all, v), hi = upperBound(all, v);
+            rankSumA += (lo + 1 + hi) / 2.0;
+        }
+        double tieSum = 0;
+        for (int i = 0; i < n;) {
+            int hi = upperBound(all, all[i]);
+            double t = hi - i;
+            tieSum += t * t * t - t;
+            i = hi;
+        }
+        double u = rankSumA - n1 * (n1 + 1) / 2.0;
+        double meanU = n1 * n2 / 2.0;
+        double varU = n1 * n2 / 12.0 * ((n + 1) - tieSum / ((double) n * (n - 1)));
+        if (varU <= 0)
+            return 1;
+        double z = Math.max(Math.abs(u - meanU) - 0.5, 0) / Math.sqrt(varU);
+        return Math.min(1, 2 * (1 - normalCdf(z)));
+    }
+
+    /**
+     * Determine if the means of two samples differ at the two-sided 95% level by Welch's t-test, given the mean,
+     * standard deviation and size of each sample. The Welch-Satterthwaite degrees of freedom are rounded down, so the
+     * test is slightly conservative.
+     *
+     * @param mean1 the mean of the first sample
+     * @param stddev1 the sample standard deviation of the first sample
+     * @param n1 the size of the first sample
+     * @param mean2 the mean of the second sample
+     * @param stddev2 the sample standard deviation of the second sample
+     * @param n2 the size of the second sample
+     * @return true if the means differ significantly, or false if they do not or either sample has fewer than 2 values
+     */
+    static public boolean isWelchSignificant95(double mean1, double stddev1, long n1, double mean2, double stddev2,
+            long n2) {
+        if (n1 < 2 || n2 < 2)
+            return false;
+        double v1 = stddev1 * stddev1 / n1, v2 = stddev2 * stddev2 / n2;
+        if (v1 + v2 == 0)
+            return mean1 != mean2;
+        double t = Math.abs(mean1 - mean2) / Math.sqrt(v1 + v2);
+        double df = (v1 + v2) * (v1 + v2) / (v1 * v1 / (n1 - 1) + v2 * v2 / (n2 - 1));
+        return t > tValue95((int) Math.max(Math.floor(df), 1));
+    }
+
+    /**
+     * Get the 95% bootstrap confidence interval of the relative change in median from the baseline to the candidate
+     * sample (ex. -0.1 is a 10% drop). Both samples are resampled with replacement using a seeded random so that the
+     * same samples always give the same interval.
+     *
+     * @param baseline the baseline sample
+     * @param candidate the candidate sample
+     * @param resamples the number of bootstrap resamples
+     * @param seed the random seed
+     * @return the low and high bounds of the interval, or NaN bounds if either sample is empty
+     */
+    static public double[] bootstrapChangeInterval(double[] baseline, double[] candidate, int resamples, long seed) {
+        if (baseline.length == 0 || candidate.length == 0 || resamples < 1)
+            return new double[] {Double.NaN, Double.NaN};
+        var random = new Random(seed);
+        var changes = new double[resamples];
+        for (int i = 0; i < resamples; i++) {
+            double base = median(resample(baseline, random));
+            double cand = median(resample(candidate, random));
+            changes[i] = (base == 0) ? 0 : (cand - base) / base;
+        }
+        Arrays.sort(changes);
+        return new double[] {percentile(changes, 0.025), percentile(changes, 0.975)};
+    }
+
+    /**
+     * Find the single most likely point where the mean of the given series shifts. This is the split that leaves the
+     * smallest sum of squared error about the mean of each side.
+     *
+     * @param series the values in time order
+     * @param minSegment the minimum number of values on each side of the split
+     * @return the index of the first value after the shift, or -1 if the series is too short to split
+     */
+    static public int changePoint(double[] series, int minSegment) {
+        return (int) bestSplit(series, minSegment)[0];
+    }
+
+    /**
+     * Get the p-value of the most likely shift found by <code>changePoint</code>. Since the split is chosen as the one
+     * that best separates the series, a test of the values before and after it would find a shift in pure noise too
+     * often. Instead, the best split score of the series is compared to the best split scores of seeded random
+     * permutations of the series, which accounts for the choice of split.
+     *
+     * @param series the values in time order
+     * @param minSegment the minimum number of values on each side of the split
+     * @param permutations the number of random permutations
+     * @param seed the random seed
+     * @return the permutation p-value, or 1 if the series is too short to split
+     */
+    static public double changePointPValue(double[] series, int minSegment, int permutations, long seed) {
+        double observed = bestSplit(series, minSegment)[1];
+        if (observed < 0 || permutations < 1)
+            return 1;
+        var random = new Random(seed);
+        var shuffled = series.clone();
+        int atLeast = 0;
+        for (int p = 0; p < permutations; p++) {
+            for (int i = shuffled.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                double t = shuffled[i];
+                shuffled[i] = shuffled[j];
+                shuffled[j] = t;
+            }
+            if (bestSplit(shuffled, minSegment)[1] >= observed * (1 - 1e-12))
+                atLeast++;
+        }
+        return (atLeast + 1.0) / (permutations + 1.0);
+    }
+
+    /**
+     * Adjust the given p-values of a family of tests for the false discovery rate using the Benjamini-Hochberg step-up
+     * procedure. Calling a test significant when its adjusted value is at most <code>alpha</code> keeps the expected
+     * proportion of false discoveries among significant tests at or below <code>alpha</code>.
+     *
+     * @param pValues the p-values of the tests
+     * @return the adjusted p-values (q-values) in the same order as given
+     */
+    static public double[] benjaminiHochberg(double[] pValues) {
+        int m = pValues.length;
+        var order = new Integer[m];
+        for (int i = 0; i < m; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(pValues[a], pValues[b]));
+        var adjusted = new double[m];
+        double min = 1;
+        for (int rank = m; rank >= 1; rank--) {
+            int i = order[rank - 1];
+            min = Math.min(min, pValues[i] * m / rank);
+            adjusted[i] = min;
+        }
+        return adjusted;
+    }
+
+    /**
+     * Get the cumulative probability of the standard normal distribution
+     *
+     * @param z the standard score
+     * @return the probability of a value at or below the score
+     */
+    static public double normalCdf(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double poly = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+        double erf = 1 - poly * Math.exp(-x * x);
+        return (z >= 0) ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+
+    // Get the index and score of the split that leaves the smallest sum of squared error, or -1 for both if too short
+    static double[] bestSplit(double[] series, int minSegment) {
+        int n = series.length;
+        minSegment = Math.max(minSegment, 1);
+        if (n < minSegment * 2)
+            return new double[] {-1, -1};
+        var prefix = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = prefix[i] + series[i];
+        }
+        int best = -1;
+        double bestScore = -1;
+        for (int k = minSegment; k <= n - minSegment; k++) {
+            double diff = prefix[k] / k - (prefix[n] - prefix[k]) / (n - k);
+            double score = (double) k * (n - k) / n * diff * diff;
+            if (score > bestScore) {
+                bestScore = score;
+                best = k;
+            }
+        }
+        return new double[] {best, bestScore};
+    }
+
+    static double[] resample(double[] values, Random random) {
+        var sample = new double[values.length];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = values[random.nextInt(values.length)];
+        }
+        return sample;
+    }
+
+    static double percentile(double[] sorted, double fraction) {
+        double pos = fraction * (sorted.length - 1);
+        int lo = (int) Math.floor(pos), hi = (int) Math.ceil(pos);
+        return sorted[lo] + (sorted[hi] - sorted[lo]) * (pos - lo);
+    }
+
+    static int lowerBound(double[] sorted, double value) {
+        int i = 0;
+        while (i < sorted.length && sorted[i] < value)
+            i++;
+        return i;
+    }
+
+    static int upperBound(double[] sorted, double value) {
+        int i = lowerBound(sorted, value);
+        while (i < sorted.length && sorted[i] == value)
+            i++;
+        return i;
+    }
+
+}
@@ -0,0 +1,130 @@
+# Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending
+#
+# Portable 128-bit table fingerprint that gives the same result for the same rows in Deephaven, pandas, pyarrow and
+# DuckDB. Only python, numpy and hashlib are needed, so any product can compute it from its result columns. Deephaven
+# computes the same fingerprint on the engine with query formulas (See bench_api_fingerprint in Snippets.java).
+#
+# Each value is encoded as a canonical 64-bit word:
+# - Integers and booleans are the bits of the value as an int64
+# - Floating values are rounded to 40 mantissa bits (about 12 significant digits), so aggregations that differ only in
+#   the last bits between products still match. A rounded value that is a whole number gets the word of its int64
+#   (5.0 matches 5), otherwise the word is the bits of the rounded double with -0.0 as 0.0
+# - Date-times are epoch nanoseconds as an int64
+# - Strings and other objects are the high 64 bits of the name-based UUID of str(value) as utf-8, which is MD5 with
+#   the version bits set (Java's UUID.nameUUIDFromBytes)
+# - Nulls, NaN and NaT are all the same null word
+#
+# Words are mixed with splitmix64, where mix(z) is Java's new SplittableRandom(z).nextLong(). Each lane starts a row
+# hash at its seed, or at mix(seed + row position) if ordered, and adds each column i as h = mix(h + mix(word + i)).
+# The lane is the sum of its row hashes modulo 2^64, and the fingerprint is the two lanes as 32 hex digits. Since the
+# sum is order-free, rows can be hashed in any chunks and added together.
+import datetime, hashlib
+import numpy as np
+
+bench_api_fingerprint_null = np.uint64(0x6e756c6c6e756c6c)
+bench_api_fingerprint_seeds = [np.uint64(0x9e3779b97f4a7c15), np.uint64(0x2545f4914f6cdd1d)]
+
+def bench_api_fingerprint_mix(z):
+    z = z + np.uint64(0x9e3779b97f4a7c15)
+    z = (z ^ (z >> np.uint64(30))) * np.uint64(0xbf58476d1ce4e5b9)
+    z = (z ^ (z >> np.uint64(27))) * np.uint64(0x94d049bb133111eb)
+    return z ^ (z >> np.uint64(31))
+
+def bench_api_fingerprint_doubles(values):
+    doubles = np.asarray(values, dtype=np.float64) + 0.0
+    bits = (doubles.view(np.uint64) + np.uint64(2048)) & np.uint64(0xfffffffffffff000)
+    rounded = bits.view(np.float64)
+    with np.errstate(invalid='ignore'):
+        whole = np.isfinite(rounded) & (rounded == np.rint(rounded)) & (np.abs(rounded) < 9.0e18)
+        ints = np.where(whole, rounded, 0.0).astype(np.int64).view(np.uint64)
+    return np.where(np.isnan(doubles), bench_api_fingerprint_null, np.where(whole, ints, bits))
+
+def bench_api_fingerprint_object(x):
+    if x is None or type(x).__name__ in ('NAType', 'NaTType'):
+        return bench_api_fingerprint_null
+    if isinstance(x, (bool, int, np.bool_, np.integer)):
+        return np.uint64(int(x) & 0xffffffffffffffff)
+    if isinstance(x, (float, np.floating)):
+        return bench_api_fingerprint_doubles([x])[0]
+    if isinstance(x, np.datetime64):
+        return np.uint64(int(x.astype('datetime64[ns]').astype(np.int64)) & 0xffffffffffffffff)
+    if isinstance(x, datetime.datetime):
+        if hasattr(x, 'value'): return np.uint64(x.value & 0xffffffffffffffff)
+        x = x if x.tzinfo is not None else x.replace(tzinfo=datetime.timezone.utc)
+        epoch = datetime.datetime(1970, 1, 1, tzinfo=datetime.timezone.utc)
+        return np.uint64(((x - epoch) // datetime.timedelta(microseconds=1) * 1000) & 0xffffffffffffffff)
+    digest = bytearray(hashlib.md5(str(x).encode('utf-8')).digest())
+    digest[6] = (digest[6] & 0x0f) | 0x30
+    return np.uint64(int.from_bytes(digest[:8], 'big'))
+
+def bench_api_fingerprint_words(values):
+    if isinstance(values, np.ma.MaskedArray):
+        words = bench_api_fingerprint_words(values.filled(0))
+        return np.where(np.ma.getmaskarray(values), bench_api_fingerprint_null, words)
+    values = np.asarray(values)
+    kind = values.dtype.kind
+    if kind == 'M':
+        nanos = values.astype('datetime64[ns]').view(np.int64)
+        return np.where(nanos == np.iinfo(np.int64).min, bench_api_fingerprint_null, nanos.view(np.uint64))
+    if kind in 'biu':
+        return values.astype(np.int64).view(np.uint64)
+    if kind == 'f':
+        return bench_api_fingerprint_doubles(values)
+    return np.array([bench_api_fingerprint_object(x) for x in values], dtype=np.uint64)
+
+def bench_api_fingerprint_arrays(columns, ordered=False, start_pos=0):
+    row_count = len(columns[0]) if columns else 0
+    words = [bench_api_fingerprint_mix(bench_api_fingerprint_words(c) + np.uint64(i)) for i, c in enumerate(columns)]
+    lanes = []
+    for seed in bench_api_fingerprint_seeds:
+        h = np.full(row_count, seed, dtype=np.uint64)
+        if ordered:
+            h = bench_api_fingerprint_mix(h + np.arange(start_pos, start_pos + row_count, dtype=np.uint64))
+        for w in words:
+            h = bench_api_fingerprint_mix(h + w)
+        lanes.append(int(h.sum(dtype=np.uint64)))
+    return lanes
+
+def bench_api_fingerprint_add(lanes, more_lanes):
+    return [(a + b) & 0xffffffffffffffff for a, b in zip(lanes, more_lanes)]
+
+def bench_api_fingerprint_hex(lanes):
+    return '%016x%016x' % (lanes[0], lanes[1])
+
+def bench_api_fingerprint_columns(result):
+    if hasattr(result, 'column_names') and hasattr(result, 'num_columns'):
+        columns = []
+        for i in range(result.num_columns):
+            c = result.column(i)
+            type_name = str(c.type)
+            if c.null_count > 0 and type_name.startswith(('int', 'uint', 'bool')):
+                filled = c.fill_null(False if type_name == 'bool' else 0).to_numpy()
+                columns.append(np.ma.masked_array(filled, mask=c.is_null().to_numpy()))
+            else:
+                columns.append(c.to_numpy())
+        return columns
+    if hasattr(result, 'df') and not hasattr(result, 'reset_index'):
+        return bench_api_fingerprint_columns(result.df())
+    if hasattr(result, 'reset_index'):
+        if any(n is not None for n in result.index.names):
+            result = result.reset_index()
+        columns = []
+        for i in range(result.shape[1]):
+            s = result.iloc[:, i]
+            name = s.dtype.name.lower()
+            if isinstance(s.dtype, np.dtype) and s.dtype.kind in 'biufM':
+                columns.append(s.to_numpy())
+            elif name.startswith(('int', 'uint', 'boolean')):
+                filled = s.to_numpy(dtype=np.int64, na_value=0)
+                columns.append(np.ma.masked_array(filled, mask=s.isna().to_numpy()))
+            elif name.startswith('float'):
+                columns.append(s.to_numpy(dtype=np.float64, na_value=np.nan))
+            elif name.startswith('datetime64'):
+                columns.append(s.dt.tz_convert(None).to_numpy() if s.dt.tz is not None else s.to_numpy())
+            else:
+                columns.append(s.astype(object).where(s.notna(), None).to_numpy())
+        return columns
+    raise Exception('Unsupported result type for fingerprint: ' + str(type(result)))
+
+def bench_api_fingerprint_result(result, ordered=False):
+    return bench_api_fingerprint_hex(bench_api_fingerprint_arrays(bench_api_fingerprint_columns(result), ordered))
@@ -8,7 +8,8 @@
 
 import os, re, glob, jpy
 import deephaven.dtypes as dht
-from deephaven import read_csv, merge, agg, empty_table, input_table, dtypes as dht
+from deephaven.column import string_col
+from deephaven import read_csv, merge, agg, empty_table, input_table, new_table, parquet, dtypes as dht
 from urllib.request import urlopen, urlretrieve
 from numpy import typing as npt
 
@@ -37,12 +38,68 @@ def get_local_children(parent_uri, category, max_runs=10):
     run_ids.sort(reverse=True)
     return run_ids[:max_runs]
     
-# Get the children of the given storage/category uri
+# Local Parquet mirror of the storage made by the Benchmark "mirror" command (Requires Deephaven 0.37.0 or greater)
+# Runs already synced to the mirror are loaded from it, and runs published since the last sync are loaded from storage
+default_mirror_uri = 'file:///data/deephaven-benchmark-mirror'
+mirror_columns = {
+    'benchmark-results': {'benchmark_name':dht.string,'origin':dht.string,'timestamp':dht.int64,
+        'test_duration':dht.float64,'op_duration':dht.float64,'op_rate':dht.int64,'row_count':dht.int64},
+    'benchmark-metrics': {'benchmark_name':dht.string,'origin':dht.string,'timestamp':dht.int64,
+        'name':dht.string,'value':dht.float64,'note':dht.string},
+    'benchmark-platform': {'origin':dht.string,'name':dht.string,'value':dht.string}
+}
+
+# Get the mirror directory for the given table and category or None if it has not been synced
+def get_mirror_path(table_name, category):
+    mirror_uri = benchmark_mirror_uri_arg if 'benchmark_mirror_uri_arg' in globals() else default_mirror_uri
+    if not mirror_uri or not table_name in mirror_columns: return None
+    path = os.path.join(mirror_uri.replace('file:///','/'), table_name, 'category=' + category)
+    return path if os.path.isdir(path) else None
+
+# Get the children of the given category path (ex. nightly/deephaven) from the mirror's partition directories
+def get_mirror_children(mirror_path, category, max_runs):
+    keys = ['actor=','set_label=','run_id=']
+    names = category.split('/')[1:]
+    path = os.path.join(mirror_path, *[keys[i] + n for i, n in enumerate(names)])
+    key = keys[len(names)]
+    if not os.path.isdir(path): return []
+    run_ids = [d[len(key):] for d in os.listdir(path) if d.startswith(key)]
+    run_ids.sort(reverse=True)
+    return run_ids[:max_runs]
+
+# Check if the given run (ex. deephaven/2024-01-01/run-1856590b0c0) has been synced to the mirror
+def is_mirror_run(mirror_path, run_id):
+    actor, set_label, run = run_id.split('/')
+    return os.path.isdir(os.path.join(mirror_path, 'actor=' + actor, 'set_label=' + set_label, 'run_id=' + run))
+
+# Read the given runs (ex. deephaven/2024-01-01/run-1856590b0c0) for a table from the mirror
+def read_mirror_table(mirror_path, table_name, run_ids):
+    runs = [r.split('/') for r in run_ids]
+    selected = new_table([string_col('actor',[r[0] for r in runs]),string_col('set_label',[r[1] for r in runs]),
+        string_col('run_id',[r[2] for r in runs])])
+    from deephaven.column import col_def, ColumnType
+    columns = mirror_columns[table_name]
+    definition = [col_def(n, dht.string, column_type=ColumnType.PARTITIONING) for n in ['actor','set_label','run_id']]
+    definition += [col_def(n, t) for n, t in columns.items()]
+    table = parquet.read(mirror_path, table_definition=definition, file_layout=parquet.ParquetFileLayout.KV_PARTITIONED)
+    return table.where_in(selected, ['actor','set_label','run_id']) \
+        .update_view(['set_id = actor + `/` + set_label']).view(list(columns.keys()) + ['set_id','run_id'])
+
+# Get the children of the given storage/category uri along with any in the mirror
 def get_children(storage_uri, category, max_runs):
-    if storage_uri.startswith('http'):
-        return get_remote_children(storage_uri, category, max_runs)
-    else: 
-        return get_local_children(storage_uri, category, max_runs)
+    children = set()
+    mirror_path = get_mirror_path('benchmark-results', category.split('/')[0])
+    if mirror_path:
+        children.update(get_mirror_children(mirror_path, category, max_runs))
+    try:
+        if storage_uri.startswith('http'):
+            children.update(get_remote_children(storage_uri, category, max_runs))
+        else: 
+            children.update(get_local_children(storage_uri, category, max_runs))
+    except Exception as ex:
+        if not mirror_path: raise
+        print('Error listing storage so using mirror only:', category, ':', ex)
+    return sorted(children, reverse=True)[:max_runs]
 
 # Get the paths for benchmark run data that match the given filters
 def get_run_paths(storage_uri, category, actor_filter, set_filter, max_sets):
@@ -106,8 +163,12 @@ def dh_read_csv(uri, convert_func):
 
 # Merge together benchmark runs from the GCloud bucket for the same csv (e.g. benchmark_results.csv)
 def merge_run_tables(parent_uri, run_ids, category, csv_file_name, convert_func):
-    tables = []
+    table_name = csv_file_name.replace('.csv','')
+    mirror_path = get_mirror_path(table_name, category)
+    mirror_run_ids = [r for r in run_ids if is_mirror_run(mirror_path, r)] if mirror_path else []
+    tables = [read_mirror_table(mirror_path, table_name, mirror_run_ids)] if mirror_run_ids else []
     for run_id in run_ids:
+        if run_id in mirror_run_ids: continue
         table_uri = parent_uri + '/' + category + '/' + run_id + '/' + csv_file_name
         table_csv = dh_read_csv(table_uri, convert_func)
         set_id = os.path.dirname(run_id)
@@ -0,0 +1,68 @@
+# Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending
+#
+# Deephaven query to sync benchmark csv data from storage (GCloud bucket or file:/// path) into a local Parquet
+# mirror partitioned by category/actor/set_label/run_id. Runs already in the mirror are skipped, so each sync only
+# reads new runs. Dashboard queries read synced runs from the mirror and any newer runs from the storage csv files.
+# - Runs after benchmark_functions.dh.py, which supplies the storage listing and csv loading functions
+# - Each run is written to a temp directory first and moved into place, so a failed sync leaves no partial runs
+# Requirements: Deephaven 0.36.1 or greater
+
+import os, shutil
+from deephaven import new_table, parquet
+from deephaven.column import string_col, long_col
+
+benchmark_mirror_uri_arg = ''  # List runs from the storage not from the mirror
+mirror_storage_uri = '${storageUri}'
+mirror_root = '${mirrorDir}'.replace('file:///','/')
+mirror_categories = [${categories}]
+mirror_tables = {  # Results are written last, so their presence means the run is complete
+    'benchmark-platform': convert_platform,
+    'benchmark-metrics': convert_metric,
+    'benchmark-results': convert_result
+}
+
+def get_mirror_run_dir(table_name, category, run_path):
+    actor, set_label, run_id = run_path.split('/')
+    return os.path.join(mirror_root, table_name, 'category=' + category, 'actor=' + actor,
+        'set_label=' + set_label, 'run_id=' + run_id)
+
+def remove_mirror_path(path):
+    if os.path.isdir(path): shutil.rmtree(path)
+    elif os.path.exists(path): os.remove(path)
+
+def mirror_run(category, run_path):
+    tables = {}
+    for table_name, convert_func in mirror_tables.items():
+        uri = mirror_storage_uri + '/' + category + '/' + run_path + '/' + table_name + '.csv'
+        tables[table_name] = dh_read_csv(uri, convert_func)
+    for table_name, table in tables.items():
+        run_dir = get_mirror_run_dir(table_name, category, run_path)
+        tmp_dir = os.path.join(mirror_root, '.tmp', table_name, category, run_path)
+        remove_mirror_path(tmp_dir)
+        os.makedirs(tmp_dir, exist_ok=True)
+        parquet.write(table, os.path.join(tmp_dir, 'data.parquet'))
+        remove_mirror_path(run_dir)
+        os.makedirs(os.path.dirname(run_dir), exist_ok=True)
+        shutil.move(tmp_dir, run_dir)
+
+status_categories = []; status_synced = []; status_skipped = []; status_failed = []
+for category in mirror_categories:
+    synced = skipped = failed = 0
+    for run_path in get_run_paths(mirror_storage_uri, category, '.+', '.+', 1000000):
+        if os.path.exists(get_mirror_run_dir('benchmark-results', category, run_path)):
+            skipped += 1
+            continue
+        try:
+            mirror_run(category, run_path)
+            synced += 1
+        except Exception as ex:
+            print('Failed to mirror run:', category + '/' + run_path, ':', ex)
+            failed += 1
+    status_categories.append(category); status_synced.append(synced)
+    status_skipped.append(skipped); status_failed.append(failed)
+remove_mirror_path(os.path.join(mirror_root, '.tmp'))
+
+mirror_sync_status = new_table([
+    string_col('category', status_categories), long_col('synced', status_synced),
+    long_col('skipped', status_skipped), long_col('failed', status_failed)
+])
@@ -0,0 +1,80 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.api;
+
+import static io.deephaven.benchmark.api.ArrowTableWriter.ColumnType.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import io.deephaven.benchmark.util.Filer;
+
+public class ArrowTableWriterTest {
+
+    @Test
+    void toDouble() {
+        assertEquals(Double.valueOf(1.5), ArrowTableWriter.toDouble("value", "1.5"), "Wrong decimal");
+        assertEquals(Double.valueOf(100000.0), ArrowTableWriter.toDouble("value", "1e5"), "Wrong exponent");
+        assertTrue(ArrowTableWriter.toDouble("value", "NaN").isNaN(), "Wrong NaN");
+        assertNull(ArrowTableWriter.toDouble("value", " "), "Blank should be null");
+        assertThrows(RuntimeException.class, () -> ArrowTableWriter.toDouble("value", "185659100d"),
+                "Run id should not be a double");
+        assertThrows(RuntimeException.class, () -> ArrowTableWriter.toDouble("value", "0x1p3"),
+                "Hex should not be a double");
+    }
+
+    @Test
+    void toLong() {
+        assertEquals(Long.valueOf(1683926545385L), ArrowTableWriter.toLong("timestamp", "1683926545385"), "Wrong long");
+        assertEquals(Long.valueOf(2000L), ArrowTableWriter.toLong("op_rate", "2000.0"), "Wrong integral decimal");
+        assertNull(ArrowTableWriter.toLong("op_rate", ""), "Blank should be null");
+        assertThrows(RuntimeException.class, () -> ArrowTableWriter.toLong("op_rate", "2000.5"),
+                "Fraction should not be a long");
+        assertThrows(RuntimeException.class, () -> ArrowTableWriter.toLong("op_rate", "18565910f0c"),
+                "Run id should not be a long");
+    }
+
+    @Test
+    void appendStream() throws Exception {
+        var dir = Files.createTempDirectory("arrow");
+        var target = dir.resolve("target.arrows");
+        var source = dir.resolve("source.arrows");
+        Files.write(target, getStream(1, 10, 11));
+        Files.write(source, getStream(1, 12));
+        ArrowTableWriter.appendStream(source, target);
+        assertArrayEquals(getStream(1, 10, 11, 12), Files.readAllBytes(target), "Wrong appended stream");
+
+        Files.write(source, getStream(2, 13));
+        assertThrows(RuntimeException.class, () -> ArrowTableWriter.appendStream(source, target),
+                "Different schema should not append");
+        assertArrayEquals(getStream(1, 10, 11, 12), Files.readAllBytes(target), "Target should be unchanged");
+        Filer.delete(dir);
+    }
+
+    @Test
+    void getColumnTypes() {
+        var columns = List.of("run-id", "benchmark_name", "timestamp", "test_duration", "op_rate", "op_rate_status");
+        assertEquals(List.of(STRING, STRING, LONG, DOUBLE, LONG, STRING),
+                Bench.getColumnTypes(Bench.resultFileName, columns), "Wrong result types");
+        assertEquals(List.of(STRING, LONG, STRING, DOUBLE), Bench.getColumnTypes(Bench.metricsFileName,
+                List.of("origin", "timestamp", "name", "value")), "Wrong metrics types");
+        assertEquals(List.of(STRING, STRING), Bench.getColumnTypes(Bench.platformFileName,
+                List.of("name", "value")), "Wrong platform types");
+        assertThrows(RuntimeException.class, () -> new ArrowTableWriter(Path.of("x.arrows"), columns, List.of(LONG)),
+                "Type count should match columns");
+    }
+
+    // Make a stream of an 8 byte schema message, 8 byte messages standing in for batches, and the end marker
+    private byte[] getStream(int schema, int... batches) {
+        var buf = ByteBuffer.allocate(16 + batches.length * 8 + 8).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(-1).putInt(8).putLong(schema);
+        for (int batch : batches) {
+            buf.putInt(-1).putInt(batch);
+        }
+        buf.putInt(-1).putInt(0);
+        return buf.array();
+    }
+
+}
@@ -0,0 +1,37 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import io.deephaven.benchmark.connect.CachedResultTable;
+
+public class BenchQueryTest {
+
+    @Test
+    void getCommonFingerprint() {
+        var single = CachedResultTable.create("""
+        fingerprint,row_count,ordered
+        0123456789abcdef0123456789abcdef,10,false
+        """, ",");
+        assertEquals("0123456789abcdef0123456789abcdef", BenchQuery.getCommonFingerprint("result", single),
+                "Wrong single engine fingerprint");
+
+        var matched = CachedResultTable.create("""
+        fingerprint,row_count,ordered,origin
+        0123456789abcdef0123456789abcdef,10,false,deephaven-engine@host1:10000
+        0123456789abcdef0123456789abcdef,10,false,deephaven-engine@host2:10000
+        """, ",");
+        assertEquals("0123456789abcdef0123456789abcdef", BenchQuery.getCommonFingerprint("result", matched),
+                "Wrong matched fingerprint");
+
+        var differing = CachedResultTable.create("""
+        fingerprint,row_count,ordered,origin
+        0123456789abcdef0123456789abcdef,10,false,deephaven-engine@host1:10000
+        fedcba9876543210fedcba9876543210,10,false,deephaven-engine@host2:10000
+        """, ",");
+        var ex = assertThrows(RuntimeException.class, () -> BenchQuery.getCommonFingerprint("result", differing));
+        assertTrue(ex.getMessage().contains("deephaven-engine@host2:10000=fedcba9876543210fedcba9876543210"),
+                "Wrong mismatch message: " + ex.getMessage());
+    }
+
+}
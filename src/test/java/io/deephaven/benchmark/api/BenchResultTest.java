@@ -7,6 +7,7 @@ import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.*;
+import io.deephaven.benchmark.util.Filer;
 import io.deephaven.benchmark.util.Timer;
 
 public class BenchResultTest {
@@ -28,7 +29,9 @@ public class BenchResultTest {
 
         List<String[]> csv = getResult(result);
         assertEquals(2, csv.size(), "Wrong line count");
-        assertEquals("[benchmark_name, origin, timestamp, test_duration, op_duration, op_rate, row_count]",
+        assertEquals("[benchmark_name, origin, timestamp, test_duration, op_duration, op_rate, row_count, trial_count, "
+                + "op_rate_min, op_rate_median, op_rate_mean, op_rate_stddev, op_rate_ci, op_rate_expected_min, "
+                + "op_rate_expected_max, op_rate_status]",
                 Arrays.toString(csv.get(0)), "Wrong header");
         assertEquals("mytest", csv.get(1)[0], "Wrong name");
         assertEquals("deephaven-engine", csv.get(1)[1], "Wrong origin");
@@ -59,12 +62,155 @@ public class BenchResultTest {
 
         List<String[]> csv = getResult(result);
         assertEquals(3, csv.size(), "Wrong line count");
-        assertEquals("[benchmark_name, origin, timestamp, test_duration, op_duration, op_rate, row_count]",
+        assertEquals("[benchmark_name, origin, timestamp, test_duration, op_duration, op_rate, row_count, trial_count, "
+                + "op_rate_min, op_rate_median, op_rate_mean, op_rate_stddev, op_rate_ci, op_rate_expected_min, "
+                + "op_rate_expected_max, op_rate_status]",
                 Arrays.toString(csv.get(0)), "Wrong header");
         assertEquals("mytest", csv.get(1)[0], "Wrong name");
         assertEquals("mytest2", csv.get(2)[0], "Wrong name");
     }
 
+    @Test
+    public void multiOrigin() throws Exception {
+        BenchResult result = new BenchResult(parent, "test-result.csv");
+        result.setName("mytest");
+
+        Files.deleteIfExists(result.file);
+
+        result.test("deephaven-engine@host1:10000", timer(100), 1000);
+        result.test("deephaven-engine@host2:10000", timer(200), 1000);
+        result.test("deephaven-engine@host1:10000", timer(250), 1000);
+        result.commit();
+
+        List<String[]> csv = getResult(result);
+        assertEquals(3, csv.size(), "Wrong line count");
+        assertEquals("deephaven-engine@host1:10000", csv.get(1)[1], "Wrong origin");
+        assertEquals(4000, Long.parseLong(csv.get(1)[5]), "Wrong test rate");
+        assertEquals("deephaven-engine@host2:10000", csv.get(2)[1], "Wrong origin");
+        assertEquals(5000, Long.parseLong(csv.get(2)[5]), "Wrong test rate");
+        assertEquals(csv.get(1)[2], csv.get(2)[2], "Wrong timestamp");
+    }
+
+    @Test
+    public void trials() throws Exception {
+        BenchResult result = new BenchResult(parent, "test-result.csv");
+        result.setName("mytest");
+
+        Files.deleteIfExists(result.file);
+
+        var durations = List.of(Duration.ofMillis(100), Duration.ofMillis(125), Duration.ofMillis(200));
+        result.test("deephaven-engine", durations, 1000);
+        result.commit();
+
+        List<String[]> csv = getResult(result);
+        assertEquals(2, csv.size(), "Wrong line count");
+        assertEquals("0.1250", csv.get(1)[4], "Wrong op duration");
+        assertEquals(8000, Long.parseLong(csv.get(1)[5]), "Wrong test rate");
+        assertEquals(3, Long.parseLong(csv.get(1)[7]), "Wrong trial count");
+        assertEquals(5000, Long.parseLong(csv.get(1)[8]), "Wrong min rate");
+        assertEquals(8000, Long.parseLong(csv.get(1)[9]), "Wrong median rate");
+        assertEquals(7666, Long.parseLong(csv.get(1)[10]), "Wrong mean rate");
+        assertEquals(2516, Long.parseLong(csv.get(1)[11]), "Wrong stddev rate");
+        assertEquals(6252, Long.parseLong(csv.get(1)[12]), "Wrong confidence interval");
+    }
+
+    @Test
+    public void expectRate() throws Exception {
+        BenchResult result = new BenchResult(parent, "test-result.csv");
+        result.setName("mytest");
+
+        Files.deleteIfExists(result.file);
+
+        result.test("deephaven-engine", timer(123), 1234).expectRate(9000, 11000);
+        result.commit();
+        result.test("deephaven-engine", timer(200), 1234).expectRate(9000, 11000);
+        result.commit();
+        result.test("deephaven-engine", timer(200), 1234);
+        result.commit();
+
+        List<String[]> csv = getResult(result);
+        assertEquals(4, csv.size(), "Wrong line count");
+        assertEquals("[9000, 11000, ok]", Arrays.toString(Arrays.copyOfRange(csv.get(1), 13, 16)), "Wrong bounds");
+        assertEquals("[9000, 11000, regressed]", Arrays.toString(Arrays.copyOfRange(csv.get(2), 13, 16)));
+        assertEquals(13, csv.get(3).length, "Expectations should not carry to the next commit");
+        assertEquals(1, result.getViolations().size(), "Wrong violation count");
+        assertTrue(result.getViolations().get(0).startsWith("mytest deephaven-engine op_rate=6170 regressed"),
+                "Wrong violation: " + result.getViolations());
+        assertThrows(RuntimeException.class, () -> result.expectRate(2, 1));
+    }
+
+    @Test
+    public void expectBaselineFile() throws Exception {
+        var baselineFile = parent.resolve("test-baseline.csv");
+        Files.writeString(baselineFile, """
+        run-id,benchmark_name,origin,timestamp,op_rate
+        1,mytest,deephaven-engine,1683926545385,9000
+        2,mytest,deephaven-engine,1683926545385,10000
+        3,mytest,deephaven-engine,1683926545385,11000
+        """);
+        BenchResult result = new BenchResult(parent, "test-result.csv");
+        result.setName("mytest");
+
+        Files.deleteIfExists(result.file);
+
+        result.test("deephaven-engine", timer(100), 1234).expectBaseline(baselineFile.toString(), 0.1);
+        result.commit();
+        result.test("other-engine", timer(100), 1234).expectBaseline(baselineFile.toString(), 0.1);
+        result.commit();
+
+        List<String[]> csv = getResult(result);
+        assertEquals("[9000, 11000, exceeded]", Arrays.toString(Arrays.copyOfRange(csv.get(1), 13, 16)));
+        assertEquals("[, , no.baseline]", Arrays.toString(Arrays.copyOfRange(csv.get(2), 13, 16)));
+        assertEquals(1, result.getViolations().size(), "Wrong violation count");
+        assertThrows(RuntimeException.class, () -> RateBaseline.get("missing-baseline.csv", parent));
+    }
+
+    @Test
+    public void expectBaselineHistory() throws Exception {
+        var history = Files.createTempDirectory("results");
+        for (String runId : List.of("run-1856590b0c0", "run-1856590b0c1", "run-1856590b0c2")) {
+            var runDir = Files.createDirectories(history.resolve(runId));
+            Files.writeString(runDir.resolve(Bench.resultFileName), """
+            benchmark_name,origin,timestamp,op_rate
+            mytest,deephaven-engine,1683926545385,10000
+            """);
+        }
+        var runDir = Files.createDirectories(history.resolve("run-1856590b0c3"));
+        BenchResult result = new BenchResult(runDir);
+        result.setName("mytest");
+
+        result.test("deephaven-engine", timer(200), 1234).expectBaseline("history", 0.2);
+        result.commit();
+
+        List<String[]> csv = getResult(result);
+        assertEquals("[8000, 12000, regressed]", Arrays.toString(Arrays.copyOfRange(csv.get(1), 13, 16)));
+        assertEquals(1, result.getViolations().size(), "Wrong violation count");
+        Filer.delete(history);
+    }
+
+    @Test
+    public void baselineHistoryRecentRuns() throws Exception {
+        var history = Files.createTempDirectory("results");
+        var runRates = List.of("1000,1234", "10000,1234", "20000,1234", "90000,5678");
+        for (int i = 0; i < runRates.size(); i++) {
+            var runDir = Files.createDirectories(history.resolve("run-1856590b0c" + i));
+            Files.writeString(runDir.resolve(Bench.resultFileName), """
+            benchmark_name,origin,timestamp,op_rate,row_count
+            mytest,deephaven-engine,1683926545385,${rate}
+            """.replace("${rate}", runRates.get(i)));
+        }
+        var runDir = history.resolve("run-1856590b0c9");
+        var files = RateBaseline.getHistoryFiles(runDir, 3);
+        assertEquals(3, files.size(), "Wrong history file count");
+        assertEquals("run-1856590b0c1", files.get(0).getParent().getFileName().toString(), "Wrong oldest run");
+
+        var baseline = new RateBaseline(RateBaseline.readRates(files));
+        assertEquals(Double.valueOf(15000), baseline.getRate("mytest", "deephaven-engine", 1234), "Wrong median");
+        assertEquals(Double.valueOf(90000), baseline.getRate("mytest", "deephaven-engine", 5678), "Wrong scale");
+        assertEquals(null, baseline.getRate("mytest", "deephaven-engine", 9999), "Other scales have no baseline");
+        Filer.delete(history);
+    }
+
     private Path getResourceParent() {
         try {
             return Paths.get(getClass().getResource("test-profile.properties").toURI()).getParent();
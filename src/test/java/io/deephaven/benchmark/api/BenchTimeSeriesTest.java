@@ -0,0 +1,73 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.*;
+import org.junit.jupiter.api.*;
+import io.deephaven.benchmark.connect.CachedResultTable;
+import io.deephaven.benchmark.util.Filer;
+
+public class BenchTimeSeriesTest {
+    final String csv = """
+    timestamp, origin, name, value
+    1000, deephaven-engine, heap.used, 100.0
+    1050, deephaven-engine, heap.used, 300.0
+    1100, deephaven-engine, heap.used, 200.0
+    1150, deephaven-engine, heap.used, 400.0
+    1050, deephaven-engine, thread.count, 10
+    """;
+
+    @Test
+    public void commit() throws Exception {
+        var timeSeries = new BenchTimeSeries(getResourceParent(), "test-timeseries.csv");
+        timeSeries.setName("mytest");
+        Files.deleteIfExists(timeSeries.file);
+
+        timeSeries.add(CachedResultTable.create(csv, ","));
+        timeSeries.commit();
+
+        assertEquals("""
+        benchmark_name,origin,timestamp,name,value
+        mytest,deephaven-engine,1000,heap.used,100.0
+        mytest,deephaven-engine,1050,heap.used,300.0
+        mytest,deephaven-engine,1100,heap.used,200.0
+        mytest,deephaven-engine,1150,heap.used,400.0
+        mytest,deephaven-engine,1050,thread.count,10.0
+        """.trim(), Filer.getFileText(timeSeries.file).trim().replaceAll("\r", ""), "Wrong time series csv");
+    }
+
+    @Test
+    public void summarize() {
+        var timeSeries = new BenchTimeSeries(getResourceParent(), "test-timeseries.csv");
+        timeSeries.add(CachedResultTable.create(csv, ","));
+
+        var summaries = timeSeries.summarize();
+        assertEquals(1, summaries.size(), "Wrong summary count");
+        var m = summaries.get(0);
+        assertEquals(1150, m.timestamp(), "Wrong timestamp");
+        assertEquals(400.0, m.getValue("heap.used.peak"), "Wrong peak");
+        assertEquals("samples=4", m.getNote("heap.used.peak"), "Wrong peak note");
+        assertEquals(200.0, m.getValue("heap.used.p50"), "Wrong p50");
+        assertEquals(400.0, m.getValue("heap.used.p99"), "Wrong p99");
+        assertEquals(10.0, m.getValue("thread.count.p90"), "Wrong p90");
+        assertEquals("sampler.heap.used.peak", m.getMetric("heap.used.peak").get("name"), "Wrong metric name");
+    }
+
+    @Test
+    public void percentile() {
+        double[] sorted = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertEquals(1.0, BenchTimeSeries.percentile(sorted, 0), "Wrong p0");
+        assertEquals(5.0, BenchTimeSeries.percentile(sorted, 50), "Wrong p50");
+        assertEquals(9.0, BenchTimeSeries.percentile(sorted, 90), "Wrong p90");
+        assertEquals(10.0, BenchTimeSeries.percentile(sorted, 99), "Wrong p99");
+    }
+
+    private Path getResourceParent() {
+        try {
+            return Paths.get(getClass().getResource("test-profile.properties").toURI()).getParent();
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to get resource dir", ex);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.*;
+import java.util.List;
+import org.junit.jupiter.api.*;
+
+public class ResultSinkTest {
+    final List<String> header = List.of("name", "value");
+
+    @Test
+    void writeRow() throws Exception {
+        var file = getParent().resolve("result-sink-test.csv");
+        var sink = new ResultSink();
+        sink.delete(file);
+
+        sink.writeRow(file, header, List.of("one", 1));
+        sink.writeRow(file, header, List.of("two", 2.5));
+        assertEquals(0, Files.size(file), "Rows should be buffered until flush");
+
+        sink.flush(file);
+        assertEquals(List.of("name,value", "one,1", "two,2.5"), Files.readAllLines(file), "Wrong rows");
+
+        sink.writeRow(file, header, List.of("three", 3));
+        sink.close();
+        assertEquals(List.of("name,value", "one,1", "two,2.5", "three,3"), Files.readAllLines(file), "Wrong rows");
+    }
+
+    @Test
+    void writeRowAfterDelete() throws Exception {
+        var file = getParent().resolve("result-sink-delete-test.csv");
+        var sink = new ResultSink();
+        sink.delete(file);
+
+        sink.writeRow(file, header, List.of("one", 1));
+        sink.flush();
+        Files.delete(file);
+
+        sink.writeRow(file, header, List.of("two", 2));
+        sink.flush();
+        assertEquals(List.of("name,value", "two,2"), Files.readAllLines(file), "Wrong rows");
+        sink.close();
+    }
+
+    @Test
+    void write() throws Exception {
+        var file = getParent().resolve("result-sink-test.log");
+        var sink = new ResultSink();
+        sink.delete(file);
+
+        sink.write(file, "line1\n");
+        sink.write(file, "line2\n");
+        sink.flush();
+        assertEquals(List.of("line1", "line2"), Files.readAllLines(file), "Wrong lines");
+        sink.close();
+    }
+
+    @Test
+    void setColumnarFormat() {
+        var sink = new ResultSink();
+        sink.setColumnarFormat("Arrow");
+        sink.setColumnarFormat("none");
+        assertThrows(RuntimeException.class, () -> sink.setColumnarFormat("parquet"));
+    }
+
+    @Test
+    void getColumnarFile() {
+        assertEquals(Paths.get("results/benchmark-results.arrows"),
+                ResultSink.getColumnarFile(Paths.get("results/benchmark-results.csv")));
+        assertEquals(Paths.get("results/platform.out.arrows"),
+                ResultSink.getColumnarFile(Paths.get("results/platform.out")));
+    }
+
+    private Path getParent() throws Exception {
+        return Paths.get(getClass().getResource("test-profile.properties").toURI()).getParent();
+    }
+
+}
@@ -0,0 +1,30 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class SnippetsTest {
+
+    @Test
+    public void getThreadPool() {
+        assertEquals("update.graph", Snippets.getThreadPool("PeriodicUpdateGraph.DEFAULT.refreshThread"));
+        assertEquals("update.graph", Snippets.getThreadPool("PeriodicUpdateGraph-updateExecutor-3"));
+        assertEquals("op.init", Snippets.getThreadPool("OperationInitializationThreadPool-initializationExecutor-1"));
+        assertEquals("parquet.read", Snippets.getThreadPool("S3AsyncClientFactory-futureCompletion-2"));
+        assertEquals("parquet.read", Snippets.getThreadPool("aws-java-sdk-NettyEventLoop-1-4"));
+        assertEquals("other", Snippets.getThreadPool("TableDataRefreshService-1"), "Refresh service is not the UG");
+        assertEquals("other", Snippets.getThreadPool("grpc-default-executor-0"));
+        assertEquals("other", Snippets.getThreadPool("ChannelReader-s3"), "Substrings should not match");
+    }
+
+    @Test
+    public void bench_api_thread_pool() {
+        var snippet = Snippets.bench_api_thread_pool;
+        Snippets.threadPoolPrefixes.forEach((prefix, pool) -> {
+            assertTrue(snippet.contains("('" + prefix + "', '" + pool + "')"), "Missing prefix: " + prefix);
+        });
+        assertTrue(snippet.contains("thread_name.startswith(prefix)"), "Should match by prefix: " + snippet);
+    }
+
+}
@@ -0,0 +1,177 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.connect;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import io.deephaven.benchmark.metric.Metrics;
+import io.deephaven.benchmark.metric.MetricsFuture;
+
+public class MultiConnectorTest {
+
+    @Test
+    public void merge() {
+        var tables = new LinkedHashMap<String, ResultTable>();
+        tables.put("host1:10000", CachedResultTable.create("elapsed_nanos,result_row_count\n100,10", ","));
+        tables.put("host2:10000", CachedResultTable.create("elapsed_nanos,result_row_count\n200,10", ","));
+
+        var table = MultiConnector.merge(tables);
+        assertEquals("[elapsed_nanos, result_row_count, origin]", table.getColumnNames().toString(), "Wrong columns");
+        assertEquals(2, table.getRowCount(), "Wrong row count");
+        assertEquals("deephaven-engine@host1:10000", table.getValue(0, "origin"), "Wrong origin");
+        assertEquals("deephaven-engine@host2:10000", table.getValue(1, "origin"), "Wrong origin");
+        assertEquals("200", table.getValue(1, "elapsed_nanos"), "Wrong value");
+    }
+
+    @Test
+    public void mergeWithOrigin() {
+        var tables = new LinkedHashMap<String, ResultTable>();
+        tables.put("host1:10000", CachedResultTable.create("origin,name,value\nmyorigin,heap,1\nmyorigin,gc,2", ","));
+        tables.put("host2:10000", CachedResultTable.create("origin,name,value\nmyorigin,heap,3", ","));
+
+        var table = MultiConnector.merge(tables);
+        assertEquals("[origin, name, value]", table.getColumnNames().toString(), "Wrong columns");
+        assertEquals(3, table.getRowCount(), "Wrong row count");
+        assertEquals("myorigin@host1:10000", table.getValue(1, "origin"), "Wrong origin");
+        assertEquals("myorigin@host2:10000", table.getValue(2, "origin"), "Wrong origin");
+        assertEquals("3", table.getValue(2, "value"), "Wrong value");
+    }
+
+    @Test
+    public void fanOut() throws Exception {
+        var engines = new LinkedHashMap<String, Connector>();
+        engines.put("host1:10000", new TestConnector("10"));
+        engines.put("host2:10000", new TestConnector("20"));
+
+        try (var connector = new MultiConnector(engines)) {
+            connector.executeQuery("result = empty_table(10)");
+            assertEquals("[result]", connector.getUsedVariableNames().toString(), "Wrong variable names");
+
+            var merged = new ArrayList<ResultTable>();
+            var metrics = connector.fetchSnapshotData("result", t -> merged.add(t)).get();
+            assertEquals(1, merged.size(), "Wrong table handler call count");
+            assertEquals(2, merged.get(0).getRowCount(), "Wrong row count");
+            assertEquals(30.0, merged.get(0).getSum("count"), "Wrong sum");
+            var related = metrics.getRelated();
+            assertEquals(2, related.size(), "Wrong engine metrics count");
+            assertEquals("test-runner@host1:10000", related.get(0).origin(), "Wrong engine metrics origin");
+            assertEquals("test-runner@host2:10000", related.get(1).origin(), "Wrong engine metrics origin");
+            assertEquals(10, related.get(0).getValue("fetch.count"), "Wrong engine metric");
+            assertEquals(20, related.get(1).getValue("fetch.count"), "Wrong engine metric");
+        }
+        engines.values().forEach(e -> assertTrue(((TestConnector) e).isClosed, "Engine not closed"));
+    }
+
+    @Test
+    public void interleave() {
+        var order = new ArrayList<String>();
+        var engines = new LinkedHashMap<String, Connector>();
+        engines.put("host1:10000", new TestConnector("10", order));
+        engines.put("host2:10000", new TestConnector("20", order));
+
+        try (var connector = new MultiConnector(engines, true)) {
+            connector.executeQuery("result = empty_table(10)");
+            connector.executeQuery("other = empty_table(10)");
+            connector.executeQuery("result = empty_table(10)");
+            connector.executeQuery("result = empty_table(10)");
+            assertEquals("[10, 20, 10, 20, 20, 10, 10, 20]", order.toString(), "Wrong engine order");
+        }
+    }
+
+    @Test
+    public void fetchTickingWhileQuerying() throws Exception {
+        var engines = new LinkedHashMap<String, Connector>();
+        engines.put("host1:10000", new TestConnector("10"));
+        engines.put("host2:10000", new TestConnector("20"));
+
+        try (var connector = new MultiConnector(engines)) {
+            var ticking1 = connector.fetchTickingData("ticking1", t -> true);
+            var ticking2 = connector.fetchTickingData("ticking2", t -> true);
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                connector.executeQuery("result = empty_table(10)");
+                connector.fetchSnapshotData("result", t -> {}).get();
+            }, "Open ticking fetches should not block queries");
+            assertFalse(ticking1.isDone(), "Ticking fetch should still be open");
+
+            engines.values().forEach(e -> ((TestConnector) e).ticking.forEach(f -> f.done()));
+            var metrics = ticking1.get(10, TimeUnit.SECONDS);
+            assertTrue(ticking1.isDone() && ticking2.get(10, TimeUnit.SECONDS) != null, "Ticking fetch not done");
+            assertEquals(2, metrics.getRelated().size(), "Wrong engine metrics count");
+        }
+    }
+
+    @Test
+    public void getMetrics() {
+        var engines = new LinkedHashMap<String, Connector>();
+        engines.put("host1:10000", new TestConnector("10"));
+        engines.put("host2:10000", new TestConnector("20"));
+
+        try (var connector = new MultiConnector(engines)) {
+            var metrics = connector.getMetrics();
+            assertEquals("client", metrics.category(), "Wrong category");
+            assertTrue(metrics.getNames().isEmpty(), "Engine metrics should not be merged");
+            var related = metrics.getRelated();
+            assertEquals(2, related.size(), "Wrong engine metrics count");
+            assertEquals("test-runner@host1:10000", related.get(0).origin(), "Wrong engine metrics origin");
+            assertEquals(10L, related.get(0).getValue("arrow.peak.bytes"), "Wrong engine peak");
+            assertEquals("test-runner@host2:10000", related.get(1).origin(), "Wrong engine metrics origin");
+            assertEquals(20L, related.get(1).getValue("arrow.peak.bytes"), "Wrong engine peak");
+        }
+    }
+
+    static class TestConnector implements Connector {
+        final Set<String> variableNames = new HashSet<>();
+        final String count;
+        final List<String> executeOrder;
+        final List<MetricsFuture> ticking = new ArrayList<>();
+        boolean isClosed = false;
+
+        TestConnector(String count) {
+            this(count, new ArrayList<>());
+        }
+
+        TestConnector(String count, List<String> executeOrder) {
+            this.count = count;
+            this.executeOrder = executeOrder;
+        }
+
+        public void executeQuery(String query) {
+            variableNames.add(query.replaceAll("\\s*=.*", ""));
+            synchronized (executeOrder) {
+                executeOrder.add(count);
+            }
+        }
+
+        public Set<String> getUsedVariableNames() {
+            return variableNames;
+        }
+
+        public Future<Metrics> fetchSnapshotData(String table, Consumer<ResultTable> tableHandler) {
+            tableHandler.accept(CachedResultTable.create("count\n" + count, ","));
+            var metrics = new Metrics("test-runner", "session." + table).set("fetch.count", Integer.parseInt(count));
+            var future = new MetricsFuture(metrics);
+            future.done();
+            return future;
+        }
+
+        public Future<Metrics> fetchTickingData(String table, Function<ResultTable, Boolean> tableHandler) {
+            var future = new MetricsFuture(new Metrics("test-runner", "session." + table).set("tick.count", 1));
+            ticking.add(future);
+            return future;
+        }
+
+        public Metrics getMetrics() {
+            return new Metrics("test-runner", "client").set("arrow.peak.bytes", Long.parseLong(count));
+        }
+
+        public void close() {
+            isClosed = true;
+        }
+    }
+
+}
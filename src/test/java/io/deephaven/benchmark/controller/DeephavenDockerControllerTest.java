@@ -2,7 +2,9 @@
 package io.deephaven.benchmark.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import io.deephaven.benchmark.metric.Metrics;
 
 public class DeephavenDockerControllerTest {
 
@@ -21,6 +23,20 @@ public class DeephavenDockerControllerTest {
         assertTrue(ids.isEmpty(), "No container ids should have been found");
     }
 
+    @Test
+    void getHostPorts() {
+        var c = new DeephavenDockerController(null, "localhost:10000, localhost:10001,");
+        assertEquals("[localhost:10000, localhost:10001]", c.getHostPorts().toString(), "Wrong host ports");
+        assertTrue(new DeephavenDockerController(null, null).getHostPorts().isEmpty(), "Should have no host ports");
+    }
+
+    @Test
+    void isEngineStarted() {
+        assertTrue(DeephavenDockerController.isEngineStarted(List.of("deephaven", "redpanda")), "Wrong engine");
+        assertTrue(DeephavenDockerController.isEngineStarted(List.of("deephaven-a", "deephaven-b")), "Wrong A/B");
+        assertFalse(DeephavenDockerController.isEngineStarted(List.of("minio", "redpanda")), "Wrong no engine");
+    }
+
     @Test
     void parseContainerInfo() {
         var dockerInspectStr = """
@@ -40,6 +56,73 @@ public class DeephavenDockerControllerTest {
                 "Wrong deephaven container compose uri");
     }
 
+    @Test
+    void parseComposeContainers() {
+        var composePsStr = """
+        34e3c5866046 deephaven
+        e751ca90644e redpanda
+
+        """;
+        var c = new DeephavenDockerController(null, null);
+        var containers = c.parseComposeContainers(composePsStr);
+        assertEquals("{34e3c5866046=deephaven, e751ca90644e=redpanda}", containers.toString(), "Wrong containers");
+    }
+
+    @Test
+    void parseContainerStats() {
+        var statsStr = """
+        == /sys/fs/cgroup/cpu.stat
+        usage_usec 2500000
+        user_usec 2000000
+        system_usec 500000
+        nr_periods 100
+        nr_throttled 7
+        throttled_usec 350000
+        == /sys/fs/cgroup/memory.current
+        1048576
+        == /sys/fs/cgroup/memory.peak
+        4194304
+        == /sys/fs/cgroup/io.stat
+        8:0 rbytes=1000 wbytes=200 rios=10 wios=2 dbytes=0 dios=0
+        8:16 rbytes=500 wbytes=100 rios=5 wios=1 dbytes=0 dios=0
+        == /proc/net/dev
+        Inter-|   Receive                                                |  Transmit
+         face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets errs drop fifo colls carrier compressed
+            lo:     999       9    0    0    0     0          0         0      999       9    0    0    0     0       0          0
+          eth0:   12345      50    0    0    0     0          0         0     6789      40    0    0    0     0       0          0
+        """;
+        var c = new DeephavenDockerController(null, null);
+        var m = c.parseContainerStats("deephaven", statsStr);
+        assertEquals("deephaven", m.origin(), "Wrong origin");
+        assertEquals("container", m.category(), "Wrong category");
+        assertEquals(2.5, m.getValue("cpu.usage.secs"), "Wrong cpu usage");
+        assertEquals(100L, m.getValue("cpu.periods"), "Wrong cpu periods");
+        assertEquals(7L, m.getValue("cpu.throttled.periods"), "Wrong throttled periods");
+        assertEquals(0.35, m.getValue("cpu.throttled.secs"), "Wrong throttled secs");
+        assertEquals(1048576L, m.getValue("memory.current.bytes"), "Wrong memory current");
+        assertEquals(4194304L, m.getValue("memory.peak.lifetime.bytes"), "Wrong memory peak");
+        assertEquals(1500L, m.getValue("block.read.bytes"), "Wrong block read");
+        assertEquals(300L, m.getValue("block.write.bytes"), "Wrong block write");
+        assertEquals(12345L, m.getValue("net.rx.bytes"), "Wrong net rx");
+        assertEquals(6789L, m.getValue("net.tx.bytes"), "Wrong net tx");
+    }
+
+    @Test
+    void getMetricsDelta() {
+        var before = List.of(new Metrics("deephaven", "container").set("cpu.usage.secs", 2.0)
+                .set("memory.peak.lifetime.bytes", 100).set("net.rx.bytes", 10));
+        var after = List.of(
+                new Metrics("deephaven", "container").set("cpu.usage.secs", 5.5).set("memory.peak.lifetime.bytes", 300)
+                        .set("net.rx.bytes", 40),
+                new Metrics("redpanda", "container").set("cpu.usage.secs", 1.0));
+        var deltas = Controller.getMetricsDelta(before, after, "trials=3");
+        assertEquals(1, deltas.size(), "Wrong delta count");
+        assertEquals(3.5, deltas.get(0).getValue("cpu.usage.secs"), "Wrong cpu delta");
+        assertEquals(300, deltas.get(0).getValue("memory.peak.lifetime.bytes"), "Memory should not be a delta");
+        assertEquals(30.0, deltas.get(0).getValue("net.rx.bytes"), "Wrong net delta");
+        assertEquals("trials=3", deltas.get(0).getNote("cpu.usage.secs"), "Wrong delta note");
+    }
+
     @Test
     void parseServicesList() {
         var dockerServicesStr = """
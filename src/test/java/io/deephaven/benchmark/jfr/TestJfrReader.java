@@ -2,15 +2,89 @@
 package io.deephaven.benchmark.jfr;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
 import org.junit.jupiter.api.*;
+import io.deephaven.benchmark.connect.CachedResultTable;
 
-@Disabled
 public class TestJfrReader {
 
     @Test
     public void getEventNames() {
         JfrReader jfr = new JfrReader(getClass().getResource("server.jfr"));
-        System.out.println("" + jfr.getEventNames().toString());
+        var names = jfr.getEventNames();
+        assertTrue(names.contains("jdk.ExecutionSample"), "Missing event: " + names);
+        assertTrue(names.contains("jdk.SafepointBegin"), "Missing event: " + names);
+    }
+
+    @Test
+    public void getMetrics() {
+        JfrReader jfr = new JfrReader(getClass().getResource("server.jfr"));
+        var metrics = jfr.getMetrics("deephaven-engine", 5);
+
+        assertEquals(546L, metrics.getValue("execution.samples"), "Wrong execution sample count");
+        assertTrue(metrics.getNames().contains("hot.method.05"), "Missing hot methods: " + metrics.getNames());
+        assertFalse(metrics.getNames().contains("hot.method.06"), "Too many hot methods: " + metrics.getNames());
+        var hot1 = metrics.getValue("hot.method.01").doubleValue();
+        var hot2 = metrics.getValue("hot.method.02").doubleValue();
+        assertTrue(hot1 >= hot2 && hot1 <= 100.0, "Wrong hot method percents: " + hot1 + " " + hot2);
+        assertFalse(metrics.getNote("hot.method.01").contains(","), "Bad note: " + metrics.getNote("hot.method.01"));
+
+        assertTrue(metrics.getValue("alloc.bytes").longValue() > 0, "Missing allocation bytes");
+        assertEquals(2, metrics.getNote("alloc.site.01").split(";").length, "Wrong allocation site note");
+        assertEquals(631L, metrics.getValue("safepoint.count"), "Wrong safepoint count");
+        assertTrue(metrics.getValue("safepoint.secs").doubleValue() > 0, "Missing safepoint time");
+        assertEquals(99L, metrics.getValue("lock.park.count"), "Wrong park count");
+        assertEquals(0L, metrics.getValue("lock.enter.count"), "Wrong monitor enter count");
+        assertEquals("jfr.safepoint.count", metrics.getMetric("safepoint.count").get("name"), "Wrong metric name");
+    }
+
+    @Test
+    public void getGcEvents() {
+        JfrReader jfr = new JfrReader(getClass().getResource("server.jfr"));
+        var events = jfr.getGcEvents();
+
+        assertEquals(27, events.size(), "Wrong gc count");
+        var first = events.get(0);
+        assertEquals(1, first.gcId(), "Wrong gc id");
+        assertEquals("G1New", first.collector(), "Wrong collector");
+        assertEquals("G1 Evacuation Pause", first.cause(), "Wrong cause");
+        assertTrue(first.sumOfPauses().toNanos() > 0, "Missing pause time");
+        assertTrue(first.promotedBytes() > 0, "Missing promoted bytes");
+    }
+
+    @Test
+    public void getGcMetrics() {
+        var events = List.of(gc(1, "G1New", "G1 Evacuation Pause", 5), gc(2, "G1New", "G1 Evacuation Pause", 7),
+                gc(3, "G1New", "G1 Evacuation Pause", 800), gc(4, "G1Old", "System.gc()", 1200));
+        var metrics = JfrReader.getGcMetrics("deephaven-engine", events);
+
+        assertEquals(4, metrics.getValue("pause.count"), "Wrong pause count");
+        assertEquals(1200.0, metrics.getValue("pause.max.millis"), "Wrong max pause");
+        assertEquals(2012.0, metrics.getValue("pause.total.millis"), "Wrong total pause");
+        assertEquals(400L, metrics.getValue("promoted.bytes"), "Wrong promoted bytes");
+        assertEquals(2L, metrics.getValue("g1new.g1.evacuation.pause.lt.10ms"), "Wrong histogram count");
+        assertEquals(1L, metrics.getValue("g1new.g1.evacuation.pause.lt.1s"), "Wrong histogram count");
+        assertEquals(1L, metrics.getValue("g1old.system.gc.ge.1s"), "Wrong histogram count");
+        assertNull(metrics.getValue("g1new.g1.evacuation.pause.ge.1s"), "Unexpected empty bucket");
+    }
+
+    @Test
+    public void saveRecording() throws Exception {
+        var encoder = Base64.getEncoder();
+        var csv = "chunk\n" + encoder.encodeToString("abc".getBytes()) + '\n' + encoder.encodeToString("de".getBytes());
+        var file = Files.createTempDirectory("jfr").resolve("test-jfr").resolve("test.jfr");
+
+        Path saved = JfrReader.saveRecording(CachedResultTable.create(csv, "|"), file);
+        assertEquals("abcde", Files.readString(saved), "Wrong saved recording");
+    }
+
+    private JfrReader.GcEvent gc(long id, String collector, String cause, long pauseMillis) {
+        var pause = Duration.ofMillis(pauseMillis);
+        return new JfrReader.GcEvent(id, id * 1000, collector, cause, pause, pause, 100);
     }
 
 }
@@ -0,0 +1,83 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.run;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import io.deephaven.benchmark.util.Filer;
+
+public class RegressionAnalysisTest {
+    final double[] noise = {1.00, 1.02, 0.99, 1.01, 0.98, 1.02, 1.00, 0.99, 1.01, 0.98, 1.00, 1.02};
+
+    @Test
+    void analyze() throws Exception {
+        var history = Files.createTempDirectory("history");
+        for (int i = 0; i < 12; i++) {
+            double drop = (i < 6) ? 1.0 : 0.7;
+            var nightlyDir = history.resolve(String.format("nightly/deephaven/2024-01-%02d", i + 1));
+            writeRun(nightlyDir, i, 1000 * noise[i] * drop, 500 * noise[i]);
+            double gain = (i < 6) ? 1.0 : 1.25;
+            var setLabel = (i < 6) ? "v0.35.0" : "v0.36.0";
+            writeRun(history.resolve("release/deephaven/" + setLabel), i, 2000 * noise[i], 800 * noise[i] * gain);
+        }
+        var template = RegressionAnalysis.class.getResource("profile/regression-report.template.svg");
+        var outputDir = history.resolve("report");
+        var moved = new RegressionAnalysis(history, template, outputDir).analyze();
+
+        assertEquals(2, moved.size(), "Wrong moved count: " + moved);
+        var regression = moved.get(0);
+        assertEquals("nightly", regression.analysis(), "Wrong regression analysis");
+        assertEquals("Bench A", regression.key().benchmark(), "Wrong regression benchmark");
+        assertEquals("run-18565900005", regression.baseline(), "Wrong run before the change");
+        assertEquals("run-18565900006", regression.candidate(), "Wrong run after the change");
+        assertTrue(regression.qValue() >= regression.pValue(), "Adjusted p-value should not be smaller");
+        assertEquals(-0.3, regression.change(), 0.02, "Wrong regression change");
+        assertEquals("regression", regression.direction(), "Wrong direction");
+
+        var improvement = moved.get(1);
+        assertEquals("release", improvement.analysis(), "Wrong improvement analysis");
+        assertEquals("Bench B", improvement.key().benchmark(), "Wrong improvement benchmark");
+        assertEquals("v0.35.0", improvement.baseline(), "Wrong baseline set");
+        assertEquals("v0.36.0", improvement.candidate(), "Wrong candidate set");
+        assertEquals("improvement", improvement.direction(), "Wrong direction");
+
+        var csv = Filer.getFileText(outputDir.resolve("regression-report.csv")).lines().toList();
+        assertEquals(3, csv.size(), "Wrong report line count");
+        assertEquals(String.join(",", RegressionAnalysis.reportHeader), csv.get(0), "Wrong report header");
+        assertTrue(csv.get(1).startsWith("1,nightly,Bench A,deephaven-engine,"), "Wrong first row: " + csv.get(1));
+        assertTrue(csv.get(2).startsWith("2,release,Bench B,deephaven-engine,"), "Wrong second row: " + csv.get(2));
+
+        var svg = Filer.getFileText(outputDir.resolve("regression-report.svg"));
+        assertTrue(svg.contains("<tr><td>Bench A</td><td>nightly</td><td>-30.3%</td>"), "Missing regression row");
+        assertFalse(svg.contains("${"), "Unreplaced template variable");
+        Filer.delete(history);
+    }
+
+    @Test
+    void analyzeLocal() throws Exception {
+        var history = Files.createTempDirectory("results");
+        for (int i = 0; i < 12; i++) {
+            writeRun(history, i, 1000 * noise[i], 500 * noise[i]);
+        }
+        var template = RegressionAnalysis.class.getResource("profile/regression-report.template.svg");
+        var analysis = new RegressionAnalysis(history, template, history);
+        var runs = analysis.readRuns(history);
+        assertEquals(12, runs.size(), "Wrong run count");
+        assertEquals("local", runs.get(0).category(), "Wrong category");
+        assertEquals("run-18565900000", runs.get(0).setLabel(), "Wrong set label");
+        assertEquals(0, analysis.analyze().size(), "Noise should not move");
+        Filer.delete(history);
+    }
+
+    void writeRun(Path parent, int index, double rateA, double rateB) throws Exception {
+        var runDir = parent.resolve(String.format("run-1856590%04d", index));
+        Files.createDirectories(runDir);
+        Filer.putFileText(runDir.resolve("benchmark-results.csv"), """
+        benchmark_name,origin,timestamp,test_duration,op_duration,op_rate,row_count
+        Bench A,deephaven-engine,1683926545385,10.0,1.0,%s,1000
+        Bench B,deephaven-engine,1683926545385,10.0,1.0,%s,1000
+        """.formatted(rateA, rateB));
+    }
+
+}
@@ -2,8 +2,11 @@
 package io.deephaven.benchmark.run;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import io.deephaven.benchmark.api.Bench;
 import io.deephaven.benchmark.util.Filer;
@@ -26,4 +29,70 @@ public class ResultSummaryTest {
                 """.replace("\r", "").trim(), Filer.getFileText(summary.summaryFile));
     }
 
+    @Test
+    public void summarizeIncremental() throws Exception {
+        Path dataDir = Paths.get(getClass().getResource("findme.txt").toURI()).resolveSibling("test-data");
+        Path rootDir = dataDir.resolveSibling("test-data-incremental");
+        Filer.delete(rootDir);
+        copyRun(dataDir, rootDir, "run-1856590b0c0");
+
+        var summary = new ResultSummary(rootDir, "test-summarize-result.csv", Bench.resultFileName);
+        summary.summarize();
+        assertEquals(List.of("run-1856590b0c0"), Files.readAllLines(summary.manifestFile));
+        assertEquals(4, Files.readAllLines(summary.summaryFile).size(), "Wrong line count");
+
+        copyRun(dataDir, rootDir, "run-1856591d58e");
+        summary.summarize();
+        summary.summarize();
+        assertEquals(List.of("run-1856590b0c0", "run-1856591d58e"), Files.readAllLines(summary.manifestFile));
+        var lines = Files.readAllLines(summary.summaryFile);
+        assertEquals(7, lines.size(), "Wrong line count");
+        assertEquals("1856591d58e,Count Records From Kakfa Stream,1672446338577,6.329,21654.396", lines.get(6));
+        assertFalse(Files.exists(ResultSummary.getTempFile(summary.manifestFile)), "Temp manifest left");
+
+        Files.delete(summary.manifestFile);
+        summary.summarize();
+        assertEquals(lines, Files.readAllLines(summary.summaryFile), "Rebuild should not duplicate rows");
+        assertFalse(Files.exists(ResultSummary.getTempFile(summary.summaryFile)), "Temp summary left");
+        Filer.delete(rootDir);
+    }
+
+    @Test
+    public void summarizeWidenedColumns() throws Exception {
+        Path dataDir = Paths.get(getClass().getResource("findme.txt").toURI()).resolveSibling("test-data");
+        Path rootDir = dataDir.resolveSibling("test-data-widened");
+        Filer.delete(rootDir);
+        copyRun(dataDir, rootDir, "run-1856590b0c0");
+        var summary = new ResultSummary(rootDir, "test-summarize-result.csv", Bench.resultFileName);
+        summary.summarize();
+
+        var widenedDir = Files.createDirectories(rootDir.resolve("run-1856591d58e"));
+        Filer.putFileText(widenedDir.resolve(Bench.resultFileName), """
+        name,timestamp,duration,test-rate,op_rate_status
+        Count Records From Kakfa Stream,1672446338577,6.329,21654.396,regressed
+        """);
+        summary.summarize();
+        var lines = Files.readAllLines(summary.summaryFile);
+        assertEquals("run-id,name,timestamp,duration,test-rate,op_rate_status", lines.get(0), "Wrong header");
+        assertEquals("1856590b0c0,Count Records From Kakfa Stream,1672446264337,3.678,49603.17,", lines.get(3));
+        assertEquals("1856591d58e,Count Records From Kakfa Stream,1672446338577,6.329,21654.396,regressed",
+                lines.get(4));
+
+        var narrowDir = Files.createDirectories(rootDir.resolve("run-1856592e000"));
+        Filer.putFileText(narrowDir.resolve(Bench.resultFileName), """
+        name,test-rate
+        Count Records From Kakfa Stream,30000.0
+        """);
+        summary.summarize();
+        lines = Files.readAllLines(summary.summaryFile);
+        assertEquals(6, lines.size(), "Narrower run should be appended");
+        assertEquals("1856592e000,Count Records From Kakfa Stream,,,30000.0,", lines.get(5));
+        Filer.delete(rootDir);
+    }
+
+    private void copyRun(Path fromRoot, Path toRoot, String runId) throws Exception {
+        var toDir = Files.createDirectories(toRoot.resolve(runId));
+        Files.copy(fromRoot.resolve(runId).resolve(Bench.resultFileName), toDir.resolve(Bench.resultFileName));
+    }
+
 }
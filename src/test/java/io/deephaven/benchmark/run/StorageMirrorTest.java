@@ -0,0 +1,50 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.run;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import io.deephaven.benchmark.connect.CachedResultTable;
+import io.deephaven.benchmark.util.Filer;
+
+public class StorageMirrorTest {
+
+    @Test
+    void getQuery() {
+        var functions = "def convert_result(table): return table";
+        var query = """
+        mirror_storage_uri = '${storageUri}'
+        mirror_root = '${mirrorDir}'
+        mirror_categories = [${categories}]
+        """;
+        var q = StorageMirror.getQuery(functions, query, "file:///nfs/deephaven-benchmark/", "/data/mirror",
+                List.of("nightly", " release"));
+        assertEquals("""
+        def convert_result(table): return table
+        mirror_storage_uri = 'file:///nfs/deephaven-benchmark'
+        mirror_root = '/data/mirror'
+        mirror_categories = ['nightly','release']
+        """, q);
+    }
+
+    @Test
+    void getFailedCount() {
+        var status = CachedResultTable.create("""
+        category,synced,skipped,failed
+        nightly,2,10,0
+        release,1,4,2
+        """, ",");
+        assertEquals(2, StorageMirror.getFailedCount(status), "Wrong failed count");
+        assertEquals(0, StorageMirror.getFailedCount(CachedResultTable.create("category,failed\n", ",")),
+                "Wrong empty failed count");
+    }
+
+    @Test
+    void getQueryResource() {
+        var query = Filer.getURLText(BenchmarkMain.resource("profile/queries/mirror.py"));
+        var q = StorageMirror.getQuery("", query, "https://storage", "/data/mirror", List.of("adhoc"));
+        assertTrue(q.contains("mirror_categories = ['adhoc']"), "Missing categories");
+        assertFalse(q.contains("${"), "Unreplaced variable");
+    }
+
+}
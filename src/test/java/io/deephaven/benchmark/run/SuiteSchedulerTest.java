@@ -0,0 +1,95 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.run;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import io.deephaven.benchmark.util.Filer;
+
+public class SuiteSchedulerTest {
+    final double[] stable = {1000, 1001, 999, 1000, 1000, 1001};
+    final double[] noisy = {1000, 1300, 800, 1200, 900, 1100};
+    final double[] moved = {1000, 1001, 999, 1000, 1000, 700};
+
+    @Test
+    void schedule() throws Exception {
+        var history = Files.createTempDirectory("results");
+        for (int i = 0; i < stable.length; i++) {
+            writeRun(history, i, stable[i], noisy[i], moved[i]);
+        }
+        var scheduleFile = history.resolve("benchmark-schedule.csv");
+        var efforts = new SuiteScheduler(history, Duration.ofSeconds(90), 20, 10).schedule(scheduleFile);
+
+        assertEquals("[Bench Moved, Bench Noisy, Bench Stable]", efforts.stream().map(e -> e.benchmark()).toList()
+                .toString(), "Wrong benchmarks");
+        var movedEffort = efforts.get(0);
+        var noisyEffort = efforts.get(1);
+        var stableEffort = efforts.get(2);
+        assertEquals(1, stableEffort.trialCount(), "Stable benchmark should not repeat");
+        assertTrue(noisyEffort.trialCount() > 1, "Noisy benchmark should repeat: " + noisyEffort);
+        assertTrue(movedEffort.trialCount() > 1, "Moved benchmark should repeat: " + movedEffort);
+        assertEquals(0.3, movedEffort.movement(), 0.001, "Wrong movement");
+        double estSecs = efforts.stream().mapToDouble(e -> e.estSecs()).sum();
+        assertTrue(estSecs <= 90, "Schedule is over budget: " + estSecs);
+        assertTrue(estSecs > 80, "Schedule left budget unused: " + estSecs);
+
+        var csv = Filer.getFileText(scheduleFile).lines().toList();
+        assertEquals(4, csv.size(), "Wrong schedule line count");
+        assertEquals(String.join(",", SuiteScheduler.scheduleHeader), csv.get(0), "Wrong schedule header");
+        assertTrue(csv.get(3).startsWith("Bench Stable,1,"), "Wrong stable row: " + csv.get(3));
+        Filer.delete(history);
+    }
+
+    @Test
+    void allocate() {
+        var histories = List.of(new SuiteScheduler.History("Bench A", new double[] {1000, 1200, 800}, 10, 1),
+                new SuiteScheduler.History("Bench B", new double[] {1000}, 10, 1));
+        var efforts = new SuiteScheduler(Path.of("."), Duration.ofSeconds(30), 5, 10).allocate(histories);
+        assertEquals(5, efforts.get(0).trialCount(), "Wrong capped trial count");
+        assertEquals(5, efforts.get(1).trialCount(), "Unknown history should get the highest known weight");
+        assertEquals(efforts.get(0).weight(), efforts.get(1).weight(), "Wrong unknown weight");
+
+        efforts = new SuiteScheduler(Path.of("."), Duration.ofSeconds(5), 5, 10).allocate(histories);
+        assertEquals(1, efforts.get(0).trialCount(), "Every benchmark should run once over budget");
+        assertEquals(1, efforts.get(1).trialCount(), "Every benchmark should run once over budget");
+    }
+
+    @Test
+    void readRun() throws Exception {
+        var history = Files.createTempDirectory("results");
+        writeRun(history, 0, 1000, 1000, 1000);
+        var runDir = history.resolve("run-18565900000");
+        var samples = SuiteScheduler.readRun(runDir);
+        assertEquals(2.0, samples.get("Bench Stable").trialSecs.get(0), 0.001, "Wrong measured trial secs");
+        assertEquals(10.0, samples.get("Bench Stable").baseSecs.get(0), 0.001, "Wrong base secs");
+
+        Files.delete(runDir.resolve("benchmark-metrics.csv"));
+        samples = SuiteScheduler.readRun(runDir);
+        assertEquals(12.0, samples.get("Bench Stable").trialSecs.get(0), 0.001, "Unmeasured trial should be the test");
+        Filer.delete(history);
+    }
+
+    void writeRun(Path parent, int index, double stableRate, double noisyRate, double movedRate) throws Exception {
+        var runDir = parent.resolve(String.format("run-1856590%04d", index));
+        Files.createDirectories(runDir);
+        Filer.putFileText(runDir.resolve("benchmark-results.csv"), """
+        benchmark_name,origin,timestamp,test_duration,op_duration,op_rate,row_count,trial_count
+        Bench Stable,deephaven-engine,1683926545385,12.0,0.5,%s,1000,2
+        Bench Noisy,deephaven-engine,1683926545385,12.0,0.5,%s,1000,2
+        Bench Moved,deephaven-engine,1683926545385,12.0,0.5,%s,1000,2
+        """.formatted(stableRate, noisyRate, movedRate));
+        Filer.putFileText(runDir.resolve("benchmark-metrics.csv"), """
+        benchmark_name,origin,timestamp,name,value,note
+        Bench Stable,test-runner,1683926545385,trial.count,2,stop=max.count
+        Bench Stable,test-runner,1683926545385,trial.duration.secs,2.0,
+        Bench Noisy,test-runner,1683926545385,trial.count,2,stop=max.count
+        Bench Noisy,test-runner,1683926545385,trial.duration.secs,2.0,
+        Bench Moved,test-runner,1683926545385,trial.count,2,stop=max.count
+        Bench Moved,test-runner,1683926545385,trial.duration.secs,2.0,
+        """);
+    }
+
+}
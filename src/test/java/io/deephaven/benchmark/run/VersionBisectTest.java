@@ -0,0 +1,108 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.run;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import io.deephaven.benchmark.util.Filer;
+
+public class VersionBisectTest {
+    final List<String> tags = List.of("0.35.0", "0.35.1", "0.35.2", "0.36.0", "0.36.1", "0.37.0");
+
+    @Test
+    void search() {
+        var rates = Map.of("0.35.0", 1000.0, "0.35.1", 990.0, "0.35.2", 1010.0, "0.36.0", 700.0, "0.36.1", 690.0,
+                "0.37.0", 710.0);
+        var measured = new ArrayList<String>();
+        var bisect = new VersionBisect("my.Test", "0.35.0", "0.37.0", tags.subList(1, 5), List.of(), Path.of("."));
+        var result = bisect.search(bisect.tags, tag -> {
+            measured.add(tag);
+            return Map.of("Bench A", new VersionBisect.Measure(tag, "Bench A", rates.get(tag), rates.get(tag), 10, 10),
+                    "Bench B", new VersionBisect.Measure(tag, "Bench B", 500, 500, 10, 10));
+        });
+        assertEquals("Bench A", result.benchmark(), "Wrong regressed benchmark");
+        assertEquals("0.35.2", result.lastGoodTag(), "Wrong last good tag");
+        assertEquals("0.36.0", result.firstBadTag(), "Wrong first bad tag");
+        assertEquals(-0.29, result.change(), 0.0001, "Wrong change");
+        assertTrue(result.confidence() > 0.99, "Wrong confidence: " + result.confidence());
+        assertEquals("[0.35.0, 0.37.0, 0.35.2, 0.36.0]", measured.toString(), "Wrong tags measured");
+        assertEquals("[0.35.0, 0.35.2, 0.36.0, 0.37.0]",
+                result.verdicts().stream().map(v -> v.tag()).toList().toString(), "Wrong verdict order");
+
+        var csv = bisect.toCsv(result).lines().toList();
+        assertEquals(String.join(",", VersionBisect.reportHeader), csv.get(0), "Wrong report header");
+        assertEquals("0.36.0,Bench A,700,700,10,10,bad,1.0000", csv.get(3), "Wrong report row");
+    }
+
+    @Test
+    void searchNoRegression() {
+        var bisect = new VersionBisect("my.Test", "0.35.0", "0.37.0", List.of(), List.of(), Path.of("."));
+        var result = bisect.search(bisect.tags,
+                tag -> Map.of("Bench A", new VersionBisect.Measure(tag, "Bench A", 500, 500, 10, 10)));
+        assertNull(result.benchmark(), "No benchmark should have regressed");
+        assertEquals("No benchmark regressed between the good and bad tags", result.summary());
+    }
+
+    @Test
+    void searchNoisyDrop() {
+        var bisect = new VersionBisect("my.Test", "0.35.0", "0.37.0", List.of(), List.of(), Path.of("."));
+        var result = bisect.search(bisect.tags, tag -> {
+            double rate = tag.equals("0.35.0") ? 1000 : 950;
+            return Map.of("Bench A", new VersionBisect.Measure(tag, "Bench A", rate, rate, 200, 10));
+        });
+        assertNull(result.benchmark(), "A drop within the noise should not be followed");
+    }
+
+    @Test
+    void getTagProfile() {
+        var props = VersionBisect.getTagProfile(Path.of("bisect-0.36.1-docker-compose.yml"));
+        assertTrue(props.getProperty("docker.compose.file").endsWith("bisect-0.36.1-docker-compose.yml"),
+                "Wrong compose file");
+        assertEquals("10", props.getProperty("trial.max.count"), "Wrong trial count");
+        assertEquals(Integer.MAX_VALUE + " minutes", props.getProperty("trial.time.budget"), "Wrong time budget");
+        assertEquals("", props.getProperty("schedule.file"), "Schedule file should be cleared");
+        assertEquals("", props.getProperty("schedule.time.budget"), "Schedule budget should be cleared");
+    }
+
+    @Test
+    void setComposeImage() {
+        var compose = """
+        services:
+          deephaven:
+            image: ghcr.io/deephaven/server:${VERSION}
+            ports:
+              - "10000:10000"
+          redpanda:
+            image: docker.redpanda.com/vectorized/redpanda:v22.2.5
+        """;
+        var text = VersionBisect.setComposeImage(compose, "0.36.1");
+        assertTrue(text.contains("    image: ghcr.io/deephaven/server:0.36.1\n"), "Wrong tag image: " + text);
+        assertTrue(text.contains("image: docker.redpanda.com/vectorized/redpanda:v22.2.5"), "Wrong other image");
+        text = VersionBisect.setComposeImage(compose, "my.registry/deephaven/server:custom");
+        assertTrue(text.contains("    image: my.registry/deephaven/server:custom\n"), "Wrong full image: " + text);
+        assertThrows(RuntimeException.class, () -> VersionBisect.setComposeImage("services:", "0.36.1"));
+    }
+
+    @Test
+    void getSelectorArgs() {
+        assertEquals("[--select-class, my.Test]", VersionBisect.getSelectorArgs("my.Test").toString());
+        assertEquals("[--select-method, my.Test#run]", VersionBisect.getSelectorArgs("my.Test#run").toString());
+    }
+
+    @Test
+    void readMeasures() throws Exception {
+        var results = Files.createTempDirectory("results");
+        var runDir = Files.createDirectories(results.resolve("run-1856590b0c0"));
+        Filer.putFileText(runDir.resolve("benchmark-results.csv"), """
+        benchmark_name,origin,timestamp,test_duration,op_duration,op_rate,row_count,trial_count,op_rate_min,\
+        op_rate_median,op_rate_mean,op_rate_stddev,op_rate_ci
+        Bench A,deephaven-engine,1683926545385,10.0,1.0,1000,1000,5,900,1000,980,50,62
+        """);
+        var measures = VersionBisect.readMeasures("0.36.1", runDir.resolve("benchmark-results.csv"));
+        assertEquals(new VersionBisect.Measure("0.36.1", "Bench A", 1000, 980, 50, 5), measures.get("Bench A"));
+        Filer.delete(results);
+    }
+
+}
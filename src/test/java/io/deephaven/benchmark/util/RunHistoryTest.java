@@ -0,0 +1,50 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class RunHistoryTest {
+
+    @Test
+    void getResultFiles() throws Exception {
+        var results = Files.createTempDirectory("results");
+        var run2 = Files.createDirectories(results.resolve("run-1856590b0c2"));
+        var run1 = Files.createDirectories(results.resolve("run-1856590b0c1"));
+        Files.createDirectories(results.resolve("run-1856590b0c3"));
+        Files.createDirectories(results.resolve("not-a-run"));
+        Filer.putFileText(run1.resolve("benchmark-results.csv"), "benchmark_name\n");
+        Filer.putFileText(run2.resolve("benchmark-results.csv"), "benchmark_name\n");
+
+        assertEquals(3, RunHistory.getRunDirs(results).size(), "Wrong run dir count");
+        assertEquals(List.of(run1, run2).toString(), RunHistory.getRunDirs(results).stream().limit(2).toList()
+                .toString(), "Wrong run dir order");
+        assertEquals(List.of(run1.resolve("benchmark-results.csv"), run2.resolve("benchmark-results.csv")),
+                RunHistory.getResultFiles(results, "benchmark-results.csv"), "Wrong result files");
+        assertTrue(RunHistory.getRunDirs(results.resolve("missing")).isEmpty(), "Missing dir should have no runs");
+        Filer.delete(results);
+    }
+
+    @Test
+    void readRows() throws Exception {
+        var file = Files.createTempFile("benchmark-results", ".csv");
+        Filer.putFileText(file, """
+        benchmark_name,origin,op_rate
+        Bench A, deephaven-engine ,1000
+        Bench B,deephaven-engine
+
+        """);
+        var rows = RunHistory.readRows(file, "benchmark_name", "op_rate");
+        assertEquals(2, rows.size(), "Wrong row count");
+        assertEquals(Map.of("benchmark_name", "Bench A", "origin", "deephaven-engine", "op_rate", "1000"),
+                rows.get(0), "Wrong row");
+        assertEquals("", rows.get(1).getOrDefault("op_rate", ""), "Short row should leave out missing columns");
+        assertThrows(RuntimeException.class, () -> RunHistory.readRows(file, "op_duration"));
+        assertTrue(RunHistory.readRows(file.resolveSibling("missing.csv")).isEmpty(), "Missing file has no rows");
+        Files.delete(file);
+    }
+
+}
@@ -0,0 +1,114 @@
+/* Copyright (c) 2022-2025 Deephaven Data Labs and Patent Pending */
+package io.deephaven.benchmark.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import org.junit.jupiter.api.*;
+
+public class StatisticsTest {
+    final double[] values = {10, 8, 5};
+
+    @Test
+    void mean() {
+        assertEquals(0, Statistics.mean(new double[0]), "Empty should be 0");
+        assertEquals(23.0 / 3, Statistics.mean(values), 0.0001, "Wrong mean");
+    }
+
+    @Test
+    void median() {
+        assertEquals(0, Statistics.median(new double[0]), "Empty should be 0");
+        assertEquals(8, Statistics.median(values), "Wrong odd count median");
+        assertEquals(6.5, Statistics.median(new double[] {10, 8, 5, 1}), "Wrong even count median");
+        assertArrayEquals(new double[] {10, 8, 5}, values, "Values should not be sorted in place");
+    }
+
+    @Test
+    void stddev() {
+        assertEquals(0, Statistics.stddev(new double[] {5}), "Single value should be 0");
+        assertEquals(2.5166, Statistics.stddev(values), 0.0001, "Wrong sample standard deviation");
+    }
+
+    @Test
+    void confidenceInterval() {
+        assertEquals(0, Statistics.confidenceInterval(new double[] {5}), "Single value should be 0");
+        assertEquals(6.2521, Statistics.confidenceInterval(values), 0.0001, "Wrong interval");
+        assertEquals(6.2521 / (23.0 / 3), Statistics.relativeConfidenceInterval(values), 0.0001, "Wrong interval");
+        assertEquals(Double.POSITIVE_INFINITY, Statistics.relativeConfidenceInterval(new double[] {5}));
+    }
+
+    @Test
+    void tValue95() {
+        assertEquals(12.706, Statistics.tValue95(1), "Wrong t value");
+        assertEquals(2.042, Statistics.tValue95(30), "Wrong t value");
+        assertEquals(1.960, Statistics.tValue95(100), "Wrong t value");
+        assertThrows(RuntimeException.class, () -> Statistics.tValue95(0));
+    }
+
+    @Test
+    void isWelchSignificant95() {
+        assertTrue(Statistics.isWelchSignificant95(1000, 10, 10, 700, 10, 10), "Clear drop should be significant");
+        assertFalse(Statistics.isWelchSignificant95(1000, 200, 10, 950, 200, 10), "Noise should not be significant");
+        assertFalse(Statistics.isWelchSignificant95(1000, 10, 1, 700, 10, 10), "One value cannot be tested");
+        assertTrue(Statistics.isWelchSignificant95(1000, 0, 5, 999, 0, 5), "Wrong zero variance difference");
+        assertFalse(Statistics.isWelchSignificant95(1000, 0, 5, 1000, 0, 5), "Wrong zero variance equality");
+    }
+
+    @Test
+    void mannWhitneyPValue() {
+        double[] low = {1, 2, 3, 4, 5};
+        double[] high = {6, 7, 8, 9, 10};
+        assertEquals(0.0122, Statistics.mannWhitneyPValue(low, high), 0.0005, "Wrong separated p-value");
+        assertEquals(0.0122, Statistics.mannWhitneyPValue(high, low), 0.0005, "Wrong reversed p-value");
+        assertEquals(1.0, Statistics.mannWhitneyPValue(low, low), 0.0001, "Same samples should not differ");
+        assertEquals(1.0, Statistics.mannWhitneyPValue(new double[] {5, 5}, new double[] {5, 5}), "All tied");
+        assertEquals(1.0, Statistics.mannWhitneyPValue(low, new double[0]), "Empty sample");
+    }
+
+    @Test
+    void bootstrapChangeInterval() {
+        double[] base = {100, 102, 98, 101, 99};
+        double[] cand = {80, 82, 78, 81, 79};
+        var ci = Statistics.bootstrapChangeInterval(base, cand, 1000, 1);
+        assertTrue(ci[0] <= -0.2 && ci[1] >= -0.2, "Interval should contain the change: " + ci[0] + " " + ci[1]);
+        assertTrue(ci[1] < 0, "Interval should exclude no change");
+        assertArrayEquals(ci, Statistics.bootstrapChangeInterval(base, cand, 1000, 1), "Same seed should repeat");
+        assertTrue(Double.isNaN(Statistics.bootstrapChangeInterval(base, new double[0], 1000, 1)[0]));
+    }
+
+    @Test
+    void changePoint() {
+        assertEquals(4, Statistics.changePoint(new double[] {10, 11, 10, 9, 5, 6, 5, 4}, 2), "Wrong shift");
+        assertEquals(2, Statistics.changePoint(new double[] {10, 11, 5, 6, 5, 4, 5, 6}, 2), "Wrong early shift");
+        assertEquals(-1, Statistics.changePoint(new double[] {10, 11, 5}, 2), "Too short to split");
+    }
+
+    @Test
+    void changePointPValue() {
+        double[] shifted = {10, 11, 10, 9, 10, 11, 5, 6, 5, 4, 5, 6};
+        double[] noise = {10, 11, 10, 9, 10, 11, 9, 10, 11, 9, 10, 11};
+        assertTrue(Statistics.changePointPValue(shifted, 4, 1000, 1) < 0.01, "Shift should be significant");
+        assertTrue(Statistics.changePointPValue(noise, 4, 1000, 1) > 0.2, "Best split of noise should not be");
+        assertEquals(Statistics.changePointPValue(noise, 4, 1000, 1), Statistics.changePointPValue(noise, 4, 1000, 1),
+                "Same seed should repeat");
+        assertEquals(1.0, Statistics.changePointPValue(new double[] {10, 11, 5}, 2, 1000, 1), "Too short to split");
+    }
+
+    @Test
+    void benjaminiHochberg() {
+        var q = Statistics.benjaminiHochberg(new double[] {0.04, 0.01, 0.03, 0.5});
+        assertArrayEquals(new double[] {0.0533, 0.04, 0.0533, 0.5}, round(q), "Wrong adjusted p-values");
+        assertEquals(0, Statistics.benjaminiHochberg(new double[0]).length, "Empty p-values");
+    }
+
+    @Test
+    void normalCdf() {
+        assertEquals(0.5, Statistics.normalCdf(0), 0.0001, "Wrong center");
+        assertEquals(0.975, Statistics.normalCdf(1.96), 0.0001, "Wrong upper tail");
+        assertEquals(0.025, Statistics.normalCdf(-1.96), 0.0001, "Wrong lower tail");
+    }
+
+    private double[] round(double[] values) {
+        return Arrays.stream(values).map(v -> Math.round(v * 10000) / 10000.0).toArray();
+    }
+
+}